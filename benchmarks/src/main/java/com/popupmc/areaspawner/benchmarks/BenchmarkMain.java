@@ -0,0 +1,53 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so every result also shows the allocation rate and the bytes allocated
+ * per operation. Takes the same arguments as JMH, i.e: "Region" only runs the region benchmarks and "-prof stack"
+ * adds another profiler.
+ *
+ * @author lelesape
+ */
+public final class BenchmarkMain {
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private BenchmarkMain(){}
+
+    /**
+     * Runs the benchmarks.
+     * @param args JMH's command line options.
+     * @throws CommandLineOptionException If the options are not valid.
+     * @throws RunnerException If a benchmark failed to run.
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.benchmarks;
+
+import com.popupmc.areaspawner.spawn.Region;
+import com.popupmc.areaspawner.spawn.SpawnRules;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Fixed spawn rules for the benchmarks, matching the plugin's default config unless told otherwise.
+ *
+ * @author lelesape
+ */
+class BenchmarkRules implements SpawnRules {
+
+    /**
+     * The blocks in the default config's block list.
+     */
+    static final String[] DEFAULT_BLOCK_LIST = {"BEDROCK", "PLANKS", "SAPLING", "TNT", "STONE_PRESSURE_PLATE",
+            "WOODEN_PRESSURE_PLATE", "LIGHT_WEIGHTED_PRESSURE_PLATE", "HEAVY_WEIGHTED_PRESSURE_PLATE", "LAVA", "WATER",
+            "BED", "WEB", "TORCH", "REDSTONE_BLOCK", "CHEST", "WHEAT", "FURNACE", "FIRE", "REDSTONE", "CACTUS",
+            "OBSIDIAN", "PORTAL", "ENCHANTING TABLE"};
+
+    /**
+     * The spawn region.
+     */
+    final private Region allowed;
+    /**
+     * The no spawn region, empty.
+     */
+    final private Region forbidden;
+    /**
+     * The blocks in the block list.
+     */
+    final private Set<String> blockList;
+    /**
+     * Whether the block list is a whitelist.
+     */
+    final private boolean listIsWhitelist;
+    /**
+     * Whether columns are scanned from the top.
+     */
+    final private boolean topToBottom;
+    /**
+     * The seed for seeded samplers.
+     */
+    final private long samplerSeed;
+
+    /**
+     * Creates new rules.
+     * @param allowed The spawn region.
+     * @param blockList The blocks in the block list.
+     * @param listIsWhitelist Whether the block list is a whitelist.
+     * @param topToBottom Whether columns are scanned from the top.
+     * @param samplerSeed The seed for seeded samplers.
+     */
+    BenchmarkRules(Region allowed, String[] blockList, boolean listIsWhitelist, boolean topToBottom, long samplerSeed){
+        this.allowed = allowed;
+        this.forbidden = new Region(0, 0, 0, 0, 0, 0);
+        this.blockList = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(blockList)));
+        this.listIsWhitelist = listIsWhitelist;
+        this.topToBottom = topToBottom;
+        this.samplerSeed = samplerSeed;
+    }
+
+    @Override
+    public String getWorldName(){
+        return "world";
+    }
+
+    @Override
+    public Region getAllowedRegion(){
+        return allowed;
+    }
+
+    @Override
+    public Region getForbiddenRegion(){
+        return forbidden;
+    }
+
+    @Override
+    public Set<String> getBlockList(){
+        return blockList;
+    }
+
+    @Override
+    public boolean isListIsWhitelist(){
+        return listIsWhitelist;
+    }
+
+    @Override
+    public int getAirGapAbove(){
+        return 2;
+    }
+
+    @Override
+    public boolean isTopToBottom(){
+        return topToBottom;
+    }
+
+    @Override
+    public boolean isNotCheckPastSurface(){
+        return true;
+    }
+
+    @Override
+    public long getSamplerSeed(){
+        return samplerSeed;
+    }
+
+    @Override
+    public int getHeatmapGridSize(){
+        return 32;
+    }
+
+    @Override
+    public double getHeatmapExploration(){
+        return 0.1;
+    }
+}
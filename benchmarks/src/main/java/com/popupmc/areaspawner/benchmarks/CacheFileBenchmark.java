@@ -0,0 +1,97 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.benchmarks;
+
+import com.popupmc.areaspawner.FakeServer;
+import com.popupmc.areaspawner.spawn.CacheFile;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes and reads the cache file with the plugin's own {@link CacheFile}, serializing the locations and hashing
+ * them. Loading parses the file the way the plugin's config accessor does before reading it.
+ *
+ * @author lelesape
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CacheFileBenchmark {
+
+    /**
+     * The amount of locations in the file, as in "amount of cached spawns" in config.
+     */
+    @Param({"100", "5000"})
+    public int size;
+
+    /**
+     * The locations to write.
+     */
+    private List<Location> locations;
+    /**
+     * The file's contents, for reading it.
+     */
+    private byte[] contents;
+
+
+    /**
+     * Creates the locations and the file's contents.
+     */
+    @Setup
+    public void setup(){
+        World world = FakeServer.install();
+        SplittableRandom random = new SplittableRandom(42);
+        locations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            locations.add(new Location(world, random.nextInt(-5000, 5000), random.nextInt(40, 100), random.nextInt(-5000, 5000)));
+        }
+        contents = save();
+    }
+
+    @Benchmark
+    public byte[] save(){
+        return CacheFile.write(locations, null);
+    }
+
+    @Benchmark
+    public boolean load() throws InvalidConfigurationException {
+        YamlConfiguration cache = new YamlConfiguration();
+        cache.loadFromString(new String(contents, StandardCharsets.UTF_8));
+        return CacheFile.isModified(cache, CacheFile.getLocations(cache));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.benchmarks;
+
+import com.popupmc.areaspawner.spawn.Region;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks points against a region, about half of them inside it, as done for every candidate location.
+ *
+ * @author lelesape
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RegionBenchmark {
+
+    /**
+     * The amount of points checked in turns, a power of two.
+     */
+    private static final int POINTS = 1024;
+
+    /**
+     * The region points are checked against.
+     */
+    private Region region;
+    /**
+     * The points' coordinates.
+     */
+    private int[] xs, ys, zs;
+    /**
+     * The next point to check.
+     */
+    private int index;
+
+
+    /**
+     * Creates the region and the points to check.
+     */
+    @Setup
+    public void setup(){
+        region = Region.newRegionByRanges(0, 64, 0, 5000, 32, 5000);
+        SplittableRandom random = new SplittableRandom(42);
+        xs = random.ints(POINTS, -7000, 7000).toArray();
+        ys = random.ints(POINTS, 16, 112).toArray();
+        zs = random.ints(POINTS, -7000, 7000).toArray();
+    }
+
+    @Benchmark
+    public boolean contains(){
+        int i = index++ & (POINTS - 1);
+        return region.contains(xs[i], ys[i], zs[i]);
+    }
+
+    @Benchmark
+    public boolean contains2D(){
+        int i = index++ & (POINTS - 1);
+        return region.contains2D(xs[i], zs[i]);
+    }
+}
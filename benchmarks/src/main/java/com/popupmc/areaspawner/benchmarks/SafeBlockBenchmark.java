@@ -0,0 +1,82 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.benchmarks;
+
+import com.popupmc.areaspawner.spawn.Region;
+import com.popupmc.areaspawner.spawn.SafetyRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks blocks against the block list, with the default config's list used as a blacklist or as a whitelist.
+ *
+ * @author lelesape
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SafeBlockBenchmark {
+
+    /**
+     * Blocks commonly found on the surface, some of them in the default block list.
+     */
+    private static final String[] BLOCKS = {"GRASS_BLOCK", "SAND", "WATER", "STONE", "SNOW", "DIRT", "LAVA",
+            "GRAVEL", "OAK_LEAVES", "CACTUS", "PODZOL", "TORCH", "ICE", "COARSE_DIRT", "RED_SAND", "TERRACOTTA"};
+
+    /**
+     * Whether the block list is a whitelist.
+     */
+    @Param({"false", "true"})
+    public boolean whitelist;
+
+    /**
+     * The rules blocks are checked with.
+     */
+    private BenchmarkRules rules;
+    /**
+     * The next block to check.
+     */
+    private int index;
+
+
+    /**
+     * Creates the rules.
+     */
+    @Setup
+    public void setup(){
+        rules = new BenchmarkRules(Region.newRegionByRanges(0, 64, 0, 5000, 32, 5000),
+                BenchmarkRules.DEFAULT_BLOCK_LIST, whitelist, true, 0);
+    }
+
+    @Benchmark
+    public boolean isSafeBlock(){
+        return SafetyRules.isSafeBlock(BLOCKS[index++ & (BLOCKS.length - 1)], rules);
+    }
+}
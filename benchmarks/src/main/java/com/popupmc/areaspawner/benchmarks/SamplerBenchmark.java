@@ -0,0 +1,92 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.benchmarks;
+
+import com.popupmc.areaspawner.spawn.Region;
+import com.popupmc.areaspawner.spawn.sampling.Sampler;
+import com.popupmc.areaspawner.spawn.sampling.SamplerType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks candidate columns with every sampler. The sampler is shared by every benchmark thread, like it is shared by
+ * the generation threads, so running with "-t" shows how each one holds up under contention.
+ *
+ * @author lelesape
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SamplerBenchmark {
+
+    /**
+     * The sampler to use, as in "sampler" in config.
+     */
+    @Param({"RANDOM", "SEEDED", "HALTON", "HEATMAP"})
+    public String type;
+
+    /**
+     * The sampler picking columns.
+     */
+    private Sampler sampler;
+    /**
+     * The region columns are picked from.
+     */
+    private Region region;
+
+
+    /**
+     * Creates the sampler.
+     */
+    @Setup
+    public void setup(){
+        region = Region.newRegionByRanges(0, 64, 0, 5000, 32, 5000);
+        sampler = SamplerType.fromString(type).create(new BenchmarkRules(region, BenchmarkRules.DEFAULT_BLOCK_LIST, false, true, 42));
+    }
+
+    @Benchmark
+    public long nextColumn(){
+        return sampler.nextColumn(region);
+    }
+
+    /**
+     * Picks a column and reports it back, safe on one side of the region only, so samplers learning from the
+     * reports have something to learn.
+     * @return The column picked.
+     */
+    @Benchmark
+    public long nextColumnAndReport(){
+        long column = sampler.nextColumn(region);
+        int x = Sampler.unpackX(column);
+        int z = Sampler.unpackZ(column);
+        sampler.report(x, z, x > 0);
+        return column;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.benchmarks;
+
+import com.popupmc.areaspawner.spawn.SpawnPool;
+import com.popupmc.areaspawner.spawn.sampling.RandomSampler;
+import com.popupmc.areaspawner.spawn.sampling.Sampler;
+import org.bukkit.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes locations from the spawn pool from several threads at once, the way players spawning, the generation
+ * threads refilling it and the cache verifier removing unsafe locations do. Every location taken is put back, so
+ * the pool keeps its size.
+ *
+ * @author lelesape
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SpawnPoolBenchmark {
+
+    /**
+     * The amount of locations in the pool, as in "amount of cached spawns" in config.
+     */
+    @Param({"100", "5000"})
+    public int size;
+
+    /**
+     * The pool, shared by every thread in the group.
+     */
+    private SpawnPool pool;
+    /**
+     * Every location in the pool.
+     */
+    private Location[] locations;
+    /**
+     * The sampler choosing locations.
+     */
+    private Sampler sampler;
+
+
+    /**
+     * Fills the pool.
+     */
+    @Setup
+    public void setup(){
+        pool = new SpawnPool();
+        sampler = new RandomSampler();
+        locations = new Location[size];
+        for (int i = 0; i < size; i++) {
+            locations[i] = new Location(null, i * 16, 64, -i * 16);
+            pool.add(locations[i]);
+        }
+    }
+
+    /**
+     * Takes a random location and puts it back, as spawning a player and generating a new location would.
+     * @return The location taken.
+     */
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(2)
+    public Location take(){
+        Location loc = pool.removeRandom(sampler);
+        if(loc != null) pool.add(loc);
+        return loc;
+    }
+
+    /**
+     * Removes a given location and puts it back, as the cache verifier would.
+     * @return true if the location was in the pool.
+     */
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public boolean remove(){
+        Location loc = locations[ThreadLocalRandom.current().nextInt(size)];
+        //The location may have been taken by another thread, in which case that thread puts it back
+        boolean removed = pool.remove(loc);
+        if(removed) pool.add(loc);
+        return removed;
+    }
+
+    /**
+     * Gets a random location without taking it, as spawning a player with "delete location on use" off would.
+     * @return The location.
+     */
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public Location peek(){
+        return pool.random(sampler);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.benchmarks;
+
+import com.popupmc.areaspawner.spawn.Region;
+import com.popupmc.areaspawner.spawn.SafetyRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the surface of columns of {@link SyntheticColumns} and checks the location found, which is what generating
+ * a location does with every column once its blocks are loaded.
+ *
+ * @author lelesape
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SurfaceBenchmark {
+
+    /**
+     * The amount of columns scanned in turns, a power of two.
+     */
+    private static final int COLUMNS = 1024;
+
+    /**
+     * Whether columns are scanned from the top ("top to bottom" in config).
+     */
+    @Param({"true", "false"})
+    public boolean topToBottom;
+    /**
+     * Whether the highest block of every column is known, as it is when reading region files.
+     */
+    @Param({"false", "true"})
+    public boolean heightmap;
+
+    /**
+     * The columns' blocks.
+     */
+    private SyntheticColumns columns;
+    /**
+     * The rules columns are scanned with.
+     */
+    private BenchmarkRules rules;
+    /**
+     * The columns' coordinates.
+     */
+    private int[] xs, zs;
+    /**
+     * The next column to scan.
+     */
+    private int index;
+
+
+    /**
+     * Creates the columns and the rules.
+     */
+    @Setup
+    public void setup(){
+        columns = new SyntheticColumns(42, heightmap);
+        rules = new BenchmarkRules(Region.newRegionByRanges(0, 64, 0, 5000, 64, 5000),
+                BenchmarkRules.DEFAULT_BLOCK_LIST, false, topToBottom, 0);
+        SplittableRandom random = new SplittableRandom(42);
+        xs = random.ints(COLUMNS, -5000, 5000).toArray();
+        zs = random.ints(COLUMNS, -5000, 5000).toArray();
+    }
+
+    @Benchmark
+    public int findSafeY(){
+        int i = index++ & (COLUMNS - 1);
+        Region allowed = rules.getAllowedRegion();
+        return SafetyRules.findSafeY(columns, xs[i], zs[i], allowed.getMinY(), allowed.getMaxY(), rules);
+    }
+
+    @Benchmark
+    public boolean scanColumn(){
+        int i = index++ & (COLUMNS - 1);
+        Region allowed = rules.getAllowedRegion();
+        int y = SafetyRules.findSafeY(columns, xs[i], zs[i], allowed.getMinY(), allowed.getMaxY(), rules);
+        return SafetyRules.getRejection(columns, xs[i], y, zs[i], rules.getForbiddenRegion(), allowed, rules) == null;
+    }
+}
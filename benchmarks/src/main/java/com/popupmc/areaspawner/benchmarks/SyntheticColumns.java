@@ -0,0 +1,84 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.benchmarks;
+
+import com.popupmc.areaspawner.spawn.BlockReader;
+
+import java.util.SplittableRandom;
+
+/**
+ * Columns of made up terrain kept in memory: rolling hills of grass and sand over dirt and stone, under water where
+ * they are lower than the sea level. The same tile of columns repeats every {@link #SIZE} blocks.
+ *
+ * @author lelesape
+ */
+class SyntheticColumns implements BlockReader {
+
+    /**
+     * The width of the tile of columns, a power of two.
+     */
+    static final int SIZE = 256;
+    /**
+     * The highest Y value filled with water.
+     */
+    private static final int SEA_LEVEL = 62;
+
+    /**
+     * The Y value of the surface of every column in the tile.
+     */
+    final private int[] heights = new int[SIZE * SIZE];
+    /**
+     * The block at the surface of every column in the tile.
+     */
+    final private String[] surfaces = new String[SIZE * SIZE];
+    /**
+     * Whether {@link #getHighestY(int, int)} gives the real height, like a heightmap would.
+     */
+    final private boolean heightmap;
+
+
+    /**
+     * Creates the columns.
+     * @param seed The seed for the small variations in height.
+     * @param heightmap Whether the highest block of every column is known.
+     */
+    SyntheticColumns(long seed, boolean heightmap){
+        this.heightmap = heightmap;
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                int height = (int) (64 + 10 * Math.sin(x / 23.0) + 8 * Math.cos(z / 17.0)) + random.nextInt(3);
+                heights[x * SIZE + z] = height;
+                surfaces[x * SIZE + z] = height <= SEA_LEVEL + 1 ? "SAND" : "GRASS_BLOCK";
+            }
+        }
+    }
+
+    @Override
+    public String getBlock(int x, int y, int z){
+        int column = (x & (SIZE - 1)) * SIZE + (z & (SIZE - 1));
+        int height = heights[column];
+        if(y > height) return y <= SEA_LEVEL ? "WATER" : "AIR";
+        if(y == height) return surfaces[column];
+        if(y <= 0) return "BEDROCK";
+        return y > height - 4 ? "DIRT" : "STONE";
+    }
+
+    @Override
+    public int getHighestY(int x, int z){
+        return heightmap ? Math.max(SEA_LEVEL, heights[(x & (SIZE - 1)) * SIZE + (z & (SIZE - 1))]) : Integer.MAX_VALUE;
+    }
+}
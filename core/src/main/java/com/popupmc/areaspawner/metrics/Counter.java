@@ -0,0 +1,83 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts events, in total and over the last 1 to 15 minutes.
+ *
+ * @author lelesape
+ */
+public class Counter extends WindowedMetric {
+
+    /**
+     * Every event counted since this counter was created.
+     */
+    final private LongAdder total = new LongAdder();
+
+
+    /**
+     * Creates a new counter.
+     * @param clock Where the current time comes from, in milliseconds.
+     */
+    Counter(LongSupplier clock){
+        super(clock, 1);
+    }
+
+    /**
+     * Counts an event.
+     */
+    public void increment(){
+        add(1);
+    }
+
+    /**
+     * Counts the given amount of events.
+     * @param amount The amount of events.
+     */
+    public void add(long amount){
+        add(currentSlot(), amount);
+        total.add(amount);
+    }
+
+    /**
+     * Gets every event counted since this counter was created.
+     * @return The total amount of events.
+     */
+    public long getTotal(){
+        return total.sum();
+    }
+
+    /**
+     * Gets the events counted within the last given minutes.
+     * @param minutes The amount of minutes, from 1 to 15.
+     * @return The amount of events.
+     */
+    public long getCount(int minutes){
+        return sum(minutes)[0];
+    }
+
+    /**
+     * Gets the average events per minute within the last given minutes.
+     * @param minutes The amount of minutes, from 1 to 15.
+     * @return The events per minute.
+     */
+    public double getRatePerMinute(int minutes){
+        return getCount(minutes) * 60_000.0 / getCoveredMillis(minutes);
+    }
+}
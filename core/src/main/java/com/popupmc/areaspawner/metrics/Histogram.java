@@ -0,0 +1,177 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Records the distribution of positive values, i.e: latencies, over the last 1 to 15 minutes. Values are counted in
+ * buckets, 4 for every power of 2, so percentiles are off by up to 25% but recording a value is a single atomic add.
+ * Values up to 3 are exact, values over 2^40 are counted as 2^40.
+ *
+ * @author lelesape
+ */
+public class Histogram extends WindowedMetric {
+
+    /**
+     * The highest power of 2 with its own buckets.
+     */
+    private static final int MAX_POWER = 40;
+    /**
+     * The amount of buckets, the cell after them holds the sum of every value recorded.
+     */
+    static final int BUCKETS = 4 + (MAX_POWER - 2) * 4;
+
+    /**
+     * The unit values are recorded in, only for showing them.
+     */
+    final private String unit;
+
+
+    /**
+     * Creates a new histogram.
+     * @param clock Where the current time comes from, in milliseconds.
+     * @param unit The unit values are recorded in, only for showing them.
+     */
+    Histogram(LongSupplier clock, String unit){
+        super(clock, BUCKETS + 1);
+        this.unit = unit;
+    }
+
+    /**
+     * Records a value.
+     * @param value The value, negative values are recorded as 0.
+     */
+    public void record(long value){
+        long clamped = Math.max(0, Math.min(value, (1L << MAX_POWER) - 1));
+        int slot = currentSlot();
+        add(slot + getBucket(clamped), 1);
+        add(slot + BUCKETS, clamped);
+    }
+
+    /**
+     * Takes a snapshot of the values recorded within the last given minutes.
+     * @param minutes The amount of minutes, from 1 to 15.
+     * @return The snapshot.
+     */
+    public Snapshot getSnapshot(int minutes){
+        return new Snapshot(sum(minutes), getCoveredMillis(minutes));
+    }
+
+    /**
+     * Gets the unit values are recorded in.
+     * @return The unit, i.e: ms.
+     */
+    public String getUnit(){
+        return unit;
+    }
+
+    /**
+     * Gets the bucket a value is counted in.
+     * @param value The value, from 0 to 2^40 - 1.
+     * @return The bucket.
+     */
+    static int getBucket(long value){
+        if(value < 4) return (int) value;
+        int power = 63 - Long.numberOfLeadingZeros(value);
+        return 4 + (power - 2) * 4 + (int) ((value >>> (power - 2)) & 3);
+    }
+
+    /**
+     * Gets the highest value counted in a bucket.
+     * @param bucket The bucket.
+     * @return The highest value in it.
+     */
+    static long getBucketMax(int bucket){
+        if(bucket < 4) return bucket;
+        int power = (bucket - 4) / 4 + 2;
+        long sub = (bucket - 4) % 4;
+        return ((4 + sub + 1) << (power - 2)) - 1;
+    }
+
+
+    /**
+     * The values recorded within some minutes.
+     */
+    public static final class Snapshot {
+
+        /**
+         * The amount of values in every bucket, followed by the sum of every value.
+         */
+        final private long[] cells;
+        /**
+         * The amount of values recorded.
+         */
+        final private long count;
+        /**
+         * The milliseconds the snapshot covers.
+         */
+        final private long coveredMillis;
+
+        /**
+         * Creates a new snapshot.
+         * @param cells The amount of values in every bucket, followed by the sum of every value.
+         * @param coveredMillis The milliseconds the snapshot covers.
+         */
+        private Snapshot(long[] cells, long coveredMillis){
+            this.cells = cells;
+            this.coveredMillis = coveredMillis;
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) count += cells[i];
+            this.count = count;
+        }
+
+        /**
+         * Gets the amount of values recorded.
+         * @return The amount of values.
+         */
+        public long getCount(){
+            return count;
+        }
+
+        /**
+         * Gets the average values recorded per minute.
+         * @return The values per minute.
+         */
+        public double getRatePerMinute(){
+            return count * 60_000.0 / coveredMillis;
+        }
+
+        /**
+         * Gets the mean of the values recorded.
+         * @return The mean, 0 if there are none.
+         */
+        public double getMean(){
+            return count == 0 ? 0 : (double) cells[BUCKETS] / count;
+        }
+
+        /**
+         * Gets a percentile of the values recorded, rounded up to the highest value of its bucket.
+         * @param percentile The percentile, from 0 to 1.
+         * @return The value at the percentile, 0 if there are none.
+         */
+        public long getPercentile(double percentile){
+            if(count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percentile * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += cells[i];
+                if(seen >= rank) return getBucketMax(i);
+            }
+            return getBucketMax(BUCKETS - 1);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds metrics by name. Metrics are created the first time they are asked for and kept forever, so callers should
+ * keep the metrics they use often instead of looking them up every time.
+ *
+ * @author lelesape
+ */
+public class MetricsRegistry {
+
+    /**
+     * Where the current time comes from, in milliseconds.
+     */
+    final private LongSupplier clock;
+    /**
+     * Every counter, by name.
+     */
+    final private Map<String, Counter> counters = new ConcurrentHashMap<>();
+    /**
+     * Every histogram, by name.
+     */
+    final private Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+
+    /**
+     * Creates a new registry using the system clock.
+     */
+    public MetricsRegistry(){
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a new registry.
+     * @param clock Where the current time comes from, in milliseconds.
+     */
+    public MetricsRegistry(LongSupplier clock){
+        this.clock = clock;
+    }
+
+    /**
+     * Gets a counter, creating it if needed.
+     * @param name The name of the counter.
+     * @return The counter.
+     */
+    public Counter counter(String name){
+        Counter counter = counters.get(name);
+        return counter != null ? counter : counters.computeIfAbsent(name, n -> new Counter(clock));
+    }
+
+    /**
+     * Gets a histogram, creating it if needed.
+     * @param name The name of the histogram.
+     * @param unit The unit values are recorded in, ignored if the histogram already exists.
+     * @return The histogram.
+     */
+    public Histogram histogram(String name, String unit){
+        Histogram histogram = histograms.get(name);
+        return histogram != null ? histogram : histograms.computeIfAbsent(name, n -> new Histogram(clock, unit));
+    }
+
+    /**
+     * Gets every counter.
+     * @return An unmodifiable copy of every counter, sorted by name.
+     */
+    public Map<String, Counter> getCounters(){
+        return Collections.unmodifiableMap(new TreeMap<>(counters));
+    }
+
+    /**
+     * Gets every histogram.
+     * @return An unmodifiable copy of every histogram, sorted by name.
+     */
+    public Map<String, Histogram> getHistograms(){
+        return Collections.unmodifiableMap(new TreeMap<>(histograms));
+    }
+}
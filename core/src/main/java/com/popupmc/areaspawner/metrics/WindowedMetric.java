@@ -0,0 +1,151 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Base for metrics kept over the last 15 minutes. Values are added to a ring of 30 second slots, every slot holding
+ * a fixed amount of cells, so recording never allocates nor locks. A slot is cleared by the first thread recording
+ * in it after it expired, other threads recording in it meanwhile wait for its cells to be cleared so nothing is
+ * lost, and slots being cleared or reused while they are read are left out of sums.
+ *
+ * @author lelesape
+ */
+abstract class WindowedMetric {
+
+    /**
+     * The milliseconds every slot covers.
+     */
+    static final long SLOT_MILLIS = 30_000;
+    /**
+     * The amount of slots, enough for 15 minutes plus the slot being filled.
+     */
+    static final int SLOTS = 31;
+    /**
+     * The slot number held by a slot while its cells are being cleared.
+     */
+    private static final long CLEARING = -1;
+
+    /**
+     * Where the current time comes from, in milliseconds.
+     */
+    final private LongSupplier clock;
+    /**
+     * The amount of cells in every slot.
+     */
+    final private int cells;
+    /**
+     * The cells of every slot, one after another.
+     */
+    final private AtomicLongArray values;
+    /**
+     * The number of the time slot (time / {@link #SLOT_MILLIS}) every slot in the ring is holding, or
+     * {@link #CLEARING}.
+     */
+    final private AtomicLongArray slotNumbers = new AtomicLongArray(SLOTS);
+    /**
+     * When the metric was created, in milliseconds.
+     */
+    final private long created;
+
+
+    /**
+     * Creates a new windowed metric.
+     * @param clock Where the current time comes from, in milliseconds.
+     * @param cells The amount of cells in every slot.
+     */
+    WindowedMetric(LongSupplier clock, int cells){
+        this.clock = clock;
+        this.cells = cells;
+        this.values = new AtomicLongArray(SLOTS * cells);
+        this.created = clock.getAsLong();
+    }
+
+    /**
+     * Gets the index of the first cell of the current slot, clearing the slot if it holds an older time slot.
+     * @return The index of the first cell of the current slot.
+     */
+    final int currentSlot(){
+        long number = clock.getAsLong() / SLOT_MILLIS;
+        int slot = (int) (number % SLOTS);
+        while(true) {
+            long held = slotNumbers.get(slot);
+            if(held >= number) return slot * cells;
+
+            //The slot only takes the new number once cleared, until then no one adds to it nor sums it
+            if(held != CLEARING && slotNumbers.compareAndSet(slot, held, CLEARING)) {
+                for (int i = slot * cells; i < (slot + 1) * cells; i++) values.set(i, 0);
+                slotNumbers.set(slot, number);
+                return slot * cells;
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Adds to a cell of the current slot.
+     * @param cellIndex The index of the cell in the current slot, as returned by {@link #currentSlot()} plus the cell.
+     * @param delta The amount to add.
+     */
+    final void add(int cellIndex, long delta){
+        values.addAndGet(cellIndex, delta);
+    }
+
+    /**
+     * Adds up every cell of the slots within the last given minutes.
+     * @param minutes The amount of minutes, from 1 to 15.
+     * @return The total of every cell.
+     */
+    final long[] sum(int minutes){
+        long number = clock.getAsLong() / SLOT_MILLIS;
+        long oldest = number - slotsFor(minutes) + 1;
+        long[] sum = new long[cells];
+        long[] read = new long[cells];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            long held = slotNumbers.get(slot);
+            if(held == CLEARING || held < oldest || held > number) continue;
+            for (int cell = 0; cell < cells; cell++) read[cell] = values.get(slot * cells + cell);
+            //The slot was reused while being read, its cells no longer belong to the time slot checked
+            if(slotNumbers.get(slot) != held) continue;
+            for (int cell = 0; cell < cells; cell++) sum[cell] += read[cell];
+        }
+        return sum;
+    }
+
+    /**
+     * Gets the milliseconds actually covered by the last given minutes, as the slot being filled is not complete
+     * and the metric might not be that old.
+     * @param minutes The amount of minutes, from 1 to 15.
+     * @return The milliseconds covered, at least 1.
+     */
+    final long getCoveredMillis(int minutes){
+        long now = clock.getAsLong();
+        long covered = (slotsFor(minutes) - 1) * SLOT_MILLIS + now % SLOT_MILLIS;
+        return Math.max(1, Math.min(covered, now - created));
+    }
+
+    /**
+     * Gets the amount of slots needed for the given minutes.
+     * @param minutes The amount of minutes, from 1 to 15.
+     * @return The amount of slots.
+     */
+    private static int slotsFor(int minutes){
+        int clamped = Math.max(1, Math.min(15, minutes));
+        return (int) (clamped * 60_000 / SLOT_MILLIS);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+/**
+ * Gives the type of the block at some coordinates, so the same safety rules can be checked against a live world,
+ * a chunk snapshot or anything else holding blocks. This is the only way the spawn engine reads terrain, whatever
+ * runs it (the plugin, the command line tools or a synthetic world) provides its own implementation.
+ *
+ * @author lelesape
+ */
+@FunctionalInterface
+public interface BlockReader {
+
+    /**
+     * Gets the type of a block.
+     * @param x The block's x coordinate.
+     * @param y The block's y coordinate.
+     * @param z The block's z coordinate.
+     * @return The name of the block's material, as in Bukkit's Material names (i.e: "GRASS_BLOCK").
+     */
+    String getBlock(int x, int y, int z);
+
+    /**
+     * Gets the Y value of the highest block in a column that is not air, every block above it being air.
+     * @param x The column's x coordinate.
+     * @param z The column's z coordinate.
+     * @return The Y value of the highest block, or {@link Integer#MAX_VALUE} if it is not known.
+     */
+    default int getHighestY(int x, int z){
+        return Integer.MAX_VALUE;
+    }
+}
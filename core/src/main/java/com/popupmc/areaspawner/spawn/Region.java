@@ -0,0 +1,232 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+
+/**
+ * 3D region (x, y, z) for checking location of points inside/outside given areas.
+ *
+ * @author lelesape
+ */
+public class Region {
+
+    /**
+     * The first point's x coordinate.
+     */
+    private final int minX;
+    /**
+     * The seconds point's (opposite to the first point) x coordinate.
+     */
+    private final int maxX;
+    /**
+     * The first point's y coordinate.
+     */
+    private final int minY;
+    /**
+     * The seconds point's (opposite to the first point) y coordinate.
+     */
+    private final int maxY;
+    /**
+     * The first point's z coordinate.
+     */
+    private final int minZ;
+    /**
+     * The seconds point's (opposite to the first point) z coordinate.
+     */
+    private final int maxZ;
+
+
+    /**
+     * Makes a new region using ranges instead of concrete points.
+     * i.e: xCenter 0 and xRange 500 is a new region which has a first point with an x value of -500 and
+     * a second point with an x value of 500.
+     * @param xCenter The center point's x value.
+     * @param yCenter The center point's y value.
+     * @param zCenter The center point's z value.
+     * @param xRange The x coordinate range.
+     * @param yRange The y coordinate range.
+     * @param zRange The z coordinate range.
+     * @return A new region with the given coordinates and ranges.
+     */
+    public static Region newRegionByRanges(int xCenter, int yCenter, int zCenter, int xRange, int yRange, int zRange){
+        return new Region(xCenter-xRange,
+                xCenter+xRange,
+                yCenter-yRange,
+                yCenter+yRange,
+                zCenter-zRange,
+                zCenter+zRange);
+    }
+
+
+    /**
+     * Makes the spawn region from the values given in config, optionally keeping it inside the world's limits.
+     * @param xCenter The center point's x value.
+     * @param yCenter The center point's y value.
+     * @param zCenter The center point's z value.
+     * @param xRange The x coordinate range.
+     * @param yRange The y coordinate range.
+     * @param zRange The z coordinate range.
+     * @param clampToLimits Whether to keep the region inside the world's limits.
+     * @return A new region with the given coordinates and ranges.
+     */
+    public static Region newSpawnRegion(int xCenter, int yCenter, int zCenter, int xRange, int yRange, int zRange, boolean clampToLimits){
+        if(clampToLimits){
+            xCenter = Math.min(29_999_984, xCenter);
+            yCenter = Math.min(255, yCenter);
+            zCenter = Math.min(29_999_984, zCenter);
+            xRange = Math.min(29_999_984, xRange);
+            yRange = Math.min(255, yRange);
+            zRange = Math.min(29_999_984, zRange);
+            if(xCenter+xRange > 29_999_984 || xCenter-xRange < -29_999_984) xRange = 29_999_984 - xCenter;
+            if(yCenter+yRange > 256 || yCenter-yRange < 0) yRange = 128 - yCenter;
+            if(zCenter+zRange > 29_999_984 || zCenter-zRange < -29_999_984) zRange = 29_999_984 - zCenter;
+        }
+
+        return newRegionByRanges(xCenter, yCenter, zCenter, xRange, yRange, zRange);
+    }
+
+
+    /**
+     * Creates a new 3D (x, y, z) region with the given coordinates.
+     * @param minX The first point's x coordinate.
+     * @param maxX The second point's x coordinate.
+     * @param minY The first point's y coordinate.
+     * @param maxY The second point's y coordinate.
+     * @param minZ The first point's x coordinate.
+     * @param maxZ The second point's z coordinate.
+     */
+    public Region(int minX, int maxX, int minY, int maxY, int minZ, int maxZ){
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.minZ = minZ;
+        this.maxZ = maxZ;
+    }
+
+
+
+    /**
+     * Checks if a point (x, y, z) is within this region.
+     * @param pointX The point's x value.
+     * @param pointY The point's y value.
+     * @param pointZ The point's z value.
+     * @return true if the point is within the given region.
+     */
+    public boolean contains(int pointX, int pointY, int pointZ){
+        return (pointX <= maxX && pointX >= minX) &&
+                (pointY <= maxY && pointY >= minY)&&
+                (pointZ <= maxZ && pointZ >= minZ);
+    }
+
+    /**
+     * Checks if a point (x, z) is within this region.
+     * @param pointX The point's x value.
+     * @param pointZ The point's z value.
+     * @return true if the point is within the given region in the 2D plane.
+     */
+    public boolean contains2D(int pointX, int pointZ){
+        return (pointX <= maxX && pointX >= minX) &&
+                (pointZ <= maxZ && pointZ >= minZ);
+    }
+
+    /**
+     * Checks if another region is entirely contained in this region.
+     * @param region The region to check if is inside this region.
+     * @return true if the region is entirely contained inside this region.
+     */
+    public boolean contains(Region region){
+        return contains(region.getMaxX(), region.getMaxY(), region.getMaxZ()) && contains(region.getMinX(), region.getMinY(), region.getMinZ());
+    }
+
+    /**
+     * Gets this region's first point x coordinate.
+     * @return The value for the x coordinate of the first point for this region.
+     */
+    public int getMinX() {
+        return minX;
+    }
+
+    /**
+     * Gets this region's second point x coordinate.
+     * @return The value for the x coordinate of the second point for this region.
+     */
+    public int getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * Gets this region's first point z coordinate.
+     * @return The value for the z coordinate of the first point for this region.
+     */
+    public int getMinZ() {
+        return minZ;
+    }
+
+    /**
+     * Gets this region's second point z coordinate.
+     * @return The value for the z coordinate of the second point for this region.
+     */
+    public int getMaxZ() {
+        return maxZ;
+    }
+
+    /**
+     * Gets this region's first point y coordinate.
+     * @return The value for the y coordinate of the first point for this region.
+     */
+    public int getMinY() {
+        return minY;
+    }
+
+    /**
+     * Gets this region's second point y coordinate.
+     * @return The value for the y coordinate of the second point for this region.
+     */
+    public int getMaxY() {
+        return maxY;
+    }
+
+
+    @Override
+    public boolean equals(Object o){
+        if(this == o) return true;
+        if(!(o instanceof Region)) return false;
+        Region region = (Region) o;
+        return minX == region.minX && maxX == region.maxX &&
+                minY == region.minY && maxY == region.maxY &&
+                minZ == region.minZ && maxZ == region.maxZ;
+    }
+
+    @Override
+    public String toString(){
+        return "Region{x=" + minX + ".." + maxX + ", y=" + minY + ".." + maxY + ", z=" + minZ + ".." + maxZ + "}";
+    }
+
+    @Override
+    public int hashCode(){
+        int result = minX;
+        result = 31 * result + maxX;
+        result = 31 * result + minY;
+        result = 31 * result + maxY;
+        result = 31 * result + minZ;
+        result = 31 * result + maxZ;
+        return result;
+    }
+
+
+
+}
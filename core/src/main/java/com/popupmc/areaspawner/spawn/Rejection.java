@@ -0,0 +1,72 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+/**
+ * The reasons a location can be found unsafe by {@link SafetyRules}. Kept as constants so rejections are counted
+ * and checked without building any message, messages are only built when shown.
+ *
+ * @author lelesape
+ */
+public enum Rejection {
+
+    /**
+     * There is no block to stand on within the world's heights.
+     */
+    NO_SAFE_BLOCK("No non-air, non-void block found."),
+    /**
+     * The location is in the no-spawn region.
+     */
+    FORBIDDEN_REGION("Location is in no-spawn region."),
+    /**
+     * The location is outside the spawn region.
+     */
+    OUTSIDE_ALLOWED_REGION("Location is not in allowed region."),
+    /**
+     * There is not enough air above the block to stand on.
+     */
+    NO_AIR_GAP("The air gap was not tall enough, or there were none at all."),
+    /**
+     * The block to stand on is not safe according to the block list.
+     */
+    UNSAFE_BLOCK("Block is not considered safe.");
+
+    /**
+     * What the reason means, without any detail about the location.
+     */
+    final private String description;
+
+    /**
+     * Creates a new reason.
+     * @param description What the reason means, without any detail about the location.
+     */
+    Rejection(String description){
+        this.description = description;
+    }
+
+    public String getDescription(){
+        return description;
+    }
+
+    /**
+     * Gets a message explaining why a location was rejected.
+     * @param block The block the location would stand on, only used for {@link #UNSAFE_BLOCK}.
+     * @return The message, i.e: "Block LAVA is not considered safe."
+     */
+    public String getMessage(String block){
+        return this == UNSAFE_BLOCK ? "Block " + block + " is not considered safe." : description;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+import java.util.TreeSet;
+
+/**
+ * The rules deciding whether a location is safe for a player to spawn in, checked against any {@link BlockReader},
+ * so every part of the plugin looking for safe locations agrees on what safe means.
+ *
+ * @author lelesape
+ */
+public final class SafetyRules {
+
+    /**
+     * The Y value given to columns without any safe block.
+     */
+    public static final int NO_SAFE_Y = -9999;
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private SafetyRules(){}
+
+    /**
+     * Finds a suitable Y value for the given X,Z coordinates.
+     * @param reader The blocks to look at.
+     * @param x The column's x coordinate.
+     * @param z The column's z coordinate.
+     * @param minY The lowest Y value to look at.
+     * @param maxY The highest Y value to look at.
+     * @param settings The rules to check blocks with.
+     * @return The Y value right above the first safe block found, or {@link #NO_SAFE_Y} if none found.
+     */
+    public static int findSafeY(BlockReader reader, int x, int z, int minY, int maxY, SpawnRules settings){
+        if(settings.isTopToBottom()) {
+            //Top to bottom, there is nothing but air above the highest block
+            for (int i = Math.min(maxY, reader.getHighestY(x, z)); i > minY; i--) {
+                String block = reader.getBlock(x, i, z);
+                if(block.equals("VOID_AIR")) continue;
+                if(!block.equals("AIR")) {
+                    if(isSafeBlock(block, settings)) return i + 1;
+                    if(settings.isNotCheckPastSurface()) break;
+                }
+            }
+
+        }else {
+            //Bottom to top
+            for (int i = minY; i < maxY; i++) {
+                String block = reader.getBlock(x, i, z);
+                if(block.equals("VOID_AIR")) continue;
+                //If the block is not air and the block above is air
+                if(!block.equals("AIR") && reader.getBlock(x, i + 1, z).equals("AIR")) {
+                    if(isSafeBlock(block, settings)) return i + 1;
+                    if(settings.isNotCheckPastSurface()) break;
+                }
+            }
+
+        }
+
+        return NO_SAFE_Y;
+    }
+
+    /**
+     * Checks if a location follows a number of steps for considering it "safe" enough for a player to spawn in.
+     * @param reader The blocks to look at.
+     * @param x The location's x coordinate.
+     * @param y The location's y coordinate.
+     * @param z The location's z coordinate.
+     * @param forbidden The "forbidden" spawn region for this location's world.
+     * @param allowed The spawn region for this location's world.
+     * @param settings The rules to check the location with.
+     * @return null if the location passed every check, otherwise the reason why it did not.
+     */
+    public static Rejection getRejection(BlockReader reader, int x, int y, int z, Region forbidden, Region allowed, SpawnRules settings){
+        //Steps for getting a safe location:
+        // 1. y is greater than 0 and lesser than 255.
+        // 2. x and z are within the spawn region and outside no-spawn region.
+        // 3. there is a block air gap above location.
+        // 4. block is not in blacklist.
+        // 5. block is in whitelist or blocks not in whitelist are safe.
+        if(y < 1 || y > 255){
+            return Rejection.NO_SAFE_BLOCK;
+        }
+        if(forbidden.contains2D(x, z)){
+            return Rejection.FORBIDDEN_REGION;
+        }
+        if(!allowed.contains(x, y, z)){
+            return Rejection.OUTSIDE_ALLOWED_REGION;
+        }
+        for (int i = 1; i <= settings.getAirGapAbove(); i++) {
+            if(!reader.getBlock(x, y + i, z).equals("AIR")){
+                return Rejection.NO_AIR_GAP;
+            }
+        }
+        String block = reader.getBlock(x, y, z);
+        if(!isSafeBlock(block, settings)){
+            return Rejection.UNSAFE_BLOCK;
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks if the block is safe according to config criteria.
+     * @param block The block to check.
+     * @param settings The rules to check the block with.
+     * @return true if the list is a whitelist and the block is contained in the list,
+     * false if the list is a blacklist and the block is contained in the list or the list is
+     * a whitelist and the block is not contained in the list.
+     */
+    public static boolean isSafeBlock(String block, SpawnRules settings){
+        if(settings.isListIsWhitelist()) return settings.getBlockList().contains(block);
+
+        return !settings.getBlockList().contains(block);
+    }
+
+    /**
+     * Gets a hash of every setting deciding whether a location is safe, for knowing when data saved about safe
+     * or unsafe locations is outdated.
+     * @param settings The rules.
+     * @return The hash, different if any of those settings changed.
+     */
+    public static long getRulesHash(SpawnRules settings){
+        String rules = settings.getWorldName() + "|" + settings.getAllowedRegion() + "|" + settings.getForbiddenRegion()
+                + "|" + new TreeSet<>(settings.getBlockList()) + "|" + settings.isListIsWhitelist()
+                + "|" + settings.getAirGapAbove() + "|" + settings.isTopToBottom() + "|" + settings.isNotCheckPastSurface();
+        long hash = 1125899906842597L;
+        for (int i = 0; i < rules.length(); i++) {
+            hash = 31 * hash + rules.charAt(i);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+import java.util.Set;
+
+/**
+ * The settings deciding where players can spawn and which locations are safe, everything needed for finding safe
+ * locations, whether from the server or from tools working on a copy of the world.
+ *
+ * @author lelesape
+ */
+public interface SpawnRules {
+
+    /**
+     * Gets the name of the spawn world.
+     * @return The spawn world's name.
+     */
+    String getWorldName();
+
+    /**
+     * Gets the region players are allowed to spawn in.
+     * @return The spawn region.
+     */
+    Region getAllowedRegion();
+
+    /**
+     * Gets the region players are not allowed to spawn in.
+     * @return The "forbidden" spawn region.
+     */
+    Region getForbiddenRegion();
+
+    /**
+     * Gets the blocks in the block list.
+     * @return The names of the blocks in the list.
+     */
+    Set<String> getBlockList();
+
+    /**
+     * Checks whether the block list contains the only safe blocks, or the only unsafe ones.
+     * @return true if the block list is a whitelist.
+     */
+    boolean isListIsWhitelist();
+
+    /**
+     * Gets the amount of air blocks needed above a safe location.
+     * @return The air gap.
+     */
+    int getAirGapAbove();
+
+    /**
+     * Checks whether columns are scanned from the top.
+     * @return true if columns are scanned top to bottom.
+     */
+    boolean isTopToBottom();
+
+    /**
+     * Checks whether scanning a column stops at the first block that is not air.
+     * @return true if blocks below the surface are not checked.
+     */
+    boolean isNotCheckPastSurface();
+
+    /**
+     * Gets the seed for samplers that use one.
+     * @return The sampler seed.
+     */
+    long getSamplerSeed();
+
+    /**
+     * Gets the size of the heatmap sampler's grid.
+     * @return The amount of cells per side.
+     */
+    int getHeatmapGridSize();
+
+    /**
+     * Gets the chance of the heatmap sampler checking a random column anyway.
+     * @return The exploration chance, from 0 to 1.
+     */
+    double getHeatmapExploration();
+}
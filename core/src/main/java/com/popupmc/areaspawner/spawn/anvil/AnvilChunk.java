@@ -0,0 +1,286 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.anvil;
+
+import com.popupmc.areaspawner.spawn.BlockReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The blocks of a chunk read straight from its region file, so columns of already generated terrain can be
+ * checked from any thread, without the server loading the chunk. Supports the chunk formats from 1.13 up to
+ * 1.18 and above:
+ * - before 1.16 (data version 2527), block states span across longs;
+ * - from 1.16, block states are padded so none spans across longs;
+ * - from 1.18 (data version 2844), sections are at the root of the chunk and worlds can go below Y 0.
+ *
+ * @author lelesape
+ */
+public final class AnvilChunk implements BlockReader {
+
+    /**
+     * The first data version where block states do not span across longs.
+     */
+    private static final int PADDED_DATA_VERSION = 2527;
+    /**
+     * The first data version with the 1.18 chunk layout.
+     */
+    private static final int FLAT_DATA_VERSION = 2844;
+
+    /**
+     * The chunk's x coordinate.
+     */
+    final private int chunkX;
+    /**
+     * The chunk's z coordinate.
+     */
+    final private int chunkZ;
+    /**
+     * The Y value of the lowest section.
+     */
+    final private int minSection;
+    /**
+     * The block names of every section with blocks, lowest first, null for sections without blocks.
+     */
+    final private String[][] palettes;
+    /**
+     * The packed palette indexes of every section, null for sections with a single block.
+     */
+    final private long[][] states;
+    /**
+     * Whether palette indexes are padded so none spans across longs.
+     */
+    final private boolean padded;
+    /**
+     * The Y value right above the highest block that is not air of every column, indexed as z * 16 + x,
+     * null if the chunk has no such heightmap.
+     */
+    final private int[] surface;
+
+
+    /**
+     * Creates a new chunk from its root compound.
+     * @param chunkX The chunk's x coordinate.
+     * @param chunkZ The chunk's z coordinate.
+     * @param minSection The Y value of the lowest section.
+     * @param palettes The block names of every section.
+     * @param states The packed palette indexes of every section.
+     * @param padded Whether palette indexes are padded.
+     * @param surface The surface heightmap.
+     */
+    private AnvilChunk(int chunkX, int chunkZ, int minSection, String[][] palettes, long[][] states, boolean padded, int[] surface){
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.minSection = minSection;
+        this.palettes = palettes;
+        this.states = states;
+        this.padded = padded;
+        this.surface = surface;
+    }
+
+    /**
+     * Reads a chunk from the world's region files.
+     * @param regionFolder The world's "region" folder.
+     * @param chunkX The chunk's x coordinate.
+     * @param chunkZ The chunk's z coordinate.
+     * @return The chunk, or null if it has not been fully generated yet, or it is in a format not supported.
+     * @throws IOException If the region file could not be read or is not valid.
+     */
+    public static AnvilChunk read(File regionFolder, int chunkX, int chunkZ) throws IOException {
+        Map<String, Object> root = RegionFileReader.readChunk(regionFolder, chunkX, chunkZ);
+        if(root == null) return null;
+
+        int dataVersion = root.get("DataVersion") instanceof Integer ? (Integer) root.get("DataVersion") : 0;
+        Map<String, Object> level = dataVersion >= FLAT_DATA_VERSION ? root : getCompound(root, "Level");
+        if(level == null || !isFullyGenerated(level.get("Status"))) return null;
+
+        List<?> sectionList = (List<?>) (dataVersion >= FLAT_DATA_VERSION ? level.get("sections") : level.get("Sections"));
+        if(sectionList == null) return null;
+
+        //Before 1.18 worlds start at Y 0, sections only holding light may go below the lowest section with blocks
+        int minSection = dataVersion >= FLAT_DATA_VERSION ? Integer.MAX_VALUE : 0;
+        int maxSection = Integer.MIN_VALUE;
+        for(Object section : sectionList){
+            Map<String, Object> compound = asCompound(section);
+            if(compound == null || getPalette(compound, dataVersion) == null) continue;
+            int y = ((Number) compound.get("Y")).intValue();
+            if(y < minSection && dataVersion < FLAT_DATA_VERSION) continue;
+            minSection = Math.min(minSection, y);
+            maxSection = Math.max(maxSection, y);
+        }
+        if(dataVersion >= FLAT_DATA_VERSION && level.get("yPos") instanceof Integer) minSection = (Integer) level.get("yPos");
+        if(minSection > maxSection) return null;
+
+        String[][] palettes = new String[maxSection - minSection + 1][];
+        long[][] states = new long[palettes.length][];
+        for(Object section : sectionList){
+            Map<String, Object> compound = asCompound(section);
+            List<?> palette = compound == null ? null : getPalette(compound, dataVersion);
+            if(palette == null) continue;
+
+            int index = ((Number) compound.get("Y")).intValue() - minSection;
+            if(index < 0 || index >= palettes.length) continue;
+            palettes[index] = new String[palette.size()];
+            for (int i = 0; i < palette.size(); i++) {
+                palettes[index][i] = toMaterialName((String) asCompound(palette.get(i)).get("Name"));
+            }
+            states[index] = getStates(compound, dataVersion);
+        }
+
+        int[] surface = null;
+        Map<String, Object> heightmaps = getCompound(level, "Heightmaps");
+        if(heightmaps != null && heightmaps.get("WORLD_SURFACE") instanceof long[]) {
+            long[] heightmap = (long[]) heightmaps.get("WORLD_SURFACE");
+            int bits = heightmap.length * 64 / 256;
+            surface = new int[256];
+            for (int i = 0; i < 256; i++) {
+                surface[i] = unpack(heightmap, i, bits, dataVersion >= PADDED_DATA_VERSION) + minSection * 16;
+            }
+        }
+
+        return new AnvilChunk(chunkX, chunkZ, minSection, palettes, states, dataVersion >= PADDED_DATA_VERSION, surface);
+    }
+
+    @Override
+    public String getBlock(int x, int y, int z){
+        int section = (y >> 4) - minSection;
+        if(section < 0) return "VOID_AIR";
+        if(section >= palettes.length || palettes[section] == null) return "AIR";
+
+        String[] palette = palettes[section];
+        long[] data = states[section];
+        if(data == null) return palette[0];
+
+        int bits = Math.max(4, 32 - Integer.numberOfLeadingZeros(palette.length - 1));
+        int index = unpack(data, (y & 15) * 256 + (z & 15) * 16 + (x & 15), bits, padded);
+        return index < palette.length ? palette[index] : "AIR";
+    }
+
+    @Override
+    public int getHighestY(int x, int z){
+        return surface == null ? Integer.MAX_VALUE : surface[(z & 15) * 16 + (x & 15)] - 1;
+    }
+
+    public int getChunkX(){
+        return chunkX;
+    }
+
+    public int getChunkZ(){
+        return chunkZ;
+    }
+
+    /**
+     * Gets a value from an array of packed values.
+     * @param data The packed values.
+     * @param index The position of the value.
+     * @param bits The amount of bits of every value.
+     * @param padded Whether values are padded so none spans across longs.
+     * @return The value, or 0 if the array is too short.
+     */
+    private static int unpack(long[] data, int index, int bits, boolean padded){
+        long mask = (1L << bits) - 1;
+
+        if(padded) {
+            int perLong = 64 / bits;
+            int word = index / perLong;
+            if(word >= data.length) return 0;
+            return (int) ((data[word] >>> ((index % perLong) * bits)) & mask);
+        }
+
+        long bit = (long) index * bits;
+        int word = (int) (bit >>> 6);
+        int offset = (int) (bit & 63);
+        if(word >= data.length) return 0;
+        long value = data[word] >>> offset;
+        if(offset + bits > 64 && word + 1 < data.length) value |= data[word + 1] << (64 - offset);
+        return (int) (value & mask);
+    }
+
+    /**
+     * Gets a section's palette.
+     * @param section The section's compound.
+     * @param dataVersion The chunk's data version.
+     * @return The palette's entries, or null if the section has no blocks.
+     */
+    private static List<?> getPalette(Map<String, Object> section, int dataVersion){
+        Object palette;
+        if(dataVersion >= FLAT_DATA_VERSION) {
+            Map<String, Object> blockStates = getCompound(section, "block_states");
+            palette = blockStates == null ? null : blockStates.get("palette");
+        }else {
+            palette = section.get("Palette");
+        }
+        return palette instanceof List && !((List<?>) palette).isEmpty() ? (List<?>) palette : null;
+    }
+
+    /**
+     * Gets a section's packed palette indexes.
+     * @param section The section's compound.
+     * @param dataVersion The chunk's data version.
+     * @return The packed indexes, or null if every block of the section is the first one in the palette.
+     */
+    private static long[] getStates(Map<String, Object> section, int dataVersion){
+        Object states = dataVersion >= FLAT_DATA_VERSION ? getCompound(section, "block_states").get("data") : section.get("BlockStates");
+        return states instanceof long[] && ((long[]) states).length > 0 ? (long[]) states : null;
+    }
+
+    /**
+     * Checks if a chunk's generation status means it has been fully generated. From 1.14 that is "full", while
+     * 1.13 calls it "postprocessed", or "fullchunk" once the server has loaded the chunk.
+     * @param status The chunk's status tag.
+     * @return true if the chunk is fully generated.
+     */
+    private static boolean isFullyGenerated(Object status){
+        if(!(status instanceof String)) return false;
+        String name = ((String) status).substring(((String) status).indexOf(':') + 1);
+        return name.equals("full") || name.equals("postprocessed") || name.equals("fullchunk");
+    }
+
+    /**
+     * Turns a block id (i.e: "minecraft:grass_block") into a material name (i.e: "GRASS_BLOCK").
+     * @param id The block id.
+     * @return The material name.
+     */
+    private static String toMaterialName(String id){
+        if(id == null) return "AIR";
+        int namespace = id.indexOf(':');
+        return id.substring(namespace + 1).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Gets a compound tag from another compound.
+     * @param compound The compound holding the tag.
+     * @param name The tag's name.
+     * @return The compound tag, or null if there is no compound with that name.
+     */
+    private static Map<String, Object> getCompound(Map<String, Object> compound, String name){
+        return asCompound(compound.get(name));
+    }
+
+    /**
+     * Casts a tag to a compound.
+     * @param tag The tag.
+     * @return The compound, or null if the tag is not a compound.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asCompound(Object tag){
+        return tag instanceof Map ? (Map<String, Object>) tag : null;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.anvil;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The parts of a world's level.dat file needed for finding spawn locations without the server.
+ *
+ * @author lelesape
+ */
+public final class LevelData {
+
+    /**
+     * The world spawn's x coordinate.
+     */
+    final private int spawnX;
+    /**
+     * The world spawn's y coordinate.
+     */
+    final private int spawnY;
+    /**
+     * The world spawn's z coordinate.
+     */
+    final private int spawnZ;
+
+
+    /**
+     * Creates a new LevelData.
+     * @param spawnX The world spawn's x coordinate.
+     * @param spawnY The world spawn's y coordinate.
+     * @param spawnZ The world spawn's z coordinate.
+     */
+    private LevelData(int spawnX, int spawnY, int spawnZ){
+        this.spawnX = spawnX;
+        this.spawnY = spawnY;
+        this.spawnZ = spawnZ;
+    }
+
+    /**
+     * Reads a world's level.dat file.
+     * @param worldFolder The world's folder.
+     * @return The world's level data.
+     * @throws IOException If the file could not be read or is not valid.
+     */
+    public static LevelData read(File worldFolder) throws IOException {
+        File file = new File(worldFolder, "level.dat");
+        Map<String, Object> root;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file.toPath()))))) {
+            root = Nbt.readRoot(in);
+        }
+
+        Object data = root.get("Data");
+        if(!(data instanceof Map)) throw new IOException("No Data compound in " + file);
+        Map<?, ?> level = (Map<?, ?>) data;
+        return new LevelData(getInt(level, "SpawnX"), getInt(level, "SpawnY"), getInt(level, "SpawnZ"));
+    }
+
+    /**
+     * Gets the folder holding a world's region files.
+     * @param worldFolder The world's folder.
+     * @return The region folder, or null if the world has none.
+     */
+    public static File getRegionFolder(File worldFolder){
+        //Nether and end worlds made by the server keep their region files in a dimension folder
+        for(String path : new String[]{"region", "DIM-1/region", "DIM1/region"}){
+            File folder = new File(worldFolder, path);
+            if(folder.isDirectory()) return folder;
+        }
+        return null;
+    }
+
+    /**
+     * Gets an int tag.
+     * @param compound The compound holding the tag.
+     * @param name The tag's name.
+     * @return The tag's value.
+     * @throws IOException If there is no numeric tag with that name.
+     */
+    private static int getInt(Map<?, ?> compound, String name) throws IOException {
+        Object value = compound.get(name);
+        if(!(value instanceof Number)) throw new IOException("Missing " + name + " in level.dat");
+        return ((Number) value).intValue();
+    }
+
+    public int getSpawnX(){
+        return spawnX;
+    }
+
+    public int getSpawnY(){
+        return spawnY;
+    }
+
+    public int getSpawnZ(){
+        return spawnZ;
+    }
+}
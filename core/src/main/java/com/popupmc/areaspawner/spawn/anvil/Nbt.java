@@ -0,0 +1,154 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.anvil;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal reader for Minecraft's NBT format, as used by chunks in region files. Compounds are read as maps,
+ * lists as lists, arrays as Java arrays and every other tag as its boxed value.
+ *
+ * @author lelesape
+ */
+final class Nbt {
+
+    private static final int END = 0;
+    private static final int BYTE = 1;
+    private static final int SHORT = 2;
+    private static final int INT = 3;
+    private static final int LONG = 4;
+    private static final int FLOAT = 5;
+    private static final int DOUBLE = 6;
+    private static final int BYTE_ARRAY = 7;
+    private static final int STRING = 8;
+    private static final int LIST = 9;
+    private static final int COMPOUND = 10;
+    private static final int INT_ARRAY = 11;
+    private static final int LONG_ARRAY = 12;
+
+    /**
+     * The maximum depth of nested tags, chunks never get anywhere close.
+     */
+    private static final int MAX_DEPTH = 512;
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private Nbt(){}
+
+    /**
+     * Reads a named root compound, as stored in region files.
+     * @param in The uncompressed data.
+     * @return The root compound.
+     * @throws IOException If the data could not be read or is not valid NBT.
+     */
+    static Map<String, Object> readRoot(DataInput in) throws IOException {
+        if(in.readUnsignedByte() != COMPOUND) throw new IOException("The root tag is not a compound");
+        in.readUTF();
+        return readCompound(in, 0);
+    }
+
+    /**
+     * Reads the payload of a compound tag.
+     * @param in The data.
+     * @param depth The amount of tags this one is nested in.
+     * @return The compound's tags by name.
+     * @throws IOException If the data could not be read or is not valid NBT.
+     */
+    private static Map<String, Object> readCompound(DataInput in, int depth) throws IOException {
+        Map<String, Object> compound = new HashMap<>();
+        int type;
+        while((type = in.readUnsignedByte()) != END){
+            String name = in.readUTF();
+            compound.put(name, readPayload(in, type, depth + 1));
+        }
+        return compound;
+    }
+
+    /**
+     * Reads the payload of a tag.
+     * @param in The data.
+     * @param type The tag's type.
+     * @param depth The amount of tags this one is nested in.
+     * @return The tag's value.
+     * @throws IOException If the data could not be read or is not valid NBT.
+     */
+    private static Object readPayload(DataInput in, int type, int depth) throws IOException {
+        if(depth > MAX_DEPTH) throw new IOException("Tags are nested too deep");
+
+        switch (type) {
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return in.readShort();
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case BYTE_ARRAY: {
+                byte[] array = new byte[readLength(in)];
+                in.readFully(array);
+                return array;
+            }
+            case STRING:
+                return in.readUTF();
+            case LIST: {
+                int elementType = in.readUnsignedByte();
+                int length = readLength(in);
+                List<Object> list = new ArrayList<>(Math.min(length, 1024));
+                for (int i = 0; i < length; i++) {
+                    list.add(readPayload(in, elementType, depth + 1));
+                }
+                return list;
+            }
+            case COMPOUND:
+                return readCompound(in, depth);
+            case INT_ARRAY: {
+                int[] array = new int[readLength(in)];
+                for (int i = 0; i < array.length; i++) array[i] = in.readInt();
+                return array;
+            }
+            case LONG_ARRAY: {
+                long[] array = new long[readLength(in)];
+                for (int i = 0; i < array.length; i++) array[i] = in.readLong();
+                return array;
+            }
+            default:
+                throw new IOException("Unknown tag type " + type);
+        }
+    }
+
+    /**
+     * Reads the length of an array or list.
+     * @param in The data.
+     * @return The length.
+     * @throws IOException If the length is negative.
+     */
+    private static int readLength(DataInput in) throws IOException {
+        int length = in.readInt();
+        if(length < 0) throw new IOException("Negative length " + length);
+        return length;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.anvil;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads chunks straight from the world's region files (r.X.Z.mca), without going through the server.
+ * A region file starts with a table of 1024 chunk locations, in 4KB sectors, followed by the chunks, each one
+ * being its length, its compression type and its compressed NBT data.
+ *
+ * @author lelesape
+ */
+final class RegionFileReader {
+
+    /**
+     * The size of a sector of a region file.
+     */
+    private static final int SECTOR_SIZE = 4096;
+    private static final int GZIP = 1;
+    private static final int ZLIB = 2;
+    private static final int UNCOMPRESSED = 3;
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private RegionFileReader(){}
+
+    /**
+     * Reads a chunk from its region file.
+     * @param regionFolder The world's "region" folder.
+     * @param chunkX The chunk's x coordinate.
+     * @param chunkZ The chunk's z coordinate.
+     * @return The chunk's root compound, or null if the chunk has not been saved, or has been saved in its own
+     * file because it is too big.
+     * @throws IOException If the region file could not be read or is not valid.
+     */
+    static Map<String, Object> readChunk(File regionFolder, int chunkX, int chunkZ) throws IOException {
+        File file = new File(regionFolder, "r." + (chunkX >> 5) + "." + (chunkZ >> 5) + ".mca");
+        if(!file.isFile()) return null;
+
+        byte[] data;
+        int compression;
+        try (RandomAccessFile region = new RandomAccessFile(file, "r")) {
+            region.seek(4L * ((chunkX & 31) + (chunkZ & 31) * 32));
+            int location = region.readInt();
+            if(location == 0) return null;
+
+            long offset = (long) (location >>> 8) * SECTOR_SIZE;
+            int sectors = location & 0xFF;
+            if(offset < 2L * SECTOR_SIZE || offset + 5 > region.length()) throw new IOException("Chunk outside of " + file.getName());
+
+            region.seek(offset);
+            int length = region.readInt();
+            compression = region.readUnsignedByte();
+            if(length < 1 || length > sectors * SECTOR_SIZE || offset + 4 + length > region.length()) {
+                throw new IOException("Invalid chunk length " + length + " in " + file.getName());
+            }
+            data = new byte[length - 1];
+            region.readFully(data);
+        }
+
+        InputStream compressed = new ByteArrayInputStream(data);
+        InputStream in;
+        switch (compression) {
+            case GZIP:
+                in = new GZIPInputStream(compressed);
+                break;
+            case ZLIB:
+                in = new InflaterInputStream(compressed);
+                break;
+            case UNCOMPRESSED:
+                in = compressed;
+                break;
+            default:
+                //Over 128 means the chunk is in its own .mcc file, left to the server
+                return null;
+        }
+
+        try (DataInputStream nbt = new DataInputStream(new BufferedInputStream(in))) {
+            return Nbt.readRoot(nbt);
+        }
+    }
+}
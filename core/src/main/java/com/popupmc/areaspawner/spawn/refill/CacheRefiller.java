@@ -0,0 +1,222 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.refill;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Decides when the cache's locations are generated. Locations removed from the cache are replaced one after
+ * another by a single job, and the cache is filled up by a {@link Fill}, which submits a few jobs every round.
+ * Free of Bukkit, so the offline tools replay the same refill logic the plugin runs.
+ *
+ * @param <L> The type of the locations.
+ * @author lelesape
+ */
+public class CacheRefiller<L> {
+
+    /**
+     * Runs the jobs generating locations.
+     */
+    final private JobExecutor executor;
+    /**
+     * Generates a replacement, blocking until it is generated, null if it could not be generated.
+     */
+    final private Supplier<L> replacementGenerator;
+    /**
+     * Adds a generated location to the cache.
+     */
+    final private Consumer<L> cache;
+    /**
+     * Replacements requested and not created yet, all of them are created by a single generation job.
+     */
+    final private AtomicInteger pendingReplacements = new AtomicInteger();
+    /**
+     * The job creating pending replacements, kept so removing a location does not create a new one every time.
+     */
+    final private Runnable replacementJob = this::replaceLocations;
+    /**
+     * Incremented every time a fill is stopped, so locations still being generated by it are discarded.
+     */
+    final private AtomicInteger generationRound = new AtomicInteger();
+
+
+    /**
+     * Creates a new CacheRefiller.
+     * @param executor Runs the jobs generating locations.
+     * @param replacementGenerator Generates a replacement, blocking until it is generated, null if it could not be
+     *                             generated.
+     * @param cache Adds a generated location to the cache, called from the generation jobs.
+     */
+    public CacheRefiller(JobExecutor executor, Supplier<L> replacementGenerator, Consumer<L> cache){
+        this.executor = executor;
+        this.replacementGenerator = replacementGenerator;
+        this.cache = cache;
+    }
+
+    /**
+     * Requests a replacement for a location removed from the cache.
+     */
+    public void requestReplacement(){
+        //Only the first pending replacement starts a job, the rest are picked up by that same job
+        if(pendingReplacements.getAndIncrement() == 0 && !executor.submit(replacementJob)) {
+            pendingReplacements.set(0);
+        }
+    }
+
+    /**
+     * Creates every pending replacement, including those requested while this is running. A replacement whose
+     * generation throws is given up on, the rest are still created.
+     */
+    private void replaceLocations(){
+        do {
+            if(Thread.currentThread().isInterrupted()) {
+                pendingReplacements.set(0);
+                return;
+            }
+            L location = generate(replacementGenerator);
+            if(location != null) cache.accept(location);
+        } while (pendingReplacements.decrementAndGet() > 0);
+    }
+
+    /**
+     * Generates a location, treating a generator that throws as one that could not generate it, so a bug or an
+     * unexpected server state never leaves the replacement counter or a fill stuck. The exception is reported
+     * to the thread's uncaught exception handler, as it would have been without catching it.
+     * @param generator The generator.
+     * @return The location generated, or null if it could not be generated.
+     */
+    private L generate(Supplier<L> generator){
+        try {
+            return generator.get();
+        } catch (RuntimeException e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            return null;
+        }
+    }
+
+    public int getPendingReplacements(){
+        return pendingReplacements.get();
+    }
+
+    /**
+     * Starts filling the cache, stopping the previous fill. The fill only submits jobs when ticked.
+     * @param amount The amount of locations to generate.
+     * @param generator Generates a location, blocking until it is generated, null if it could not be generated.
+     * @return The new fill.
+     */
+    public Fill startFill(int amount, Supplier<L> generator){
+        stopFill();
+        return new Fill(generationRound.get(), amount, generator);
+    }
+
+    /**
+     * Stops the current fill, locations still being generated by it are not added to the cache.
+     */
+    public void stopFill(){
+        generationRound.incrementAndGet();
+    }
+
+
+    /**
+     * Fills the cache with a given amount of locations, a few at a time.
+     */
+    public class Fill {
+
+        /**
+         * The generation round this fill belongs to.
+         */
+        final private int round;
+        /**
+         * The amount of locations to generate.
+         */
+        final private int amount;
+        /**
+         * Generates a location, blocking until it is generated.
+         */
+        final private Supplier<L> generator;
+        /**
+         * The amount of locations added to the cache.
+         */
+        final private AtomicInteger added = new AtomicInteger();
+        /**
+         * The amount of locations that could not be generated.
+         */
+        final private AtomicInteger failed = new AtomicInteger();
+        /**
+         * The amount of locations submitted for generation, only used by whoever ticks the fill.
+         */
+        private int requested;
+
+        /**
+         * Creates a new fill.
+         * @param round The generation round this fill belongs to.
+         * @param amount The amount of locations to generate.
+         * @param generator Generates a location, blocking until it is generated.
+         */
+        private Fill(int round, int amount, Supplier<L> generator){
+            this.round = round;
+            this.amount = amount;
+            this.generator = generator;
+        }
+
+        /**
+         * Submits up to the given amount of generation jobs, called periodically until it returns true.
+         * @param permits How many locations may be submitted this round, see the generation governor.
+         * @return true once every location has been generated or failed.
+         */
+        public boolean tick(int permits){
+            if(added.get() + failed.get() >= amount) return true;
+
+            for (int i = 0; i < permits && requested < amount; i++) {
+                if(!executor.submit(this::generate)) break;
+                requested++;
+            }
+            return false;
+        }
+
+        /**
+         * Generates a location and adds it to the cache, unless the fill was stopped.
+         */
+        private void generate(){
+            L location = CacheRefiller.this.generate(generator);
+            if(location == null) {
+                failed.incrementAndGet();
+            }else if(isCurrent()) {
+                cache.accept(location);
+                added.incrementAndGet();
+            }
+        }
+
+        /**
+         * Checks whether this fill has not been stopped.
+         * @return true if no other fill was started and the fill was not stopped.
+         */
+        public boolean isCurrent(){
+            return generationRound.get() == round;
+        }
+
+        public int getAdded(){
+            return added.get();
+        }
+
+        public int getFailed(){
+            return failed.get();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.refill;
+
+/**
+ * How long generating a location waits between attempts, shared by the plugin and the offline simulations of it.
+ *
+ * @author lelesape
+ */
+public final class GenerationTiming {
+
+    /**
+     * The milliseconds generation waits after every failed attempt, so it does not keep the main thread busy.
+     */
+    public static final long ATTEMPT_DELAY = 800;
+
+    /**
+     * Gets how long to wait after a failed attempt. While the governor lets generation burst there is no wait, so
+     * the extra locations it allows are not queued behind the delay of a single generation thread; every attempt
+     * still waits for its turn within the main thread's budget.
+     * @param permits The amount of locations the generation governor allows right now.
+     * @return The milliseconds to wait, 0 while bursting (more than 1 permit).
+     */
+    public static long getAttemptDelay(int permits){
+        return permits > 1 ? 0 : ATTEMPT_DELAY;
+    }
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private GenerationTiming(){}
+}
@@ -0,0 +1,32 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.refill;
+
+/**
+ * Runs the jobs generating locations, either the plugin's generation threads or a simulation of them.
+ *
+ * @author lelesape
+ */
+@FunctionalInterface
+public interface JobExecutor {
+
+    /**
+     * Submits a job to be run as soon as there is a free thread.
+     * @param job The job.
+     * @return false if the job was rejected, i.e: there are too many jobs already.
+     */
+    boolean submit(Runnable job);
+}
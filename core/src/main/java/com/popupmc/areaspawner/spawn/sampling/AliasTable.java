@@ -0,0 +1,94 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.sampling;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks indexes at random with given weights in constant time, using Vose's alias method. Immutable, a new
+ * table is built whenever the weights change.
+ *
+ * @author lelesape
+ */
+final class AliasTable {
+
+    /**
+     * The probability of keeping each index instead of taking its alias.
+     */
+    final private double[] probability;
+    /**
+     * The index taken instead of each index, if not kept.
+     */
+    final private int[] alias;
+
+
+    /**
+     * Builds a table for the given weights.
+     * @param weights The weight of every index, must be positive.
+     */
+    AliasTable(double[] weights){
+        int n = weights.length;
+        this.probability = new double[n];
+        this.alias = new int[n];
+
+        double total = 0;
+        for(double weight : weights) total += weight;
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if(scaled[i] < 1) {
+                small[smallCount++] = i;
+            }else {
+                large[largeCount++] = i;
+            }
+        }
+
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+
+            probability[less] = scaled[less];
+            alias[less] = more;
+
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if(scaled[more] < 1) {
+                small[smallCount++] = more;
+            }else {
+                large[largeCount++] = more;
+            }
+        }
+
+        //Leftovers are 1 apart from rounding errors
+        while (largeCount > 0) probability[large[--largeCount]] = 1;
+        while (smallCount > 0) probability[small[--smallCount]] = 1;
+    }
+
+    /**
+     * Picks a random index.
+     * @param random The random number generator to use.
+     * @return An index, picked with a probability proportional to its weight.
+     */
+    int sample(ThreadLocalRandom random){
+        int i = random.nextInt(probability.length);
+        return random.nextDouble() < probability[i] ? i : alias[i];
+    }
+}
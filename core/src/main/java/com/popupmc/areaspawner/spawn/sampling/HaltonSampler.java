@@ -0,0 +1,100 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.sampling;
+
+import com.popupmc.areaspawner.spawn.Region;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chooses columns from a Halton sequence (bases 2 and 3), which spreads them evenly over the region instead of
+ * leaving clumps and gaps like random columns do, so large regions are covered with less attempts. The sequence
+ * is shifted by an offset taken from the seed, a seed of 0 leaves it as is.
+ *
+ * @author lelesape
+ */
+public class HaltonSampler implements Sampler {
+
+    /**
+     * The index of the next point in the sequence, shared by every thread.
+     */
+    final private AtomicLong index = new AtomicLong(1);
+    /**
+     * The shift applied to the x coordinate, between 0 and 1.
+     */
+    final private double xOffset;
+    /**
+     * The shift applied to the z coordinate, between 0 and 1.
+     */
+    final private double zOffset;
+
+
+    /**
+     * Creates a new Halton sampler.
+     * @param seed The seed the sequence shift is taken from.
+     */
+    public HaltonSampler(long seed){
+        SplittableRandom random = new SplittableRandom(seed);
+        this.xOffset = seed == 0 ? 0 : random.nextDouble();
+        this.zOffset = seed == 0 ? 0 : random.nextDouble();
+    }
+
+    @Override
+    public long nextColumn(Region region){
+        long i = index.getAndIncrement();
+        int width = region.getMaxX() - region.getMinX();
+        int depth = region.getMaxZ() - region.getMinZ();
+
+        return Sampler.pack(region.getMinX() + (int) (shift(radicalInverse(i, 2), xOffset) * width),
+                region.getMinZ() + (int) (shift(radicalInverse(i, 3), zOffset) * depth));
+    }
+
+    @Override
+    public int nextInt(int bound){
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    /**
+     * Gets the i-th element of the van der Corput sequence in the given base, which mirrors the digits of i
+     * around the decimal point.
+     * @param i The element's index.
+     * @param base The base, a different prime for every dimension.
+     * @return The element, between 0 (included) and 1 (excluded).
+     */
+    private static double radicalInverse(long i, int base){
+        double fraction = 1;
+        double result = 0;
+        while (i > 0) {
+            fraction /= base;
+            result += fraction * (i % base);
+            i /= base;
+        }
+        return result;
+    }
+
+    /**
+     * Shifts a value between 0 and 1, wrapping it around.
+     * @param value The value to shift.
+     * @param offset The amount to shift it by.
+     * @return The shifted value, between 0 (included) and 1 (excluded).
+     */
+    private static double shift(double value, double offset){
+        double shifted = value + offset;
+        return shifted >= 1 ? shifted - 1 : shifted;
+    }
+}
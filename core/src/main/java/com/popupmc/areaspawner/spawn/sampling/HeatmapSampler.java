@@ -0,0 +1,163 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.sampling;
+
+import com.popupmc.areaspawner.spawn.Region;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Learns which parts of the region tend to have safe locations and chooses columns there more often. The region
+ * is split in a grid, and every cell keeps how many of its columns were checked and how many were safe. Cells
+ * are chosen with a weight equal to their expected success rate (starting at 50% for unexplored cells), and a
+ * fraction of the columns is always chosen uniformly at random so no part of the region is left unexplored.
+ * What is learned is forgotten when the settings are reloaded.
+ *
+ * @author lelesape
+ */
+public class HeatmapSampler implements Sampler {
+
+    /**
+     * The amount of reports between every rebuild of the alias table.
+     */
+    private static final int REBUILD_INTERVAL = 64;
+
+    /**
+     * The amount of cells per side of the grid.
+     */
+    final private int gridSize;
+    /**
+     * The chance of choosing a uniformly random column instead of using the heatmap.
+     */
+    final private double exploration;
+    /**
+     * The amount of safe columns found in every cell.
+     */
+    final private AtomicIntegerArray successes;
+    /**
+     * The amount of columns checked in every cell.
+     */
+    final private AtomicIntegerArray attempts;
+    /**
+     * The amount of reports received, for knowing when to rebuild the alias table.
+     */
+    final private AtomicInteger reports = new AtomicInteger();
+    /**
+     * Whether the alias table is being rebuilt, so only one thread does it at a time.
+     */
+    final private AtomicBoolean rebuilding = new AtomicBoolean();
+    /**
+     * The region the grid covers, the first region columns were chosen in.
+     */
+    private volatile Region region;
+    /**
+     * The table cells are chosen with, null until the first rebuild, when every cell is as likely.
+     */
+    private volatile AliasTable table;
+
+
+    /**
+     * Creates a new heatmap sampler.
+     * @param gridSize The amount of cells per side of the grid.
+     * @param exploration The chance, between 0 and 1, of choosing a uniformly random column.
+     */
+    public HeatmapSampler(int gridSize, double exploration){
+        this.gridSize = Math.max(1, gridSize);
+        this.exploration = Math.min(1, Math.max(0, exploration));
+        this.successes = new AtomicIntegerArray(this.gridSize * this.gridSize);
+        this.attempts = new AtomicIntegerArray(this.gridSize * this.gridSize);
+    }
+
+    @Override
+    public long nextColumn(Region region){
+        if(this.region == null) this.region = region;
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        int width = region.getMaxX() - region.getMinX();
+        int depth = region.getMaxZ() - region.getMinZ();
+
+        AliasTable table = this.table;
+        if(table == null || !region.equals(this.region) || r.nextDouble() < exploration) {
+            return Sampler.pack(region.getMinX() + r.nextInt(width), region.getMinZ() + r.nextInt(depth));
+        }
+
+        int cell = table.sample(r);
+        int cellX = cell % gridSize;
+        int cellZ = cell / gridSize;
+        int minX = region.getMinX() + (int) ((long) width * cellX / gridSize);
+        int maxX = region.getMinX() + (int) ((long) width * (cellX + 1) / gridSize);
+        int minZ = region.getMinZ() + (int) ((long) depth * cellZ / gridSize);
+        int maxZ = region.getMinZ() + (int) ((long) depth * (cellZ + 1) / gridSize);
+
+        return Sampler.pack(minX + r.nextInt(Math.max(1, maxX - minX)), minZ + r.nextInt(Math.max(1, maxZ - minZ)));
+    }
+
+    @Override
+    public int nextInt(int bound){
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    @Override
+    public void report(int x, int z, boolean safe){
+        Region region = this.region;
+        if(region == null) return;
+
+        int cell = getCell(region, x, z);
+        if(cell < 0) return;
+        attempts.incrementAndGet(cell);
+        if(safe) successes.incrementAndGet(cell);
+
+        if(reports.incrementAndGet() % REBUILD_INTERVAL == 0 && rebuilding.compareAndSet(false, true)) {
+            try {
+                rebuild();
+            } finally {
+                rebuilding.set(false);
+            }
+        }
+    }
+
+    /**
+     * Gets the grid cell a column is in.
+     * @param region The region the grid covers.
+     * @param x The column's x coordinate.
+     * @param z The column's z coordinate.
+     * @return The cell's index, or -1 if the column is outside the region.
+     */
+    private int getCell(Region region, int x, int z){
+        long width = region.getMaxX() - region.getMinX();
+        long depth = region.getMaxZ() - region.getMinZ();
+        if(width <= 0 || depth <= 0) return -1;
+
+        long cellX = (long) (x - region.getMinX()) * gridSize / width;
+        long cellZ = (long) (z - region.getMinZ()) * gridSize / depth;
+        if(cellX < 0 || cellX >= gridSize || cellZ < 0 || cellZ >= gridSize) return -1;
+        return (int) (cellZ * gridSize + cellX);
+    }
+
+    /**
+     * Builds a new alias table from the current counts. Every cell weighs its expected success rate, starting
+     * from a uniform prior (one success and one failure), so cells that were never checked weigh 50%.
+     */
+    private void rebuild(){
+        double[] weights = new double[gridSize * gridSize];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (successes.get(i) + 1D) / (attempts.get(i) + 2D);
+        }
+        table = new AliasTable(weights);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.sampling;
+
+import com.popupmc.areaspawner.spawn.Region;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Chooses columns uniformly at random with a per thread generator, the fastest sampler and the default one.
+ *
+ * @author lelesape
+ */
+public class RandomSampler implements Sampler {
+
+    @Override
+    public long nextColumn(Region region){
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        return Sampler.pack(r.nextInt(region.getMaxX() - region.getMinX()) + region.getMinX(),
+                r.nextInt(region.getMaxZ() - region.getMinZ()) + region.getMinZ());
+    }
+
+    @Override
+    public int nextInt(int bound){
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+}
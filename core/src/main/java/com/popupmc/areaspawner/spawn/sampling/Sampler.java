@@ -0,0 +1,78 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.sampling;
+
+import com.popupmc.areaspawner.spawn.Region;
+
+/**
+ * Chooses the columns (x,z coordinates) generation checks for safe locations, and the random numbers used
+ * when picking cached locations.
+ *
+ * @author lelesape
+ */
+public interface Sampler {
+
+    /**
+     * Chooses the next column to check inside the given region.
+     * @param region The region to choose a column in, the maximum x and z coordinates are excluded.
+     * @return The column's x and z coordinates, packed with {@link #pack(int, int)}.
+     */
+    long nextColumn(Region region);
+
+    /**
+     * Gets a random number between 0 (included) and the given bound (excluded).
+     * @param bound The upper bound, must be positive.
+     * @return A random number lower than the bound.
+     */
+    int nextInt(int bound);
+
+    /**
+     * Lets the sampler know the outcome of checking a column, for samplers that learn from it.
+     * @param x The column's x coordinate.
+     * @param z The column's z coordinate.
+     * @param safe Whether a safe location was found in the column.
+     */
+    default void report(int x, int z, boolean safe){
+    }
+
+    /**
+     * Packs the x and z coordinates of a column into a single number, so no object is needed for returning them.
+     * @param x The column's x coordinate.
+     * @param z The column's z coordinate.
+     * @return Both coordinates packed together.
+     */
+    static long pack(int x, int z){
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the x coordinate from a packed column.
+     * @param column The column, packed with {@link #pack(int, int)}.
+     * @return The column's x coordinate.
+     */
+    static int unpackX(long column){
+        return (int) (column >> 32);
+    }
+
+    /**
+     * Gets the z coordinate from a packed column.
+     * @param column The column, packed with {@link #pack(int, int)}.
+     * @return The column's z coordinate.
+     */
+    static int unpackZ(long column){
+        return (int) column;
+    }
+}
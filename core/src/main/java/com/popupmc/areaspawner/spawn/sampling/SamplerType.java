@@ -0,0 +1,75 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.sampling;
+
+import com.popupmc.areaspawner.spawn.SpawnRules;
+
+/**
+ * The samplers that can be chosen with "sampler" in config.
+ *
+ * @author lelesape
+ */
+public enum SamplerType {
+
+    /**
+     * Uniformly random columns, see {@link RandomSampler}.
+     */
+    RANDOM,
+    /**
+     * Uniformly random columns in the same order for the same seed, see {@link SeededSampler}.
+     */
+    SEEDED,
+    /**
+     * Evenly spread columns, see {@link HaltonSampler}.
+     */
+    HALTON,
+    /**
+     * Columns where safe locations were found before, see {@link HeatmapSampler}.
+     */
+    HEATMAP;
+
+
+    /**
+     * Creates a new sampler of this type.
+     * @param settings The rules to create the sampler with.
+     * @return The new sampler.
+     */
+    public Sampler create(SpawnRules settings){
+        long seed = settings.getSamplerSeed();
+        switch (this) {
+            case SEEDED:
+                return new SeededSampler(seed);
+            case HALTON:
+                return new HaltonSampler(seed);
+            case HEATMAP:
+                return new HeatmapSampler(settings.getHeatmapGridSize(), settings.getHeatmapExploration());
+            default:
+                return new RandomSampler();
+        }
+    }
+
+    /**
+     * Gets the sampler type with the given name, ignoring case.
+     * @param name The name of the sampler type (i.e: "random", "seeded", "halton" or "heatmap").
+     * @return The sampler type, or {@link #RANDOM} if none matches the name.
+     */
+    public static SamplerType fromString(String name){
+        for(SamplerType type : values()){
+            if(type.name().equalsIgnoreCase(name == null ? "" : name.trim())) return type;
+        }
+        return RANDOM;
+    }
+}
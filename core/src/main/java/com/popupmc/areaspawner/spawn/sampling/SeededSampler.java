@@ -0,0 +1,55 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.sampling;
+
+import com.popupmc.areaspawner.spawn.Region;
+
+import java.util.SplittableRandom;
+
+/**
+ * Chooses columns uniformly at random from a generator started with a fixed seed, so the same seed always
+ * checks the same columns in the same order. Useful for reproducing bugs and for benchmarks, the order is only
+ * guaranteed with a single generation thread.
+ *
+ * @author lelesape
+ */
+public class SeededSampler implements Sampler {
+
+    /**
+     * The seeded generator, shared by every thread.
+     */
+    final private SplittableRandom random;
+
+
+    /**
+     * Creates a new seeded sampler.
+     * @param seed The seed for the generator.
+     */
+    public SeededSampler(long seed){
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public synchronized long nextColumn(Region region){
+        return Sampler.pack(random.nextInt(region.getMinX(), region.getMaxX()),
+                random.nextInt(region.getMinZ(), region.getMaxZ()));
+    }
+
+    @Override
+    public synchronized int nextInt(int bound){
+        return random.nextInt(bound);
+    }
+}
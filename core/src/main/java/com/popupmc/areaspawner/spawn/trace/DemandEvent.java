@@ -0,0 +1,88 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.trace;
+
+/**
+ * A request for a spawn location.
+ *
+ * @author lelesape
+ */
+public final class DemandEvent {
+
+    /**
+     * When the location was asked for, in milliseconds since the epoch.
+     */
+    final private long time;
+    /**
+     * What asked for the location.
+     */
+    final private DemandSource source;
+    /**
+     * The amount of locations in cache when it was asked for.
+     */
+    final private int cacheSize;
+    /**
+     * Whether the location was taken from the cache.
+     */
+    final private boolean hit;
+
+
+    /**
+     * Creates a new event.
+     * @param time When the location was asked for, in milliseconds since the epoch.
+     * @param source What asked for the location.
+     * @param cacheSize The amount of locations in cache when it was asked for.
+     * @param hit Whether the location was taken from the cache.
+     */
+    public DemandEvent(long time, DemandSource source, int cacheSize, boolean hit){
+        this.time = time;
+        this.source = source;
+        this.cacheSize = cacheSize;
+        this.hit = hit;
+    }
+
+    /**
+     * Gets when the location was asked for.
+     * @return The time, in milliseconds since the epoch.
+     */
+    public long getTime(){
+        return time;
+    }
+
+    /**
+     * Gets what asked for the location.
+     * @return The source of the request.
+     */
+    public DemandSource getSource(){
+        return source;
+    }
+
+    /**
+     * Gets the amount of locations in cache when the location was asked for.
+     * @return The cache size.
+     */
+    public int getCacheSize(){
+        return cacheSize;
+    }
+
+    /**
+     * Checks whether the location was taken from the cache.
+     * @return true if the cache had a location to give.
+     */
+    public boolean isHit(){
+        return hit;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.trace;
+
+/**
+ * What asked for a spawn location.
+ *
+ * @author lelesape
+ */
+public enum DemandSource {
+
+    /**
+     * A player respawning after dying.
+     */
+    DEATH,
+    /**
+     * A player joining for the first time.
+     */
+    JOIN,
+    /**
+     * A player using the travel command.
+     */
+    TRAVEL,
+    /**
+     * A player sent somewhere by someone else, i.e: forceTravel or scatter.
+     */
+    FORCE;
+
+    /**
+     * Every value, so reading a trace does not copy the array for every event.
+     */
+    private static final DemandSource[] VALUES = values();
+
+    /**
+     * Gets a source by its ordinal.
+     * @param ordinal The source's ordinal.
+     * @return The source, or null if none has that ordinal.
+     */
+    static DemandSource byOrdinal(int ordinal){
+        return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal] : null;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.trace;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads demand traces written by {@link DemandTraceWriter}.
+ *
+ * @author lelesape
+ */
+public class DemandTraceReader implements AutoCloseable {
+
+    /**
+     * The stream events are read from.
+     */
+    final private DataInputStream in;
+    /**
+     * When the trace started, in milliseconds since the epoch.
+     */
+    final private long startTime;
+    /**
+     * The time of the last event read.
+     */
+    private long lastTime;
+    /**
+     * The amount of events the trace says were dropped, up to the last event read.
+     */
+    private long dropped;
+
+
+    /**
+     * Creates a new reader and reads the trace's header.
+     * @param in The stream to read from, should be buffered.
+     * @throws IOException If the header could not be read or the stream is not a demand trace.
+     */
+    public DemandTraceReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        if(this.in.readInt() != DemandTraceWriter.MAGIC) throw new IOException("Not a demand trace.");
+        int version = this.in.readUnsignedByte();
+        if(version < 1 || version > DemandTraceWriter.VERSION) throw new IOException("Unsupported demand trace version " + version + ".");
+        this.startTime = this.in.readLong();
+        this.lastTime = startTime;
+    }
+
+    /**
+     * Reads the next event, counting the events dropped on the way, see {@link #getDropped()}.
+     * @return The next event, or null if there are no more complete events.
+     * @throws IOException If the trace could not be read or is corrupted.
+     */
+    public DemandEvent next() throws IOException {
+        try {
+            while(true) {
+                long delta = readVarLong();
+                int flags = in.readUnsignedByte();
+                long cacheSize = readVarLong();
+                lastTime += delta;
+
+                if(flags == DemandTraceWriter.DROPPED_FLAGS) {
+                    dropped += cacheSize;
+                    continue;
+                }
+                DemandSource source = DemandSource.byOrdinal(flags >>> 1);
+                if(source == null || cacheSize > Integer.MAX_VALUE) throw new IOException("Corrupted demand trace.");
+                return new DemandEvent(lastTime, source, (int) cacheSize, (flags & 1) != 0);
+            }
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a number written by {@link DemandTraceWriter}, 7 bits at a time.
+     * @return The number read.
+     * @throws IOException If the number could not be read or is too long.
+     */
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Corrupted demand trace.");
+    }
+
+    /**
+     * Gets when the trace started.
+     * @return The start time, in milliseconds since the epoch.
+     */
+    public long getStartTime(){
+        return startTime;
+    }
+
+    /**
+     * Gets the amount of events that were dropped while recording, up to the last event read. A replay undercounts
+     * demand by that much.
+     * @return The amount of events dropped.
+     */
+    public long getDropped(){
+        return dropped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
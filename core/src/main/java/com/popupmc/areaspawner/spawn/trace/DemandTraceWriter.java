@@ -0,0 +1,144 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.trace;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes demand traces. A trace starts with a header (magic number, format version and start time) followed by
+ * every event: the milliseconds since the previous event and the cache size as variable length integers, with
+ * the source and whether it was a hit in a single byte in between. Most events take 3 or 4 bytes.
+ * Events the plugin could not record are written as a marker in the same layout, with {@link #DROPPED_FLAGS} as the
+ * byte in between and the amount of events dropped in place of the cache size.
+ * A trace cut short, i.e: by a crash, is still readable up to its last complete event.
+ *
+ * @author lelesape
+ */
+public class DemandTraceWriter {
+
+    /**
+     * The first bytes of every trace.
+     */
+    static final int MAGIC = 0x41534454;
+    /**
+     * The version of the format.
+     */
+    static final int VERSION = 2;
+    /**
+     * The byte in between marking events dropped instead of an event, no source has it.
+     */
+    static final int DROPPED_FLAGS = 0xFF;
+
+    /**
+     * The stream events are written to.
+     */
+    final private DataOutputStream out;
+    /**
+     * The time of the last event written.
+     */
+    private long lastTime;
+    /**
+     * The amount of bytes written.
+     */
+    private long size;
+
+
+    /**
+     * Creates a new writer and writes the trace's header.
+     * @param out The stream to write to, should be buffered.
+     * @param startTime When the trace started, in milliseconds since the epoch.
+     * @throws IOException If the header could not be written.
+     */
+    public DemandTraceWriter(OutputStream out, long startTime) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+        this.out.writeLong(startTime);
+        this.lastTime = startTime;
+        this.size = 13;
+    }
+
+    /**
+     * Writes an event. Events are expected in order, one older than the previous is written as happening at the
+     * same time.
+     * @param event The event to write.
+     * @throws IOException If the event could not be written.
+     */
+    public void write(DemandEvent event) throws IOException {
+        long delta = Math.max(0, event.getTime() - lastTime);
+        lastTime += delta;
+        writeVarLong(delta);
+        out.writeByte(event.getSource().ordinal() << 1 | (event.isHit() ? 1 : 0));
+        size++;
+        writeVarLong(Math.max(0, event.getCacheSize()));
+    }
+
+    /**
+     * Writes a marker telling that events were dropped, i.e: because they could not be written fast enough.
+     * @param time When the events were noticed to be dropped, in milliseconds since the epoch.
+     * @param count The amount of events dropped.
+     * @throws IOException If the marker could not be written.
+     */
+    public void writeDropped(long time, long count) throws IOException {
+        long delta = Math.max(0, time - lastTime);
+        lastTime += delta;
+        writeVarLong(delta);
+        out.writeByte(DROPPED_FLAGS);
+        size++;
+        writeVarLong(Math.max(0, count));
+    }
+
+    /**
+     * Writes a positive number 7 bits at a time, the highest bit of every byte telling if more bytes follow.
+     * @param value The number to write.
+     * @throws IOException If the number could not be written.
+     */
+    private void writeVarLong(long value) throws IOException {
+        while((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+            size++;
+        }
+        out.writeByte((int) value);
+        size++;
+    }
+
+    /**
+     * Gets the amount of bytes written, header included.
+     * @return The size of the trace so far.
+     */
+    public long getSize(){
+        return size;
+    }
+
+    /**
+     * Flushes the underlying stream.
+     * @throws IOException If the stream could not be flushed.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Closes the underlying stream.
+     * @throws IOException If the stream could not be closed.
+     */
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the buckets values are counted in and the percentiles taken from them.
+ *
+ * @author lelesape
+ */
+class HistogramTest {
+
+    /**
+     * The time the histograms are created at, the start of a slot.
+     */
+    private static final long START = 1000 * WindowedMetric.SLOT_MILLIS;
+
+    /**
+     * The current time of the histograms.
+     */
+    final private AtomicLong clock = new AtomicLong(START);
+    /**
+     * Creates histograms on {@link #clock}.
+     */
+    final private MetricsRegistry registry = new MetricsRegistry(clock::get);
+
+
+    @Test
+    void smallValuesHaveTheirOwnBucket(){
+        for (int value = 0; value < 4; value++) {
+            assertEquals(value, Histogram.getBucket(value));
+            assertEquals(value, Histogram.getBucketMax(value));
+        }
+    }
+
+    @Test
+    void bucketsFollowEachOther(){
+        for (int bucket = 1; bucket < Histogram.BUCKETS; bucket++) {
+            long first = Histogram.getBucketMax(bucket - 1) + 1;
+            assertEquals(bucket, Histogram.getBucket(first));
+            assertEquals(bucket, Histogram.getBucket(Histogram.getBucketMax(bucket)));
+        }
+        assertEquals((1L << 40) - 1, Histogram.getBucketMax(Histogram.BUCKETS - 1));
+    }
+
+    @Test
+    void bucketsAreWithinAQuarterOfTheirValues(){
+        for (int power = 2; power < 40; power++) {
+            for (long value : new long[]{1L << power, (1L << power) + 1, (3L << power) / 2, (1L << (power + 1)) - 1}) {
+                long max = Histogram.getBucketMax(Histogram.getBucket(value));
+                assertTrue(max >= value && max <= value + value / 4, value + " counted up to " + max);
+            }
+        }
+    }
+
+    @Test
+    void takesPercentilesFromTheBuckets(){
+        Histogram histogram = registry.histogram("test", "ms");
+        for (int value = 1; value <= 100; value++) histogram.record(value);
+
+        Histogram.Snapshot snapshot = histogram.getSnapshot(1);
+        assertEquals(100, snapshot.getCount());
+        assertEquals(50.5, snapshot.getMean(), 1e-9);
+        assertEquals(1, snapshot.getPercentile(0));
+        assertEquals(Histogram.getBucketMax(Histogram.getBucket(50)), snapshot.getPercentile(0.5));
+        assertEquals(Histogram.getBucketMax(Histogram.getBucket(90)), snapshot.getPercentile(0.9));
+        assertEquals(Histogram.getBucketMax(Histogram.getBucket(100)), snapshot.getPercentile(1));
+    }
+
+    @Test
+    void clampsValuesOutOfRange(){
+        Histogram histogram = registry.histogram("test", "ms");
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        Histogram.Snapshot snapshot = histogram.getSnapshot(1);
+        assertEquals(0, snapshot.getPercentile(0.5));
+        assertEquals((1L << 40) - 1, snapshot.getPercentile(1));
+    }
+
+    @Test
+    void emptySnapshotsAreZero(){
+        Histogram.Snapshot snapshot = registry.histogram("test", "ms").getSnapshot(15);
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMean());
+        assertEquals(0, snapshot.getPercentile(0.99));
+    }
+
+    @Test
+    void snapshotsOnlyHoldTheirMinutes(){
+        Histogram histogram = registry.histogram("test", "ms");
+        histogram.record(1000);
+        clock.addAndGet(3 * 60_000);
+        histogram.record(10);
+
+        assertEquals(1, histogram.getSnapshot(1).getCount());
+        assertEquals(Histogram.getBucketMax(Histogram.getBucket(10)), histogram.getSnapshot(1).getPercentile(1));
+        assertEquals(2, histogram.getSnapshot(5).getCount());
+        assertEquals(Histogram.getBucketMax(Histogram.getBucket(1000)), histogram.getSnapshot(5).getPercentile(1));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks which slots windowed metrics add up as time goes by, through counters.
+ *
+ * @author lelesape
+ */
+class WindowedMetricTest {
+
+    /**
+     * The time the counters are created at, the start of a slot.
+     */
+    private static final long START = 1000 * WindowedMetric.SLOT_MILLIS;
+
+    /**
+     * The current time of the counters.
+     */
+    final private AtomicLong clock = new AtomicLong(START);
+    /**
+     * Creates counters on {@link #clock}.
+     */
+    final private MetricsRegistry registry = new MetricsRegistry(clock::get);
+
+
+    @Test
+    void countsEventsWithinTheLastMinutes(){
+        Counter counter = registry.counter("test");
+        counter.increment();
+        clock.addAndGet(WindowedMetric.SLOT_MILLIS);
+        counter.add(2);
+
+        assertEquals(3, counter.getCount(1));
+        clock.addAndGet(2 * WindowedMetric.SLOT_MILLIS);
+        assertEquals(0, counter.getCount(1));
+        assertEquals(3, counter.getCount(2));
+        clock.addAndGet(WindowedMetric.SLOT_MILLIS);
+        assertEquals(2, counter.getCount(2));
+        assertEquals(3, counter.getCount(15));
+        assertEquals(3, counter.getTotal());
+    }
+
+    @Test
+    void reusedSlotsStartEmpty(){
+        Counter counter = registry.counter("test");
+        counter.add(5);
+        clock.addAndGet(WindowedMetric.SLOTS * WindowedMetric.SLOT_MILLIS);
+        counter.increment();
+
+        assertEquals(1, counter.getCount(15));
+        assertEquals(6, counter.getTotal());
+    }
+
+    @Test
+    void forgetsEverythingAfterFifteenMinutes(){
+        Counter counter = registry.counter("test");
+        counter.add(5);
+        clock.addAndGet(16 * 60_000);
+
+        assertEquals(0, counter.getCount(15));
+        assertEquals(0, registry.histogram("other", "ms").getSnapshot(15).getCount());
+    }
+
+    @Test
+    void ratesOnlyCoverTheTimeSinceCreation(){
+        Counter counter = registry.counter("test");
+        counter.add(10);
+        clock.addAndGet(2 * 60_000);
+
+        assertEquals(2 * 60_000, counter.getCoveredMillis(15));
+        assertEquals(5, counter.getRatePerMinute(15), 1e-9);
+        assertEquals(0, counter.getRatePerMinute(1), 1e-9);
+    }
+
+    @Test
+    void keepsEveryValueRecordedWhileASlotIsReused() throws Exception {
+        //Histograms have the most cells to clear and the highest values are in the last ones, leaving the most time
+        //for values recorded meanwhile to be lost
+        Histogram histogram = registry.histogram("test", "ms");
+        int threads = 4;
+        int values = 2_000;
+        CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+
+        for (int round = 0; round < 200; round++) {
+            histogram.record(round);
+            //Every round starts in the slot holding the previous round's values
+            clock.addAndGet(WindowedMetric.SLOTS * WindowedMetric.SLOT_MILLIS);
+
+            Thread[] workers = new Thread[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Thread(() -> {
+                    try {
+                        barrier.await();
+                    } catch (Exception e) {
+                        return;
+                    }
+                    for (int j = 0; j < values; j++) histogram.record(1L << 39);
+                });
+                workers[i].start();
+            }
+            barrier.await();
+            for(Thread worker : workers) worker.join();
+
+            assertEquals(threads * values, histogram.getSnapshot(1).getCount(), "Values lost in round " + round);
+            clock.addAndGet(WindowedMetric.SLOT_MILLIS);
+        }
+    }
+}
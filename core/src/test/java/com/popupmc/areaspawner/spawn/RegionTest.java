@@ -0,0 +1,82 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks which points and regions a region contains.
+ *
+ * @author lelesape
+ */
+class RegionTest {
+
+    /**
+     * A region from -10 to 20 in x, 0 to 100 in y and -30 to -5 in z.
+     */
+    private static final Region REGION = new Region(-10, 20, 0, 100, -30, -5);
+
+
+    @Test
+    void containsPointsInside(){
+        assertTrue(REGION.contains(0, 50, -10));
+        assertTrue(REGION.contains(-10, 0, -30));
+        assertTrue(REGION.contains(20, 100, -5));
+    }
+
+    @Test
+    void doesNotContainPointsOutside(){
+        assertFalse(REGION.contains(-11, 50, -10));
+        assertFalse(REGION.contains(21, 50, -10));
+        assertFalse(REGION.contains(0, -1, -10));
+        assertFalse(REGION.contains(0, 101, -10));
+        assertFalse(REGION.contains(0, 50, -31));
+        assertFalse(REGION.contains(0, 50, -4));
+    }
+
+    @Test
+    void ignoresYIn2D(){
+        assertTrue(REGION.contains2D(0, -10));
+        assertTrue(REGION.contains2D(20, -30));
+        assertFalse(REGION.contains2D(21, -10));
+        assertFalse(REGION.contains2D(0, 0));
+    }
+
+    @Test
+    void containsRegionsInside(){
+        assertTrue(REGION.contains(REGION));
+        assertTrue(REGION.contains(new Region(0, 10, 20, 30, -20, -10)));
+        assertFalse(REGION.contains(new Region(0, 30, 20, 30, -20, -10)));
+        assertFalse(REGION.contains(new Region(-20, 10, 20, 30, -20, -10)));
+    }
+
+    @Test
+    void buildsRegionsFromRanges(){
+        Region region = Region.newRegionByRanges(100, 64, -100, 50, 10, 20);
+
+        assertEquals(50, region.getMinX());
+        assertEquals(150, region.getMaxX());
+        assertEquals(54, region.getMinY());
+        assertEquals(74, region.getMaxY());
+        assertEquals(-120, region.getMinZ());
+        assertEquals(-80, region.getMaxZ());
+        assertTrue(region.contains(100, 64, -100));
+    }
+}
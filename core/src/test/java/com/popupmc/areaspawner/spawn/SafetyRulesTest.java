@@ -0,0 +1,244 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks the safety rules on synthetic columns, given from Y 0 up. Below them there is void and above them air.
+ *
+ * @author lelesape
+ */
+class SafetyRulesTest {
+
+    /**
+     * The spawn region, every column from -100 to 100 up to Y 255.
+     */
+    private static final Region ALLOWED = new Region(-100, 100, 0, 255, -100, 100);
+    /**
+     * The no spawn region, around 50, 50.
+     */
+    private static final Region FORBIDDEN = new Region(40, 60, 0, 255, 40, 60);
+
+
+    @Test
+    void findsTheSurfaceFromTheTop(){
+        BlockReader column = column("BEDROCK", "STONE", "STONE", "DIRT", "GRASS_BLOCK");
+
+        assertEquals(5, SafetyRules.findSafeY(column, 0, 0, 0, 255, new Rules()));
+    }
+
+    @Test
+    void findsTheSurfaceFromTheBottom(){
+        BlockReader column = column("BEDROCK", "STONE", "STONE", "DIRT", "GRASS_BLOCK");
+
+        Rules rules = new Rules();
+        rules.topToBottom = false;
+        assertEquals(5, SafetyRules.findSafeY(column, 0, 0, 0, 255, rules));
+    }
+
+    @Test
+    void findsCaveFloorsOnlyFromTheBottom(){
+        BlockReader column = column("BEDROCK", "STONE", "AIR", "AIR", "STONE", "STONE", "GRASS_BLOCK");
+
+        Rules rules = new Rules();
+        assertEquals(7, SafetyRules.findSafeY(column, 0, 0, 0, 255, rules));
+        rules.topToBottom = false;
+        assertEquals(2, SafetyRules.findSafeY(column, 0, 0, 0, 255, rules));
+    }
+
+    @Test
+    void stopsAtAnUnsafeSurface(){
+        BlockReader column = column("BEDROCK", "STONE", "STONE", "WATER");
+
+        assertEquals(SafetyRules.NO_SAFE_Y, SafetyRules.findSafeY(column, 0, 0, 0, 255, new Rules()));
+    }
+
+    @Test
+    void looksPastAnUnsafeSurfaceIfAllowed(){
+        BlockReader column = column("BEDROCK", "STONE", "STONE", "WATER");
+
+        Rules rules = new Rules();
+        rules.notCheckPastSurface = false;
+        assertEquals(3, SafetyRules.findSafeY(column, 0, 0, 0, 255, rules));
+    }
+
+    @Test
+    void onlyAcceptsWhitelistedBlocks(){
+        Rules rules = new Rules();
+        rules.blockList = new HashSet<>(Arrays.asList("GRASS_BLOCK", "SAND"));
+        rules.listIsWhitelist = true;
+
+        assertEquals(3, SafetyRules.findSafeY(column("BEDROCK", "STONE", "SAND"), 0, 0, 0, 255, rules));
+        assertEquals(SafetyRules.NO_SAFE_Y, SafetyRules.findSafeY(column("BEDROCK", "STONE", "GRAVEL"), 0, 0, 0, 255, rules));
+    }
+
+    @Test
+    void onlyLooksBetweenMinAndMaxY(){
+        BlockReader column = column("BEDROCK", "STONE", "STONE", "STONE", "STONE", "GRASS_BLOCK");
+
+        assertEquals(3, SafetyRules.findSafeY(column, 0, 0, 0, 2, new Rules()));
+        assertEquals(SafetyRules.NO_SAFE_Y, SafetyRules.findSafeY(column(), 0, 0, 0, 255, new Rules()));
+    }
+
+    @Test
+    void acceptsSafeLocations(){
+        BlockReader column = column("BEDROCK", "STONE", "GRASS_BLOCK");
+
+        assertNull(SafetyRules.getRejection(column, 0, 2, 0, FORBIDDEN, ALLOWED, new Rules()));
+    }
+
+    @Test
+    void rejectsLocationsOutsideTheWorld(){
+        BlockReader column = column("BEDROCK", "STONE", "GRASS_BLOCK");
+
+        assertEquals(Rejection.NO_SAFE_BLOCK, SafetyRules.getRejection(column, 0, SafetyRules.NO_SAFE_Y, 0, FORBIDDEN, ALLOWED, new Rules()));
+        assertEquals(Rejection.NO_SAFE_BLOCK, SafetyRules.getRejection(column, 0, 0, 0, FORBIDDEN, ALLOWED, new Rules()));
+        assertEquals(Rejection.NO_SAFE_BLOCK, SafetyRules.getRejection(column, 0, 256, 0, FORBIDDEN, ALLOWED, new Rules()));
+    }
+
+    @Test
+    void rejectsLocationsInTheWrongRegion(){
+        BlockReader column = column("BEDROCK", "STONE", "GRASS_BLOCK");
+
+        assertEquals(Rejection.FORBIDDEN_REGION, SafetyRules.getRejection(column, 50, 2, 50, FORBIDDEN, ALLOWED, new Rules()));
+        assertEquals(Rejection.OUTSIDE_ALLOWED_REGION, SafetyRules.getRejection(column, 101, 2, 0, FORBIDDEN, ALLOWED, new Rules()));
+    }
+
+    @Test
+    void rejectsLocationsWithoutAnAirGap(){
+        BlockReader column = column("BEDROCK", "STONE", "GRASS_BLOCK", "AIR", "OAK_LEAVES");
+
+        assertEquals(Rejection.NO_AIR_GAP, SafetyRules.getRejection(column, 0, 2, 0, FORBIDDEN, ALLOWED, new Rules()));
+    }
+
+    @Test
+    void rejectsUnsafeBlocks(){
+        BlockReader column = column("BEDROCK", "STONE", "LAVA");
+
+        assertEquals(Rejection.UNSAFE_BLOCK, SafetyRules.getRejection(column, 0, 2, 0, FORBIDDEN, ALLOWED, new Rules()));
+        assertEquals("Block LAVA is not considered safe.", Rejection.UNSAFE_BLOCK.getMessage("LAVA"));
+        assertEquals("Location is in no-spawn region.", Rejection.FORBIDDEN_REGION.getMessage("LAVA"));
+    }
+
+    /**
+     * Creates a reader with the same blocks on every column.
+     * @param blocks The blocks of the column, from Y 0 up.
+     * @return The reader.
+     */
+    private static BlockReader column(String... blocks){
+        return new BlockReader() {
+            @Override
+            public String getBlock(int x, int y, int z){
+                if(y < 0) return "VOID_AIR";
+                return y < blocks.length ? blocks[y] : "AIR";
+            }
+
+            @Override
+            public int getHighestY(int x, int z){
+                for (int y = blocks.length - 1; y >= 0; y--) {
+                    if(!blocks[y].equals("AIR")) return y;
+                }
+                return 0;
+            }
+        };
+    }
+
+    /**
+     * The default config's rules, every one of them can be changed by the tests.
+     */
+    private static class Rules implements SpawnRules {
+
+        /**
+         * The blocks in the block list.
+         */
+        private Set<String> blockList = new HashSet<>(Arrays.asList("BEDROCK", "LAVA", "WATER", "CACTUS", "FIRE"));
+        /**
+         * Whether the block list is a whitelist.
+         */
+        private boolean listIsWhitelist = false;
+        /**
+         * Whether columns are scanned from the top.
+         */
+        private boolean topToBottom = true;
+        /**
+         * Whether to stop at the first block that is not air.
+         */
+        private boolean notCheckPastSurface = true;
+
+        @Override
+        public String getWorldName(){
+            return "world";
+        }
+
+        @Override
+        public Region getAllowedRegion(){
+            return ALLOWED;
+        }
+
+        @Override
+        public Region getForbiddenRegion(){
+            return FORBIDDEN;
+        }
+
+        @Override
+        public Set<String> getBlockList(){
+            return blockList;
+        }
+
+        @Override
+        public boolean isListIsWhitelist(){
+            return listIsWhitelist;
+        }
+
+        @Override
+        public int getAirGapAbove(){
+            return 2;
+        }
+
+        @Override
+        public boolean isTopToBottom(){
+            return topToBottom;
+        }
+
+        @Override
+        public boolean isNotCheckPastSurface(){
+            return notCheckPastSurface;
+        }
+
+        @Override
+        public long getSamplerSeed(){
+            return 0;
+        }
+
+        @Override
+        public int getHeatmapGridSize(){
+            return 32;
+        }
+
+        @Override
+        public double getHeatmapExploration(){
+            return 0.1;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.anvil;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Reads the region files under "anvil" in the test resources, one world per chunk format. Every file holds the same
+ * fully generated chunk at -3, 33 and a chunk still being generated next to it. The chunk has bedrock at the
+ * bottom, stone up to the grass surface at Y 60 + x, a diamond ore column at x 12, z 0 and a torch on top of x 5,
+ * z 0. Its palette has 17 blocks, so every block takes 5 bits and, before 1.16, some span across two longs.
+ * The 1.13 world marks its fully generated chunk as "postprocessed" instead of "full".
+ *
+ * @author lelesape
+ */
+class AnvilChunkTest {
+
+    /**
+     * The fully generated chunk's x coordinate.
+     */
+    private static final int CHUNK_X = -3;
+    /**
+     * The fully generated chunk's z coordinate.
+     */
+    private static final int CHUNK_Z = 33;
+    /**
+     * The x coordinate of the chunk's first column.
+     */
+    private static final int X = CHUNK_X * 16;
+    /**
+     * The z coordinate of the chunk's first column.
+     */
+    private static final int Z = CHUNK_Z * 16;
+
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1.13", "1.15", "1.16"})
+    void readsBlocksBefore118(String version) throws Exception {
+        AnvilChunk chunk = read(version);
+
+        assertEquals("BEDROCK", chunk.getBlock(X, 0, Z));
+        assertEquals("STONE", chunk.getBlock(X, 30, Z));
+        assertEquals("GRASS_BLOCK", chunk.getBlock(X, 60, Z));
+        assertEquals("AIR", chunk.getBlock(X, 61, Z));
+        assertEquals("GRASS_BLOCK", chunk.getBlock(X + 15, 75, Z + 15));
+        assertEquals("TORCH", chunk.getBlock(X + 5, 66, Z));
+        assertEquals("AIR", chunk.getBlock(X, 200, Z));
+        assertEquals("VOID_AIR", chunk.getBlock(X, -1, Z));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1.13", "1.15", "1.16", "1.18"})
+    void readsBlocksSpanningAcrossLongs(String version) throws Exception {
+        AnvilChunk chunk = read(version);
+
+        //Before 1.16, the 5 bits of these blocks start at bit 60 of a long
+        assertEquals("DIAMOND_ORE", chunk.getBlock(X + 12, 1, Z));
+        assertEquals("DIAMOND_ORE", chunk.getBlock(X + 12, 16, Z));
+        assertEquals("STONE", chunk.getBlock(X + 11, 16, Z));
+        assertEquals("STONE", chunk.getBlock(X + 13, 16, Z));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1.13", "1.15", "1.16", "1.18"})
+    void readsHighestY(String version) throws Exception {
+        AnvilChunk chunk = read(version);
+
+        assertEquals(60, chunk.getHighestY(X, Z));
+        assertEquals(66, chunk.getHighestY(X + 5, Z));
+        assertEquals(72, chunk.getHighestY(X + 12, Z));
+        assertEquals(74, chunk.getHighestY(X + 14, Z + 15));
+    }
+
+    @Test
+    void readsNegativeSectionsFrom118() throws Exception {
+        AnvilChunk chunk = read("1.18");
+
+        assertEquals("BEDROCK", chunk.getBlock(X, -64, Z));
+        assertEquals("VOID_AIR", chunk.getBlock(X, -65, Z));
+        assertEquals("DEEPSLATE", chunk.getBlock(X, -1, Z));
+        assertEquals("STONE", chunk.getBlock(X, 0, Z));
+        assertEquals("GRASS_BLOCK", chunk.getBlock(X, 60, Z));
+        assertEquals("TORCH", chunk.getBlock(X + 5, 66, Z));
+        //Sections above the surface only hold air, with a single block palette and no data
+        assertEquals("AIR", chunk.getBlock(X, 300, Z));
+
+        //A hole down to Y -11
+        assertEquals("DEEPSLATE", chunk.getBlock(X + 15, -11, Z + 15));
+        assertEquals("AIR", chunk.getBlock(X + 15, -10, Z + 15));
+        assertEquals(-11, chunk.getHighestY(X + 15, Z + 15));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1.13", "1.15", "1.16", "1.18"})
+    void skipsChunksNotFullyGenerated(String version) throws Exception {
+        File folder = getRegionFolder(version);
+
+        assertNull(AnvilChunk.read(folder, CHUNK_X + 1, CHUNK_Z));
+        assertNull(AnvilChunk.read(folder, CHUNK_X, CHUNK_Z + 1));
+        assertNull(AnvilChunk.read(folder, CHUNK_X + 32, CHUNK_Z));
+    }
+
+    /**
+     * Reads the fully generated chunk of a world.
+     * @param version The Minecraft version the world was saved with.
+     * @return The chunk.
+     * @throws IOException If the region file could not be read.
+     * @throws URISyntaxException If the world could not be found.
+     */
+    private static AnvilChunk read(String version) throws IOException, URISyntaxException {
+        AnvilChunk chunk = AnvilChunk.read(getRegionFolder(version), CHUNK_X, CHUNK_Z);
+        assertNotNull(chunk, "The chunk of " + version + " was not read.");
+        assertEquals(CHUNK_X, chunk.getChunkX());
+        assertEquals(CHUNK_Z, chunk.getChunkZ());
+        return chunk;
+    }
+
+    /**
+     * Gets the region folder of a world in the test resources.
+     * @param version The Minecraft version the world was saved with.
+     * @return The world's region folder.
+     * @throws URISyntaxException If the world could not be found.
+     */
+    private static File getRegionFolder(String version) throws URISyntaxException {
+        return new File(AnvilChunkTest.class.getResource("/anvil/" + version + "/region").toURI());
+    }
+}
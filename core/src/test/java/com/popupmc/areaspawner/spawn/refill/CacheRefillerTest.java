@@ -0,0 +1,196 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.refill;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks how the cache is filled and how removed locations are replaced, with jobs run whenever the test says.
+ *
+ * @author lelesape
+ */
+class CacheRefillerTest {
+
+    /**
+     * Jobs submitted and not run yet.
+     */
+    final private Queue<Runnable> jobs = new ArrayDeque<>();
+    /**
+     * The locations added to the cache.
+     */
+    final private List<Integer> cache = new ArrayList<>();
+    /**
+     * The amount of locations generated so far, used as the next location.
+     */
+    private int generated;
+
+
+    /**
+     * Runs every submitted job, including those submitted meanwhile.
+     */
+    private void runJobs(){
+        Runnable job;
+        while((job = jobs.poll()) != null) job.run();
+    }
+
+    /**
+     * Generates the next location.
+     * @return The location.
+     */
+    private Integer generate(){
+        return ++generated;
+    }
+
+    @Test
+    void fillSubmitsUpToThePermitsEveryTick(){
+        CacheRefiller<Integer> refiller = new CacheRefiller<>(jobs::add, this::generate, cache::add);
+        CacheRefiller<Integer>.Fill fill = refiller.startFill(5, this::generate);
+
+        assertFalse(fill.tick(2));
+        assertEquals(2, jobs.size());
+        assertFalse(fill.tick(2));
+        assertFalse(fill.tick(2));
+        assertEquals(5, jobs.size());
+
+        runJobs();
+        assertTrue(fill.tick(2));
+        assertEquals(5, fill.getAdded());
+        assertEquals(5, cache.size());
+    }
+
+    @Test
+    void fillCountsFailedLocations(){
+        CacheRefiller<Integer> refiller = new CacheRefiller<>(jobs::add, this::generate, cache::add);
+        CacheRefiller<Integer>.Fill fill = refiller.startFill(3, () -> ++generated % 2 == 0 ? null : generated);
+
+        fill.tick(3);
+        runJobs();
+        assertTrue(fill.tick(3));
+        assertEquals(2, fill.getAdded());
+        assertEquals(1, fill.getFailed());
+    }
+
+    @Test
+    void fillRetriesJobsTheExecutorRejected(){
+        CacheRefiller<Integer> refiller = new CacheRefiller<>(job -> jobs.size() < 2 && jobs.add(job), this::generate, cache::add);
+        CacheRefiller<Integer>.Fill fill = refiller.startFill(3, this::generate);
+
+        assertFalse(fill.tick(3));
+        assertEquals(2, jobs.size());
+        runJobs();
+        assertFalse(fill.tick(3));
+        runJobs();
+        assertTrue(fill.tick(3));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void stoppedFillsDoNotAddLocations(){
+        CacheRefiller<Integer> refiller = new CacheRefiller<>(jobs::add, this::generate, cache::add);
+        CacheRefiller<Integer>.Fill fill = refiller.startFill(3, this::generate);
+
+        fill.tick(3);
+        CacheRefiller<Integer>.Fill next = refiller.startFill(1, this::generate);
+        assertFalse(fill.isCurrent());
+        assertTrue(next.isCurrent());
+
+        runJobs();
+        assertTrue(cache.isEmpty());
+        assertEquals(0, fill.getAdded());
+    }
+
+    @Test
+    void oneJobCreatesEveryPendingReplacement(){
+        CacheRefiller<Integer> refiller = new CacheRefiller<>(jobs::add, this::generate, cache::add);
+
+        refiller.requestReplacement();
+        refiller.requestReplacement();
+        refiller.requestReplacement();
+        assertEquals(1, jobs.size());
+        assertEquals(3, refiller.getPendingReplacements());
+
+        runJobs();
+        assertEquals(3, cache.size());
+        assertEquals(0, refiller.getPendingReplacements());
+    }
+
+    @Test
+    void rejectedReplacementsAreDropped(){
+        CacheRefiller<Integer> refiller = new CacheRefiller<>(job -> false, this::generate, cache::add);
+
+        refiller.requestReplacement();
+        assertEquals(0, refiller.getPendingReplacements());
+    }
+
+    @Test
+    void generatorsThrowingCountAsFailures(){
+        List<Throwable> reported = new ArrayList<>();
+        Thread thread = Thread.currentThread();
+        Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+        thread.setUncaughtExceptionHandler((t, e) -> reported.add(e));
+        try {
+            CacheRefiller<Integer> refiller = new CacheRefiller<>(jobs::add, this::generate, cache::add);
+            CacheRefiller<Integer>.Fill fill = refiller.startFill(2, () -> {
+                if(++generated == 1) throw new IllegalStateException("World unloaded");
+                return generated;
+            });
+
+            fill.tick(2);
+            runJobs();
+            assertTrue(fill.tick(2));
+            assertEquals(1, fill.getAdded());
+            assertEquals(1, fill.getFailed());
+            assertEquals(1, reported.size());
+        } finally {
+            thread.setUncaughtExceptionHandler(handler);
+        }
+    }
+
+    @Test
+    void replacementsKeepGoingAfterAGeneratorThrows(){
+        Thread thread = Thread.currentThread();
+        Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+        thread.setUncaughtExceptionHandler((t, e) -> {});
+        try {
+            CacheRefiller<Integer> refiller = new CacheRefiller<>(jobs::add, () -> {
+                if(++generated == 1) throw new IllegalStateException("World unloaded");
+                return generated;
+            }, cache::add);
+
+            refiller.requestReplacement();
+            refiller.requestReplacement();
+            runJobs();
+            assertEquals(1, cache.size());
+            assertEquals(0, refiller.getPendingReplacements());
+
+            refiller.requestReplacement();
+            assertEquals(1, jobs.size());
+            runJobs();
+            assertEquals(2, cache.size());
+        } finally {
+            thread.setUncaughtExceptionHandler(handler);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that demand traces read back exactly what was written, even when cut short.
+ *
+ * @author lelesape
+ */
+class DemandTraceTest {
+
+    /**
+     * When the traces start.
+     */
+    private static final long START = 1_600_000_000_000L;
+    /**
+     * Events covering every source, both hits and misses, and deltas and cache sizes of every length.
+     */
+    private static final List<DemandEvent> EVENTS = Arrays.asList(
+            new DemandEvent(START, DemandSource.JOIN, 0, false),
+            new DemandEvent(START + 1, DemandSource.DEATH, 10, true),
+            new DemandEvent(START + 200, DemandSource.TRAVEL, 127, true),
+            new DemandEvent(START + 200, DemandSource.FORCE, 128, false),
+            new DemandEvent(START + 86_400_000, DemandSource.DEATH, 100_000, true),
+            new DemandEvent(START + 30L * 86_400_000, DemandSource.TRAVEL, Integer.MAX_VALUE, false));
+
+
+    /**
+     * Writes events to a trace.
+     * @param events The events to write.
+     * @return The trace.
+     * @throws IOException If the trace could not be written.
+     */
+    private static byte[] write(List<DemandEvent> events) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DemandTraceWriter writer = new DemandTraceWriter(out, START);
+        for(DemandEvent event : events) writer.write(event);
+        writer.close();
+        assertEquals(out.size(), writer.getSize());
+        return out.toByteArray();
+    }
+
+    /**
+     * Checks that an event read is the one expected.
+     * @param expected The event written.
+     * @param actual The event read.
+     */
+    private static void assertEvent(DemandEvent expected, DemandEvent actual){
+        assertEquals(expected.getTime(), actual.getTime());
+        assertEquals(expected.getSource(), actual.getSource());
+        assertEquals(expected.getCacheSize(), actual.getCacheSize());
+        assertEquals(expected.isHit(), actual.isHit());
+    }
+
+    @Test
+    void readsBackEveryEvent() throws IOException {
+        try (DemandTraceReader reader = new DemandTraceReader(new ByteArrayInputStream(write(EVENTS)))) {
+            assertEquals(START, reader.getStartTime());
+            for(DemandEvent event : EVENTS) assertEvent(event, reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void writesOlderEventsAtThePreviousTime() throws IOException {
+        byte[] trace = write(Arrays.asList(new DemandEvent(START + 500, DemandSource.JOIN, 1, true),
+                new DemandEvent(START + 100, DemandSource.DEATH, 2, false)));
+
+        try (DemandTraceReader reader = new DemandTraceReader(new ByteArrayInputStream(trace))) {
+            assertEquals(START + 500, reader.next().getTime());
+            assertEquals(START + 500, reader.next().getTime());
+        }
+    }
+
+    @Test
+    void readsTruncatedTracesUpToTheLastCompleteEvent() throws IOException {
+        byte[] trace = write(EVENTS);
+        byte[] complete = write(EVENTS.subList(0, EVENTS.size() - 1));
+
+        //Every cut inside the last event leaves the events before it readable
+        for (int length = complete.length; length < trace.length; length++) {
+            try (DemandTraceReader reader = new DemandTraceReader(new ByteArrayInputStream(Arrays.copyOf(trace, length)))) {
+                for(DemandEvent event : EVENTS.subList(0, EVENTS.size() - 1)) assertEvent(event, reader.next());
+                assertNull(reader.next());
+            }
+        }
+    }
+
+    @Test
+    void countsDroppedEventsWithoutReturningThem() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DemandTraceWriter writer = new DemandTraceWriter(out, START);
+        writer.write(EVENTS.get(0));
+        writer.writeDropped(START + 50, 3);
+        writer.writeDropped(START + 100, 200);
+        writer.write(EVENTS.get(2));
+        writer.close();
+        assertEquals(out.size(), writer.getSize());
+
+        try (DemandTraceReader reader = new DemandTraceReader(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEvent(EVENTS.get(0), reader.next());
+            assertEquals(0, reader.getDropped());
+            assertEvent(EVENTS.get(2), reader.next());
+            assertEquals(203, reader.getDropped());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        assertThrows(IOException.class, () -> new DemandTraceReader(new ByteArrayInputStream("not a trace at all".getBytes())));
+
+        byte[] trace = write(EVENTS);
+        trace[4] = (byte) (DemandTraceWriter.VERSION + 1);
+        assertThrows(IOException.class, () -> new DemandTraceReader(new ByteArrayInputStream(trace)));
+    }
+
+    @Test
+    void rejectsUnknownSources() throws IOException {
+        byte[] trace = write(EVENTS.subList(0, 1));
+        trace[14] = (byte) (DemandSource.values().length << 1);
+
+        try (DemandTraceReader reader = new DemandTraceReader(new ByteArrayInputStream(trace))) {
+            assertThrows(IOException.class, reader::next);
+        }
+    }
+}
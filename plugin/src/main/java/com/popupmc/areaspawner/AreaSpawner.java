@@ -22,8 +22,18 @@ import com.popupmc.areaspawner.commands.TravelCommandTabAutoCompleter;
 import com.popupmc.areaspawner.events.FirstJoinEvent;
 import com.popupmc.areaspawner.events.PlayerDieEvent;
 import com.popupmc.areaspawner.events.PlayerJoinUpdateCheck;
+import com.popupmc.areaspawner.spawn.GenerationExecutor;
+import com.popupmc.areaspawner.spawn.GenerationGovernor;
+import com.popupmc.areaspawner.spawn.MainThreadExecutor;
 import com.popupmc.areaspawner.spawn.RandomSpawnCache;
+import com.popupmc.areaspawner.spawn.TravelQueue;
+import com.popupmc.areaspawner.spawn.sampling.UnsafeChunkFilter;
+import com.popupmc.areaspawner.spawn.survey.SurveyIndex;
+import com.popupmc.areaspawner.spawn.trace.DemandRecorder;
+import com.popupmc.areaspawner.utils.DebugLog;
 import com.popupmc.areaspawner.utils.Logger;
+import com.popupmc.areaspawner.utils.Metrics;
+import com.popupmc.areaspawner.utils.PersistenceService;
 import com.popupmc.areaspawner.utils.Settings;
 import com.popupmc.areaspawner.utils.TravelCooldownManager;
 import com.popupmc.areaspawner.utils.YamlFile;
@@ -89,9 +99,19 @@ public final class AreaSpawner extends JavaPlugin {
         reloadFiles();
         checkFilesFields();
         Settings.createInstance(this);
+        DebugLog.createInstance(this);
+        Metrics.createInstance(this);
+        DemandRecorder.createInstance(this);
         checkDangerousSettings();
+        PersistenceService.createInstance(this);
+        GenerationGovernor.createInstance(this);
+        UnsafeChunkFilter.createInstance(this);
+        MainThreadExecutor.createInstance(this);
+        GenerationExecutor.createInstance(this);
+        SurveyIndex.createInstance(this);
         RandomSpawnCache.createInstance(this);
         TravelCooldownManager.createInstance(this);
+        TravelQueue.createInstance(this);
         if(setupEconomy()) {
             Logger.send("&aEconomy hooked successfully.");
         } else {
@@ -114,7 +134,11 @@ public final class AreaSpawner extends JavaPlugin {
      */
     @Override
     public void onDisable() {
-        if(RandomSpawnCache.getInstance() != null) RandomSpawnCache.getInstance().saveToFile();
+        if(MainThreadExecutor.getInstance() != null) MainThreadExecutor.getInstance().shutdown();
+        if(GenerationExecutor.getInstance() != null) GenerationExecutor.getInstance().shutdown();
+        if(PersistenceService.getInstance() != null) PersistenceService.getInstance().shutdown();
+        if(DemandRecorder.getInstance() != null) DemandRecorder.getInstance().shutdown();
+        if(DebugLog.getInstance() != null) DebugLog.getInstance().shutdown();
         send("&cDisabled&f. Version: &e" + version);
         send("&fThank you for using my plugin! &" + color + pdfFile.getName() + "&f By " + pdfFile.getAuthors().get(0));
         send("&fJoin my discord server at &chttps://discordapp.com/invite/ZznhQud");
@@ -201,8 +225,11 @@ public final class AreaSpawner extends JavaPlugin {
      */
     public void reload(){
         reloadFiles();
-        Settings.getInstance().reloadFields();
-        RandomSpawnCache.getInstance().reValidateSpawns();
+        Settings.reload(this);
+        PersistenceService.getInstance().reschedule();
+        UnsafeChunkFilter.getInstance().reloadSettings();
+        SurveyIndex.getInstance().reloadSettings();
+        TravelQueue.getInstance().reloadSettings();
         checkDangerousSettings();
         this.travelCommand.loadMessages();
     }
@@ -216,6 +243,23 @@ public final class AreaSpawner extends JavaPlugin {
             messages.set("messages.teleported to home", "&aYou have been teleported to your essentials home.");
             messagesYaml.save();
         }
+        addMissingMessage("travel cooldown ended", "&aYou can use &f/randomSpawn travel &aagain.");
+        addMissingMessage("travel queue position", "&eMany players are traveling right now. Your position in the queue: &f%position%");
+        addMissingMessage("travel queue full", "&cToo many players are traveling right now, please try again later.");
+    }
+
+    /**
+     * Adds a message to the messages file if it is missing, for message files created by older versions.
+     * @param key The message key, inside the "messages" section.
+     * @param message The default message.
+     */
+    private void addMissingMessage(String key, String message){
+        FileConfiguration messages = messagesYaml.getAccess();
+
+        if(!messages.contains("messages." + key)) {
+            messages.set("messages." + key, message);
+            messagesYaml.save();
+        }
     }
 
     /**
@@ -0,0 +1,352 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.commands;
+
+import com.popupmc.areaspawner.AreaSpawner;
+import com.popupmc.areaspawner.metrics.Counter;
+import com.popupmc.areaspawner.metrics.Histogram;
+import com.popupmc.areaspawner.metrics.MetricsRegistry;
+import com.popupmc.areaspawner.spawn.RandomSpawnCache;
+import com.popupmc.areaspawner.spawn.ScatterTask;
+import com.popupmc.areaspawner.spawn.TravelQueue;
+import com.popupmc.areaspawner.spawn.survey.SurveyIndex;
+import com.popupmc.areaspawner.spawn.trace.DemandSource;
+import com.popupmc.areaspawner.utils.Logger;
+import com.popupmc.areaspawner.utils.Metrics;
+import com.popupmc.areaspawner.utils.Settings;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerTeleportEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * AreaSpawner's main command, contains admin commands, not intended for normal user interaction.
+ *
+ * @author lelesape
+ */
+public final class MainCommand implements CommandExecutor {
+
+    /**
+     * The minutes shown by the stats command.
+     */
+    private static final int[] STATS_WINDOWS = {1, 5, 15};
+    /**
+     * The maximum amount of rejection reasons shown by the stats command.
+     */
+    private static final int STATS_REJECTIONS = 5;
+
+    /**
+     * AreaSpawner's main class instance.
+     */
+    final private AreaSpawner plugin;
+    //Translatable messages
+    private String noPerm;
+    private String unknown;
+    private String reloaded;
+    private String regenerating;
+    private String locationsStored;
+    private String commandList;
+
+
+    /**
+     * MainCommand class constructor.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    public MainCommand(AreaSpawner plugin){
+        this.plugin = plugin;
+        loadMessages();
+    }
+
+    /**
+     * Loads/reloads every message used here from the messages file.
+     */
+    private void loadMessages(){
+        FileConfiguration messages = plugin.getMessagesYaml().getAccess();
+
+        commandList = messages.getString("messages.list of commands");
+        noPerm = messages.getString("messages.no permission");
+        unknown = messages.getString("messages.unknown command");
+        reloaded = messages.getString("messages.reloaded");
+        regenerating = messages.getString("messages.regenerating");
+        locationsStored = messages.getString("messages.number of locations");
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command cmd, String label, String[] args) {
+        if(args.length == 0 || args[0].equalsIgnoreCase("help")) {
+            Logger.send(sender, commandList);
+            Logger.send(sender, "&f/randomSpawn");
+            Logger.send(sender, "&f/"+label+" help");
+            Logger.send(sender,"&f/"+label+" version");
+            Logger.send(sender,"&f/"+label+" reload");
+            Logger.send(sender,"&f/"+label+" regenerate");
+            Logger.send(sender,"&f/"+label+" locations");
+            Logger.send(sender,"&f/"+label+" stopCache");
+            Logger.send(sender,"&f/"+label+" scatter (players) [minimum distance]");
+            Logger.send(sender,"&f/"+label+" survey (start|stop|status)");
+            Logger.send(sender,"&f/"+label+" stats");
+
+
+        }else if(args[0].equalsIgnoreCase("version")) {
+            if(!sender.hasPermission("areaSpawner.version")) {
+                Logger.send(sender, noPerm);
+                return true;
+            }
+            if(!plugin.getVersion().equals(plugin.getLatestVersion())){
+                Logger.send("&fVersion: &e"+plugin.getVersion()+"&f. &cUpdate available!");
+                Logger.send("&fDownload here: http://bit.ly/areaSpawnerUpdate");
+                return true;
+            }
+            Logger.send(sender,"&fVersion: &e" + plugin.getVersion() + "&f. &aUp to date!");
+
+
+        //Reloading keeps every cached location still valid under the new settings, and trims or fills up the cache.
+        }else if(args[0].equalsIgnoreCase("reload")) {
+            if(!sender.hasPermission("areaSpawner.reload")) {
+                Logger.send(sender, noPerm);
+                return true;
+            }
+            Settings previous = Settings.getInstance();
+            plugin.reload();
+            loadMessages();
+            Logger.send(sender, reloaded);
+
+            Settings current = Settings.getInstance();
+            if(current.isCacheEnabled()){
+                if(current.isWorldChanged(previous)) {
+                    Logger.send(sender, "&cThe spawn world changed. Regenerating cached locations.");
+                }else if(current.isRegionsChanged(previous) || current.isBlockRulesChanged(previous)) {
+                    Logger.send(sender, "&eSpawn settings changed. Cached locations that are no longer valid will be replaced.");
+                }else if(current.isAmountChanged(previous)) {
+                    Logger.send(sender, "&eAmount of cached spawns changed. Cached locations will be trimmed or filled up.");
+                }
+            }
+            RandomSpawnCache.getInstance().applySettingsChanges(previous);
+
+
+
+        }else if(args[0].equalsIgnoreCase("regenerate")){
+            if(!sender.hasPermission("areaSpawner.regenerate")) {
+                Logger.send(sender, noPerm);
+                return true;
+            }
+            Logger.send(sender, regenerating);
+            RandomSpawnCache.getInstance().createSafeSpawns(true);
+
+
+
+        }else if(args[0].equalsIgnoreCase("locations")) {
+            if(!sender.hasPermission("areaSpawner.locations")) {
+                Logger.send(sender, noPerm);
+                return true;
+            }
+            Logger.send(sender, locationsStored
+                    .replace("%locations%", String.valueOf(RandomSpawnCache.getInstance().getLocationsInCache())));
+
+
+
+        }else if(args[0].equalsIgnoreCase("stopCache")) {
+            if(!sender.hasPermission("areaSpawner.stopCache")) {
+                Logger.send(sender, noPerm);
+                return true;
+            }
+            RandomSpawnCache rsp = RandomSpawnCache.getInstance();
+            int locations = rsp.getLocationsInCache();
+
+            if(rsp.stopCache()){
+                Logger.send(sender, "&aThe cache process has been successfully stopped.");
+                Logger.send(sender, "&eThere are currently "+locations+" locations saved in cache.");
+            }else{
+                Logger.send(sender, "&cThe cache process was not running.");
+            }
+
+        }else if(args[0].equalsIgnoreCase("scatter")) {
+            if(!sender.hasPermission("areaSpawner.scatter")) {
+                Logger.send(sender, noPerm);
+                return true;
+            }
+            if(args.length < 2){
+                Logger.send(sender, "&cUse: /"+label+" scatter (players) [minimum distance]");
+                return true;
+            }
+            scatter(sender, args);
+
+        }else if(args[0].equalsIgnoreCase("survey")) {
+            if(!sender.hasPermission("areaSpawner.survey")) {
+                Logger.send(sender, noPerm);
+                return true;
+            }
+            survey(sender, label, args);
+
+        }else if(args[0].equalsIgnoreCase("stats")) {
+            if(!sender.hasPermission("areaSpawner.stats")) {
+                Logger.send(sender, noPerm);
+                return true;
+            }
+            stats(sender);
+
+            //unknown command
+        }else {
+            Logger.send(sender, unknown.replace("%command%", label));
+        }
+
+
+
+        return true;
+    }
+
+    /**
+     * Starts, stops or shows the progress of the survey of the spawn zone.
+     * @param sender The one who ran the command.
+     * @param label The command's label.
+     * @param args The command arguments, the survey action.
+     */
+    private void survey(CommandSender sender, String label, String[] args){
+        SurveyIndex survey = SurveyIndex.getInstance();
+
+        if(args.length > 1 && args[1].equalsIgnoreCase("start")) {
+            if(survey.start()){
+                Logger.send(sender, "&aThe survey has been started, it will keep going after restarts until it finishes.");
+            }else{
+                Logger.send(sender, "&cThe survey is already running.");
+            }
+
+        }else if(args.length > 1 && args[1].equalsIgnoreCase("stop")) {
+            if(survey.stop()){
+                Logger.send(sender, "&aThe survey has been stopped, use &f/" + label + " survey start&a to resume it.");
+            }else{
+                Logger.send(sender, "&cThe survey was not running.");
+            }
+
+        }else if(args.length > 1 && args[1].equalsIgnoreCase("status")) {
+            Logger.send(sender, "&fSurvey: " + (survey.isRunning() ? "&arunning" : "&cstopped")
+                    + "&f, " + String.format("%.1f", survey.getProgress(Settings.getInstance()) * 100) + "% of the spawn zone surveyed.");
+            Logger.send(sender, "&e" + survey.getSafeColumns() + "&f safe columns known in &e" + survey.getSurveyedRegions() + "&f regions.");
+
+        }else {
+            Logger.send(sender, "&cUse: /" + label + " survey (start|stop|status)");
+        }
+    }
+
+    /**
+     * Shows every metric over the last 1, 5 and 15 minutes: rates for counters and percentiles for histograms,
+     * followed by the most common rejection reasons.
+     * @param sender The one who ran the command.
+     */
+    private void stats(CommandSender sender){
+        MetricsRegistry registry = Metrics.getInstance().getRegistry();
+        Logger.send(sender, "&fStats over the last &e1m&f, &e5m&f and &e15m&f:");
+
+        List<Map.Entry<String, Counter>> rejections = new ArrayList<>();
+        for(Map.Entry<String, Counter> entry : registry.getCounters().entrySet()){
+            if(entry.getKey().startsWith(Metrics.REJECTION_PREFIX)) {
+                rejections.add(entry);
+                continue;
+            }
+            Counter counter = entry.getValue();
+            StringBuilder line = new StringBuilder("&f").append(entry.getKey()).append(":");
+            for(int minutes : STATS_WINDOWS){
+                line.append(" &e").append(String.format("%.1f", counter.getRatePerMinute(minutes))).append("&7/m");
+            }
+            Logger.send(sender, line.append(" &7(total ").append(counter.getTotal()).append(")").toString());
+        }
+
+        for(Map.Entry<String, Histogram> entry : registry.getHistograms().entrySet()){
+            Histogram histogram = entry.getValue();
+            StringBuilder line = new StringBuilder("&f").append(entry.getKey()).append(" &7(p50/p90/p99 ")
+                    .append(histogram.getUnit()).append(")&f:");
+            for(int minutes : STATS_WINDOWS){
+                Histogram.Snapshot snapshot = histogram.getSnapshot(minutes);
+                line.append(" &e").append(snapshot.getPercentile(0.5)).append("/").append(snapshot.getPercentile(0.9))
+                        .append("/").append(snapshot.getPercentile(0.99)).append(" &7(").append(snapshot.getCount()).append(")");
+            }
+            Logger.send(sender, line.toString());
+        }
+
+        rejections.removeIf(entry -> entry.getValue().getCount(15) == 0);
+        if(rejections.isEmpty()) return;
+        rejections.sort((a, b) -> Long.compare(b.getValue().getCount(15), a.getValue().getCount(15)));
+        Logger.send(sender, "&fMost common rejections in the last &e15m&f:");
+        for(Map.Entry<String, Counter> entry : rejections.subList(0, Math.min(STATS_REJECTIONS, rejections.size()))){
+            Logger.send(sender, "&e" + entry.getValue().getCount(15) + " &f" + entry.getKey().substring(Metrics.REJECTION_PREFIX.length()));
+        }
+    }
+
+    /**
+     * Scatters every player matched by the given selector to distinct cached locations. Players that do not get
+     * a cached location are sent to the travel queue.
+     * @param sender The one who ran the command.
+     * @param args The command arguments, the selector and, optionally, the minimum distance between players.
+     */
+    private void scatter(CommandSender sender, String[] args){
+        List<Player> players = new ArrayList<>();
+        try {
+            for(Entity entity : Bukkit.selectEntities(sender, args[1])){
+                if(entity instanceof Player) players.add((Player) entity);
+            }
+        } catch (IllegalArgumentException e) {
+            Logger.send(sender, "&cInvalid player selector: &f" + args[1]);
+            return;
+        }
+        if(players.isEmpty()){
+            Logger.send(sender, "&cNo players matched &f" + args[1]);
+            return;
+        }
+
+        double minDistance = Settings.getInstance().getScatterMinDistance();
+        if(args.length > 2) {
+            try {
+                minDistance = Double.parseDouble(args[2]);
+            } catch (NumberFormatException e) {
+                Logger.send(sender, "&cInvalid minimum distance: &f" + args[2]);
+                return;
+            }
+        }
+
+        List<Location> locations = RandomSpawnCache.getInstance().reserveLocations(players.size(), minDistance);
+        List<Player> scattered = new ArrayList<>(players.subList(0, locations.size()));
+        List<Player> queued = players.subList(locations.size(), players.size());
+
+        Logger.send(sender, "&eScattering &f" + scattered.size() + "&e players...");
+        new ScatterTask(plugin, sender, scattered, locations).start();
+
+        if(!queued.isEmpty()) {
+            String teleported = plugin.getMessagesYaml().getAccess().getString("messages.you have been teleported");
+            int rejected = 0;
+            for(Player player : queued){
+                int position = TravelQueue.getInstance().enqueue(player, DemandSource.FORCE, (traveler, location) -> {
+                    traveler.teleport(location, PlayerTeleportEvent.TeleportCause.PLUGIN);
+                    Logger.send(traveler, teleported);
+                });
+                if(position < 0) rejected++;
+            }
+
+            Logger.send(sender, "&eNot enough cached locations for everyone, &f" + (queued.size() - rejected) + "&e players were sent to the travel queue.");
+            if(rejected > 0) Logger.send(sender, "&c" + rejected + " players were not scattered, the travel queue is full.");
+        }
+    }
+
+}
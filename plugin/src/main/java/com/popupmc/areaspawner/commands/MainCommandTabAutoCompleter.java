@@ -43,6 +43,10 @@ public class MainCommandTabAutoCompleter implements TabCompleter {
                 possibilities.add("regenerate");
                 possibilities.add("locations");
                 possibilities.add("stopCache");
+                possibilities.add("scatter");
+                possibilities.add("survey");
+                possibilities.add("stats");
+                possibilities.add("stats");
 
             }else if(equalsToStringUnCompleted(args[0], "help")) {
                 possibilities.add("help");
@@ -63,9 +67,31 @@ public class MainCommandTabAutoCompleter implements TabCompleter {
             } else if(equalsToStringUnCompleted(args[0], "locations")) {
                 possibilities.add("locations");
 
+            }else if(equalsToStringUnCompleted(args[0], "st")) {
+                possibilities.add("stopCache");
+                possibilities.add("scatter");
+                possibilities.add("survey");
+
             } else if(equalsToStringUnCompleted(args[0], "stopCache")) {
                 possibilities.add("stopCache");
+
+            } else if(equalsToStringUnCompleted(args[0], "scatter")) {
+                possibilities.add("scatter");
+
+            } else if(equalsToStringUnCompleted(args[0], "survey")) {
+                possibilities.add("survey");
+
+            } else if(equalsToStringUnCompleted(args[0], "stats")) {
+                possibilities.add("stats");
             }
+
+        }else if(args.length == 2 && args[0].equalsIgnoreCase("scatter")) {
+            possibilities.add("@a");
+
+        }else if(args.length == 2 && args[0].equalsIgnoreCase("survey")) {
+            possibilities.add("start");
+            possibilities.add("stop");
+            possibilities.add("status");
         }
 
         return possibilities;
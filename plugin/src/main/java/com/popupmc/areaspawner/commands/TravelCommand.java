@@ -4,6 +4,8 @@ import com.earth2me.essentials.Essentials;
 import com.earth2me.essentials.User;
 import com.popupmc.areaspawner.AreaSpawner;
 import com.popupmc.areaspawner.spawn.RandomSpawnCache;
+import com.popupmc.areaspawner.spawn.TravelQueue;
+import com.popupmc.areaspawner.spawn.trace.DemandSource;
 import com.popupmc.areaspawner.utils.Logger;
 import com.popupmc.areaspawner.utils.Settings;
 import com.popupmc.areaspawner.utils.TimeUnit;
@@ -44,6 +46,8 @@ public class TravelCommand implements CommandExecutor {
     private String teleported;
     private String invalidPlayer;
     private String teleportedPlayer;
+    private String queued;
+    private String queueFull;
 
 
     /**
@@ -73,6 +77,8 @@ public class TravelCommand implements CommandExecutor {
         teleported = messages.getString("messages.you have been teleported");
         invalidPlayer = messages.getString("messages.invalid player");
         teleportedPlayer = messages.getString("messages.player has been teleported");
+        queued = messages.getString("messages.travel queue position");
+        queueFull = messages.getString("messages.travel queue full");
     }
 
     @Override
@@ -100,58 +106,27 @@ public class TravelCommand implements CommandExecutor {
                 return true;
             }
 
+            Player player = (Player) sender;
+
             //Cooldown
             TravelCooldownManager tcm = TravelCooldownManager.getInstance();
-            long timeLeft = tcm.getTimeLeft(sender.getName());
+            long timeLeft = tcm.getTimeLeft(player.getUniqueId());
 
             if(timeLeft > 0 && !sender.hasPermission("areaSpawner.cooldown.bypass")) {
                 Logger.send(sender, inCooldown.replace("%time%", TimeUnit.getTimeString(timeLeft / 50)));
                 return true;
             }
 
-            Player player = (Player) sender;
-
             int travelPrice = config.getInt("travel cost");
 
-            //Charge
-            if(plugin.setupEconomy() && travelPrice > 0) {
-                Economy econ = plugin.getEconomy();
-                double balance = econ.getBalance(player);
-                if(travelPrice > balance) {
-                    Logger.send(sender, notEnoughMoney.replace("%amount%", String.valueOf(travelPrice)));
-                    return true;
-                }
-                econ.withdrawPlayer(player, travelPrice);
-                Logger.send(sender, charged.replace("%price%", String.valueOf(travelPrice)));
-            }
-
-            //Teleport
-            Location location = RandomSpawnCache.getInstance().getSafeSpawn();
-            player.teleport(location, PlayerTeleportEvent.TeleportCause.PLUGIN);
-            Logger.send(player, teleported);
-
-
-
-            //Add to cooldown
-            tcm.addToCooldown(sender.getName());
-
-            //Remove permission
-            if(!player.isOp() && settings.isRemovePermissionOnTravel() && plugin.getPerms() != null) {
-                plugin.getPerms().playerRemove(player, "areaSpawner.travel");
-                Logger.send(sender, permissionRemoved);
+            //Check the balance now, but only charge once a location has been secured
+            if(plugin.setupEconomy() && travelPrice > 0 && travelPrice > plugin.getEconomy().getBalance(player)) {
+                Logger.send(sender, notEnoughMoney.replace("%amount%", String.valueOf(travelPrice)));
+                return true;
             }
 
-            //Essentials set home
-            if(settings.isEssentialsSetHomeOnTravel()) {
-                User user = JavaPlugin.getPlugin(Essentials.class).getUser(player);
-                if(user.getHomes().isEmpty()) {
-                    user.setHome(settings.getTravelHomeName(), location);
-                    Logger.debug("&eEssentials home set for " + player.getName() + ".");
-                    Logger.send(sender, essentialsHomeSet);
-                } else {
-                    Logger.debug("&eAn essentials home has not been set for " + player.getName() + " on travel because the player already has at least one home set.");
-                }
-            }
+            int position = TravelQueue.getInstance().enqueue(player, DemandSource.TRAVEL, (traveler, location) -> travel(traveler, location, travelPrice));
+            sendQueuePosition(sender, position);
 
 
         }else if(args[0].equalsIgnoreCase("forceTravel")){
@@ -170,8 +145,12 @@ public class TravelCommand implements CommandExecutor {
             }
 
             //Teleport
-            RandomSpawnCache.getInstance().teleport(toTeleport);
-            Logger.send(sender, teleportedPlayer.replace("%player%", args[1]));
+            int position = TravelQueue.getInstance().enqueue(toTeleport, DemandSource.FORCE, (traveler, location) -> {
+                traveler.teleport(location, PlayerTeleportEvent.TeleportCause.PLUGIN);
+                Logger.send(traveler, teleported);
+                Logger.send(sender, teleportedPlayer.replace("%player%", traveler.getName()));
+            });
+            sendQueuePosition(sender, position);
 
 
 
@@ -185,4 +164,69 @@ public class TravelCommand implements CommandExecutor {
 
         return true;
     }
+
+    /**
+     * Completes a player's travel once a safe location has been secured for them. Charges the player, teleports
+     * them and puts them on cooldown.
+     * @param player The player traveling.
+     * @param location The safe location secured for the player.
+     * @param travelPrice The price of traveling.
+     */
+    private void travel(Player player, Location location, int travelPrice){
+        Settings settings = Settings.getInstance();
+
+        //Charge
+        if(plugin.setupEconomy() && travelPrice > 0) {
+            Economy econ = plugin.getEconomy();
+            double balance = econ.getBalance(player);
+            if(travelPrice > balance) {
+                Logger.send(player, notEnoughMoney.replace("%amount%", String.valueOf(travelPrice)));
+                //The location was already taken from the cache
+                RandomSpawnCache.getInstance().returnLocation(location);
+                return;
+            }
+            econ.withdrawPlayer(player, travelPrice);
+            Logger.send(player, charged.replace("%price%", String.valueOf(travelPrice)));
+        }
+
+        //Teleport
+        player.teleport(location, PlayerTeleportEvent.TeleportCause.PLUGIN);
+        Logger.send(player, teleported);
+
+
+
+        //Add to cooldown
+        TravelCooldownManager.getInstance().addToCooldown(player.getUniqueId());
+
+        //Remove permission
+        if(!player.isOp() && settings.isRemovePermissionOnTravel() && plugin.getPerms() != null) {
+            plugin.getPerms().playerRemove(player, "areaSpawner.travel");
+            Logger.send(player, permissionRemoved);
+        }
+
+        //Essentials set home
+        if(settings.isEssentialsSetHomeOnTravel()) {
+            User user = JavaPlugin.getPlugin(Essentials.class).getUser(player);
+            if(user.getHomes().isEmpty()) {
+                user.setHome(settings.getTravelHomeName(), location);
+                Logger.debug("&eEssentials home set for {}.", player.getName());
+                Logger.send(player, essentialsHomeSet);
+            } else {
+                Logger.debug("&eAn essentials home has not been set for {} on travel because the player already has at least one home set.", player.getName());
+            }
+        }
+    }
+
+    /**
+     * Lets the sender know whether their travel request has to wait in the travel queue.
+     * @param sender The sender of the travel request.
+     * @param position The position in the queue, as returned by {@link TravelQueue#enqueue(Player, DemandSource, TravelQueue.TravelHandler)}.
+     */
+    private void sendQueuePosition(CommandSender sender, int position){
+        if(position < 0) {
+            Logger.send(sender, queueFull);
+        }else if(position > 0) {
+            Logger.send(sender, queued.replace("%position%", String.valueOf(position)));
+        }
+    }
 }
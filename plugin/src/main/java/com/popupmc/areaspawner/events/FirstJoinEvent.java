@@ -3,6 +3,7 @@ package com.popupmc.areaspawner.events;
 import com.earth2me.essentials.Essentials;
 import com.popupmc.areaspawner.AreaSpawner;
 import com.popupmc.areaspawner.spawn.RandomSpawnCache;
+import com.popupmc.areaspawner.spawn.trace.DemandSource;
 import com.popupmc.areaspawner.utils.Logger;
 import com.popupmc.areaspawner.utils.Settings;
 import org.bukkit.Location;
@@ -40,7 +41,7 @@ public class FirstJoinEvent implements Listener {
 
             if(settings.isNotUseAutomaticPermission() || player.hasPermission("areaSpawner.automatic")){
                 //Teleport.
-                Location location = RandomSpawnCache.getInstance().getSafeSpawn();
+                Location location = RandomSpawnCache.getInstance().getSafeSpawn(DemandSource.JOIN);
                 new BukkitRunnable(){
                     public void run(){
                         player.teleport(location);
@@ -48,11 +49,11 @@ public class FirstJoinEvent implements Listener {
                 }.runTaskLater(plugin, 5);
 
                 Logger.send(player, plugin.getMessagesYaml().getAccess().getString("messages.you have been teleported"));
-                Logger.debug("&e"+player.getName()+" has joined for the first time and has been teleported to a new random location.");
+                Logger.debug("&e{} has joined for the first time and has been teleported to a new random location.", player.getName());
 
                 if(settings.isEssentialsSetHomeOnFirstJoin()){
                     JavaPlugin.getPlugin(Essentials.class).getUser(player).setHome(settings.getFirstJoinHomeName(), location);
-                    Logger.debug("&eEssentials home set for "+player.getName()+".");
+                    Logger.debug("&eEssentials home set for {}.", player.getName());
                     Logger.send(player, plugin.getMessagesYaml().getAccess().getString("messages.essentials home set"));
                 }
             }
@@ -19,6 +19,7 @@ import com.earth2me.essentials.Essentials;
 import com.earth2me.essentials.User;
 import com.popupmc.areaspawner.AreaSpawner;
 import com.popupmc.areaspawner.spawn.RandomSpawnCache;
+import com.popupmc.areaspawner.spawn.trace.DemandSource;
 import com.popupmc.areaspawner.utils.Logger;
 import com.popupmc.areaspawner.utils.Settings;
 import org.bukkit.Bukkit;
@@ -68,7 +69,7 @@ public class PlayerDieEvent implements Listener {
 
                 }else{
                     if(settings.isNotUseAutomaticPermission() || event.getPlayer().hasPermission("areaSpawner.automatic")) {
-                        event.setRespawnLocation(RandomSpawnCache.getInstance().getSafeSpawn());
+                        event.setRespawnLocation(RandomSpawnCache.getInstance().getSafeSpawn(DemandSource.DEATH));
                         Logger.send(event.getPlayer(), plugin.getMessagesYaml().getAccess().getString("messages.you have been teleported"));
                     }
                 }
@@ -0,0 +1,118 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+import com.popupmc.areaspawner.utils.Logger;
+import org.bukkit.Location;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Utility class writing and reading the cache file, a list of serialized locations in YAML along with a hash of
+ * them for noticing when the file was modified by hand.
+ *
+ * @author lelesape
+ */
+public class CacheFile {
+
+    /**
+     * The path of the list of locations.
+     */
+    private static final String LOCATIONS_PATH = "cache";
+    /**
+     * The path of the hash of the list of locations.
+     */
+    private static final String HASH_PATH = "cache-settings-hash";
+
+    /**
+     * Serializes locations to the cache file format.
+     * @param locations The locations to write.
+     * @param header The header written at the top of the file, or null for none.
+     * @return The contents of the cache file.
+     */
+    public static byte[] write(List<Location> locations, String header){
+        YamlConfiguration cache = new YamlConfiguration();
+
+        cache.options().header(header);
+        cache.set(LOCATIONS_PATH, locations);
+        cache.set(HASH_PATH, getMDHash(locations));
+
+        return cache.saveToString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the locations in a loaded cache file.
+     * @param cache The cache file.
+     * @return The locations in the file, or null if it has none.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Location> getLocations(FileConfiguration cache){
+        return cache.contains(LOCATIONS_PATH) ? (List<Location>) cache.getList(LOCATIONS_PATH) : null;
+    }
+
+    /**
+     * Checks whether the locations in a cache file were modified since it was written. Files without a hash, i.e:
+     * written by the tools, are taken as they are.
+     * @param cache The cache file.
+     * @param locations The locations in the file, as returned by {@link #getLocations(FileConfiguration)}.
+     * @return true if the hash in the file does not match its locations.
+     */
+    public static boolean isModified(FileConfiguration cache, List<Location> locations){
+        if(!cache.contains(HASH_PATH)) return false;
+        String hash = getMDHash(locations);
+        return hash != null && !hash.equals(cache.getString(HASH_PATH));
+    }
+
+    /**
+     * Removes the locations from a loaded cache file, so they are not kept in memory twice.
+     * @param cache The cache file.
+     */
+    public static void clear(FileConfiguration cache){
+        cache.set(LOCATIONS_PATH, null);
+    }
+
+    /**
+     * Gets a string that corresponds to the MD5 hash of the given list of locations.
+     * @param locations The list of locations.
+     * @return The MD5 hash string value that represents the given list of locations.
+     */
+    private static String getMDHash(List<Location> locations){
+        StringBuilder result = new StringBuilder();
+        for (Location loc : locations){
+            result.append(loc.toString());
+        }
+
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            md.update(result.toString().getBytes());
+            byte[] bytes = md.digest();
+            StringBuilder toString = new StringBuilder();
+            for(byte b : bytes){
+                toString.append(Integer.toHexString(b & 0xff));
+            }
+            return toString.toString();
+
+        }catch (NoSuchAlgorithmException e){
+            Logger.debug("&cFailed to hash cache file using md5 hash.");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+import com.popupmc.areaspawner.AreaSpawner;
+import com.popupmc.areaspawner.spawn.refill.JobExecutor;
+import com.popupmc.areaspawner.utils.Logger;
+import com.popupmc.areaspawner.utils.Settings;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs location generation jobs on the executor backend given in config, so generation never takes threads
+ * from the JVM's common pool, which other plugins rely on. The amount of jobs waiting or running at once is
+ * limited by "max generation jobs".
+ *
+ * @author lelesape
+ */
+public class GenerationExecutor implements JobExecutor {
+
+    /**
+     * The only instance for this class.
+     */
+    private static GenerationExecutor instance;
+
+    /**
+     * The maximum amount of seconds to wait for running jobs when the plugin is disabled.
+     */
+    private static final int SHUTDOWN_TIMEOUT = 5;
+
+    /**
+     * AreaSpawner's main class instance.
+     */
+    final private AreaSpawner plugin;
+    /**
+     * The executor every generation job is run in.
+     */
+    final private ExecutorService executor;
+    /**
+     * One permit for every job that can be waiting or running.
+     */
+    final private Semaphore jobs;
+
+
+    /**
+     * Creates a new GenerationExecutor instance, private for helping on applying Singleton pattern.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    private GenerationExecutor(AreaSpawner plugin){
+        Settings settings = Settings.getInstance();
+        this.plugin = plugin;
+        this.executor = settings.getExecutorBackend().create("AreaSpawner-Generation", settings.getGenerationThreads());
+        this.jobs = new Semaphore(Math.max(1, settings.getMaxGenerationJobs()));
+    }
+
+    /**
+     * Queues a generation job.
+     * @param job The job to run.
+     * @return true if the job was queued, false if there are too many jobs or the executor has been shut down.
+     */
+    @Override
+    public boolean submit(Runnable job){
+        if(!jobs.tryAcquire()) {
+            Logger.debug("&cA generation job was rejected, there are too many generation jobs already.");
+            return false;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    job.run();
+                } finally {
+                    jobs.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            jobs.release();
+            return false;
+        }
+    }
+
+    /**
+     * Interrupts every running job, drops the queued ones and waits for the threads to finish.
+     */
+    public void shutdown(){
+        executor.shutdownNow();
+        try {
+            if(!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out while stopping location generation.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Creates an instance of GenerationExecutor if none found.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    public static void createInstance(AreaSpawner plugin){
+        if(instance == null) instance = new GenerationExecutor(plugin);
+    }
+
+    /**
+     * Gets the single instance of this class. {@link #createInstance(AreaSpawner)} should be run first.
+     * @return An instance of this GenerationExecutor and the only one in existence.
+     */
+    public static GenerationExecutor getInstance(){
+        return instance;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+import com.popupmc.areaspawner.AreaSpawner;
+import com.popupmc.areaspawner.utils.Logger;
+import com.popupmc.areaspawner.utils.Settings;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides how many locations the cache generator may create at a time depending on server load. Generation
+ * pauses while ticks take longer than allowed, and bursts while the server is empty or idle, as long as the
+ * chunk load and memory budgets given in config allow it.
+ *
+ * @author lelesape
+ */
+public class GenerationGovernor {
+
+    /**
+     * The only instance for this class.
+     */
+    private static GenerationGovernor instance;
+    /**
+     * How much each new tick sample weighs on the average tick time.
+     */
+    private static final double SMOOTHING = 0.05;
+    /**
+     * The amount of ticks in a minute, the window for the chunk load budget.
+     */
+    private static final int TICKS_PER_MINUTE = 1200;
+    /**
+     * Server#getAverageTickTime(), only available in some server implementations, null if not available.
+     */
+    private static final Method GET_AVERAGE_TICK_TIME = findGetAverageTickTime();
+
+    /**
+     * Average time between ticks in milliseconds, which is the tick time when the server can't keep up.
+     */
+    private volatile double averageTickInterval = 50;
+    /**
+     * Average time the server spends on each tick in milliseconds, -1 if the server does not provide it.
+     */
+    private volatile double averageTickTime = -1;
+    /**
+     * Whether there are no players online.
+     */
+    private volatile boolean empty = true;
+    /**
+     * Chunks loaded by generation during the current minute.
+     */
+    final private AtomicInteger chunkLoads = new AtomicInteger();
+    /**
+     * The time the last tick started at, in nanoseconds.
+     */
+    private long lastTick = System.nanoTime();
+    /**
+     * The amount of ticks since the chunk load counter was reset.
+     */
+    private int ticks;
+
+
+    /**
+     * Creates a new GenerationGovernor instance, private for helping on applying Singleton pattern.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    private GenerationGovernor(AreaSpawner plugin){
+        new BukkitRunnable(){
+
+            @Override
+            public void run(){
+                sample();
+            }
+
+        }.runTaskTimer(plugin, 1, 1);
+    }
+
+    /**
+     * Samples the current tick, called once every tick from the main thread.
+     */
+    private void sample(){
+        long now = System.nanoTime();
+        double interval = (now - lastTick) / 1_000_000D;
+        lastTick = now;
+
+        averageTickInterval += (interval - averageTickInterval) * SMOOTHING;
+        averageTickTime = readAverageTickTime();
+        empty = Bukkit.getOnlinePlayers().isEmpty();
+
+        if(++ticks >= TICKS_PER_MINUTE) {
+            ticks = 0;
+            chunkLoads.set(0);
+        }
+    }
+
+    /**
+     * Gets how many locations the generator may create right now.
+     * @return 0 if generation should back off, 1 for normal generation or more when the server is idle.
+     */
+    public int getPermits(){
+        Settings settings = Settings.getInstance();
+        if(!settings.isGovernorEnabled()) return 1;
+
+        double tickTime = averageTickTime >= 0 ? averageTickTime : averageTickInterval;
+        if(tickTime > settings.getGovernorMaxTickTime()) {
+            Logger.debug("&eServer ticks are taking {}ms, postponing location generation.", (int) tickTime);
+            return 0;
+        }
+
+        boolean idle = empty || (averageTickTime >= 0 && averageTickTime < settings.getGovernorIdleTickTime());
+        if(!idle || chunkLoads.get() >= settings.getGovernorChunkLoadsPerMinute() || !hasFreeMemory(settings)) return 1;
+
+        return Math.max(1, settings.getGovernorBurst());
+    }
+
+    /**
+     * Lets the governor know generation is about to load a chunk, counted for the chunk load budget.
+     */
+    public void recordChunkLoad(){
+        chunkLoads.incrementAndGet();
+    }
+
+    /**
+     * Checks if the free heap is above the minimum given in config.
+     * @param settings The current settings.
+     * @return true if there is enough free memory for bursting.
+     */
+    private boolean hasFreeMemory(Settings settings){
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        return (runtime.maxMemory() - used) * 100 >= runtime.maxMemory() * settings.getGovernorMinFreeMemory();
+    }
+
+    /**
+     * Reads the average tick time from the server, if supported.
+     * @return The average tick time in milliseconds, or -1 if not supported.
+     */
+    private static double readAverageTickTime(){
+        if(GET_AVERAGE_TICK_TIME == null) return -1;
+        try {
+            return ((Number) GET_AVERAGE_TICK_TIME.invoke(Bukkit.getServer())).doubleValue();
+        } catch (ReflectiveOperationException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Looks for Server#getAverageTickTime().
+     * @return The method, or null if the server does not provide the average tick time.
+     */
+    private static Method findGetAverageTickTime(){
+        try {
+            return Server.class.getMethod("getAverageTickTime");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Creates an instance of GenerationGovernor if none found.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    public static void createInstance(AreaSpawner plugin){
+        if(instance == null) instance = new GenerationGovernor(plugin);
+    }
+
+    /**
+     * Gets the single instance of this class. {@link #createInstance(AreaSpawner)} should be run first.
+     * @return An instance of this GenerationGovernor and the only one in existence.
+     */
+    public static GenerationGovernor getInstance(){
+        return instance;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+import com.popupmc.areaspawner.spawn.refill.GenerationTiming;
+import com.popupmc.areaspawner.spawn.sampling.Sampler;
+import com.popupmc.areaspawner.spawn.sampling.UnsafeChunkFilter;
+import com.popupmc.areaspawner.spawn.survey.SurveyIndex;
+import com.popupmc.areaspawner.utils.Logger;
+import com.popupmc.areaspawner.utils.Metrics;
+import com.popupmc.areaspawner.utils.Settings;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates spawn locations in a loaded world, adapting the spawn engine (regions, samplers and
+ * {@link SafetyRules}) to Bukkit's worlds and locations.
+ *
+ * @author lelesape
+ */
+public final class LocationGenerator {
+
+    /**
+     * The maximum amount of columns in chunks known to be unsafe skipped for every attempt, in case most of the
+     * region is unsafe.
+     */
+    private static final int MAX_UNSAFE_CHUNK_SKIPS = 64;
+
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private LocationGenerator(){}
+
+
+    /**
+     * Generates a new random location within the given region, taking into account the forbidden region,
+     * if none is defined, an empty region can be passed in its place (new Region(0,0,0,0,0,0)).
+     * @param allowed The region to put spawnpoints in.
+     * @param forbidden The region to avoid putting spawnpoints in.
+     * @param settings The settings snapshot to generate the location with, the same one for every attempt.
+     * @return A guaranteed safe location (according to config settings defined by the server admin).
+     */
+    public static Location generateNewLocation(Region allowed, Region forbidden, Settings settings){
+        Metrics metrics = Metrics.getInstance();
+        long start = System.nanoTime();
+
+        //Columns found safe by the survey are handed out without reading any block
+        SurveyIndex survey = SurveyIndex.getInstance();
+        if(survey != null && settings.isSurveyUseForGeneration() && allowed.equals(settings.getAllowedRegion())) {
+            RandomSpawnCache cache = RandomSpawnCache.getInstance();
+            Location surveyed = survey.nextSafeLocation(settings, loc -> cache != null && cache.isCached(loc));
+            if(surveyed != null) {
+                Logger.debug("&aSafe location taken from the survey.");
+                metrics.getGenerationLatency().record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return surveyed;
+            }
+        }
+
+        Sampler sampler = settings.getSampler();
+        UnsafeChunkFilter filter = settings.isUnsafeChunksEnabled() ? UnsafeChunkFilter.getInstance() : null;
+
+        Location making = new Location(settings.getWorld(), 0, -10, 0);
+        int attempts = settings.getFindSafeLocationAttempts();
+
+        //Make x amount of attempts before giving up and calculating the next one
+        for (int i = 1; i <= attempts ; i++) {
+            Logger.debug("&eAttempt number {} to generate location.", i);
+
+            long column = sampler.nextColumn(allowed);
+            //Chunks known to be unsafe are skipped without loading them
+            for (int skips = 0; filter != null && skips < MAX_UNSAFE_CHUNK_SKIPS
+                    && filter.isUnsafe(Sampler.unpackX(column) >> 4, Sampler.unpackZ(column) >> 4); skips++) {
+                column = sampler.nextColumn(allowed);
+            }
+            making.setX(Sampler.unpackX(column));
+            making.setZ(Sampler.unpackZ(column));
+
+            //Blocks can only be read from the main thread, the column is scanned there within the tick budget
+            MainThreadExecutor executor = MainThreadExecutor.getInstance();
+            Boolean valid = executor == null ? scanColumn(making, allowed, forbidden, settings) : executor.call(() -> scanColumn(making, allowed, forbidden, settings));
+
+            //The executor was shut down or this thread was interrupted
+            if(valid == null) return null;
+            sampler.report(making.getBlockX(), making.getBlockZ(), valid);
+            if(filter != null) filter.record(making.getBlockX() >> 4, making.getBlockZ() >> 4, valid, settings);
+
+            if(valid) {
+                Logger.debug("&aSafe valid location achieved!");
+                metrics.getAttemptsPerLocation().record(i);
+                metrics.getGenerationLatency().record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return making;
+            }
+
+
+            //On the main thread, i.e: generating on the spot, waiting would only freeze the server
+            if(Bukkit.isPrimaryThread()) continue;
+            GenerationGovernor governor = GenerationGovernor.getInstance();
+            long delay = GenerationTiming.getAttemptDelay(governor == null ? 1 : governor.getPermits());
+            if(delay == 0) continue;
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                //Generation is being stopped
+                Thread.currentThread().interrupt();
+                return null;
+            }
+
+        }
+
+        metrics.getGenerationFailures().increment();
+        return null;
+    }
+
+
+    /**
+     * Finds a suitable Y value for the location's column and checks if the location is valid, must be run from the main thread.
+     * @param loc The location to scan, its Y value is modified.
+     * @param allowed The region to put spawnpoints in.
+     * @param forbidden The region to avoid putting spawnpoints in.
+     * @param settings The settings snapshot to check the location with.
+     * @return true if a valid location was found in the column.
+     */
+    private static boolean scanColumn(Location loc, Region allowed, Region forbidden, Settings settings){
+        World world = loc.getWorld();
+        int chunkX = loc.getBlockX() >> 4;
+        int chunkZ = loc.getBlockZ() >> 4;
+        if(world != null && !world.isChunkLoaded(chunkX, chunkZ)) {
+            Metrics metrics = Metrics.getInstance();
+            metrics.getChunkLoads().increment();
+            if(!world.isChunkGenerated(chunkX, chunkZ)) metrics.getChunkGenerations().increment();
+            if(GenerationGovernor.getInstance() != null) GenerationGovernor.getInstance().recordChunkLoad();
+        }
+        loc.setY(SafetyRules.findSafeY(getReader(loc.getWorld()), loc.getBlockX(), loc.getBlockZ(), allowed.getMinY(), allowed.getMaxY(), settings));
+        return isValidLocation(loc, forbidden, allowed, settings);
+    }
+
+    /**
+     * Checks if a location follows a number of steps for considering it "safe" enough for a player to spawn in,
+     * must be run from the main thread. See {@link SafetyRules#getRejection(BlockReader, int, int, int, Region, Region, SpawnRules)}.
+     * @param loc The location to analyze.
+     * @param forbidden The "forbidden" spawn region for this location's world.
+     * @param allowed The spawn region for this location's world.
+     * @param settings The settings snapshot to check the location with.
+     * @return true if the location passed every check.
+     */
+    public static boolean isValidLocation(Location loc, Region forbidden, Region allowed, Settings settings){
+        BlockReader reader = getReader(loc.getWorld());
+        Rejection rejection = SafetyRules.getRejection(reader, loc.getBlockX(), loc.getBlockY(), loc.getBlockZ(), forbidden, allowed, settings);
+        if(rejection != null) {
+            //The message is only built when shown, rejections happen for most attempts
+            if(Logger.isDebug()) {
+                String block = rejection == Rejection.UNSAFE_BLOCK ? reader.getBlock(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ()) : null;
+                Logger.debug("&c" + rejection.getMessage(block));
+            }
+            Metrics.getInstance().recordRejection(rejection);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks if a location is within the allowed heights, inside the allowed region and outside the forbidden region,
+     * without checking any block.
+     * @param loc The location to analyze.
+     * @param forbidden The "forbidden" spawn region for this location's world.
+     * @param allowed The spawn region for this location's world.
+     * @return true if the location is in a place where players are allowed to spawn.
+     */
+    public static boolean isWithinRegions(Location loc, Region forbidden, Region allowed){
+        return loc.getY() >= 1 && loc.getY() <= 255
+                && !forbidden.contains2D(loc.getBlockX(), loc.getBlockZ())
+                && allowed.contains(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+    }
+
+
+    /**
+     * Gets a reader for the blocks of a loaded world, blocks can only be read from the main thread.
+     * @param world The world to read blocks from.
+     * @return A reader for the world's blocks.
+     */
+    private static BlockReader getReader(World world){
+        return (x, y, z) -> world.getBlockAt(x, y, z).getType().name();
+    }
+}
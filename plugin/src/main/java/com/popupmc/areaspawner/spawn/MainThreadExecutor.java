@@ -0,0 +1,190 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+import com.popupmc.areaspawner.AreaSpawner;
+import com.popupmc.areaspawner.utils.Logger;
+import com.popupmc.areaspawner.utils.Settings;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs block and chunk reads requested by async generation on the main thread. Every tick, queued jobs are run
+ * until the "generation tick budget" given in config is used, so generation only takes a known slice of each tick.
+ *
+ * @author lelesape
+ */
+public class MainThreadExecutor {
+
+    /**
+     * The only instance for this class.
+     */
+    private static MainThreadExecutor instance;
+
+    /**
+     * Jobs waiting to be run on the main thread.
+     */
+    final private ConcurrentLinkedQueue<Job<?>> jobs = new ConcurrentLinkedQueue<>();
+    /**
+     * The task draining the jobs every tick.
+     */
+    final private BukkitTask drainTask;
+    /**
+     * Whether this executor stopped accepting jobs.
+     */
+    private volatile boolean shutdown;
+
+
+    /**
+     * Creates a new MainThreadExecutor instance, private for helping on applying Singleton pattern.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    private MainThreadExecutor(AreaSpawner plugin){
+        drainTask = new BukkitRunnable(){
+
+            @Override
+            public void run(){
+                drain();
+            }
+
+        }.runTaskTimer(plugin, 1, 1);
+    }
+
+    /**
+     * Runs queued jobs until this tick's budget is used. At least one job is run every tick, so generation
+     * never stalls completely.
+     */
+    private void drain(){
+        long deadline = System.nanoTime() + (long) (Settings.getInstance().getGenerationTickBudget() * 1_000_000);
+        Job<?> job;
+
+        do {
+            job = jobs.poll();
+            if(job == null) return;
+            job.run();
+        } while (System.nanoTime() < deadline);
+    }
+
+    /**
+     * Queues a job to be run on the main thread.
+     * @param task The job, it should only read a few blocks (i.e: scanning a single column).
+     * @param <T> The type of the job's result.
+     * @return A future completed with the job's result once it has been run.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task){
+        Job<T> job = new Job<>(task);
+        if(shutdown) {
+            job.future.cancel(false);
+            return job.future;
+        }
+        jobs.add(job);
+        return job.future;
+    }
+
+    /**
+     * Runs a job on the main thread and waits for its result. If called from the main thread the job is run
+     * right away, as waiting for the next tick from the main thread would never end.
+     * @param task The job, it should only read a few blocks (i.e: scanning a single column).
+     * @param <T> The type of the job's result.
+     * @return The job's result, or null if the job failed, was cancelled or the waiting thread was interrupted.
+     */
+    public <T> T call(Supplier<T> task){
+        if(Bukkit.isPrimaryThread()) return task.get();
+
+        CompletableFuture<T> future = submit(task);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+        } catch (CancellationException ignored) {
+        } catch (ExecutionException e) {
+            Logger.debug("&cA main thread generation job failed: {}", e.getCause());
+        }
+        return null;
+    }
+
+    /**
+     * Gets the amount of jobs waiting to be run.
+     * @return The amount of queued jobs.
+     */
+    public int size(){
+        return jobs.size();
+    }
+
+    /**
+     * Stops draining jobs and cancels every pending one, so no generation thread is left waiting on the main thread.
+     */
+    public void shutdown(){
+        shutdown = true;
+        drainTask.cancel();
+
+        Job<?> job;
+        while ((job = jobs.poll()) != null) {
+            job.future.cancel(false);
+        }
+    }
+
+
+    /**
+     * A job queued to be run on the main thread, along with the future for its result.
+     * @param <T> The type of the job's result.
+     */
+    private static class Job<T> implements Runnable {
+
+        final private Supplier<T> task;
+        final private CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Job(Supplier<T> task){
+            this.task = task;
+        }
+
+        @Override
+        public void run(){
+            //Cancelled while waiting
+            if(future.isDone()) return;
+            try {
+                future.complete(task.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+    }
+
+
+    /**
+     * Creates an instance of MainThreadExecutor if none found.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    public static void createInstance(AreaSpawner plugin){
+        if(instance == null) instance = new MainThreadExecutor(plugin);
+    }
+
+    /**
+     * Gets the single instance of this class. {@link #createInstance(AreaSpawner)} should be run first.
+     * @return An instance of this MainThreadExecutor and the only one in existence.
+     */
+    public static MainThreadExecutor getInstance(){
+        return instance;
+    }
+}
@@ -0,0 +1,621 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+import com.popupmc.areaspawner.AreaSpawner;
+import com.popupmc.areaspawner.spawn.refill.CacheRefiller;
+import com.popupmc.areaspawner.spawn.sampling.Sampler;
+import com.popupmc.areaspawner.spawn.trace.DemandRecorder;
+import com.popupmc.areaspawner.spawn.trace.DemandSource;
+import com.popupmc.areaspawner.utils.Checkpoint;
+import com.popupmc.areaspawner.utils.PersistenceService;
+import com.popupmc.areaspawner.utils.Settings;
+import com.popupmc.areaspawner.utils.Logger;
+import com.popupmc.areaspawner.utils.Metrics;
+import org.bukkit.*;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates new random spawn points with config parameters, saves these spawn locations
+ * in a hashmap, and gives these locations.
+ *
+ * @author lelesape
+ */
+public class RandomSpawnCache implements Checkpoint {
+
+    /**
+     * The only instance for this class.
+     */
+    private static RandomSpawnCache instance;
+    /**
+     * The amount of ticks between each location verified by the background verifier.
+     */
+    private static final int VERIFICATION_PERIOD = 2;
+
+    /**
+     * A list of safe to spawn locations for the given world in config.
+     */
+    final private SpawnPool spawnLocations = new SpawnPool();
+    /**
+     * Incremented every time the list of locations changes, used for knowing when the cache file is outdated.
+     */
+    final private AtomicLong version = new AtomicLong();
+    /**
+     * Locations loaded from the cache file that have not been checked for safety yet.
+     */
+    final private Set<Location> unverifiedLocations = ConcurrentHashMap.newKeySet();
+    /**
+     * The header of the cache file, kept for writing it back on every save.
+     */
+    final private String cacheFileHeader;
+    /**
+     * AreaSpawner's main class instance.
+     */
+    final private AreaSpawner plugin;
+    /**
+     * Decides when locations are generated, replacing removed locations and filling the cache up.
+     */
+    final private CacheRefiller<Location> refiller = new CacheRefiller<>(GenerationExecutor.getInstance(), this::generateReplacement, this::addLocation);
+    /**
+     * The cache task used for cancelling said task.
+     */
+    private BukkitTask cacheGeneratorTask;
+    /**
+     * The task checking unverified locations in the background.
+     */
+    private BukkitTask verifierTask;
+
+
+    /**
+     * Creates a new RandomSpawnCache instance, private for helping on applying Singleton pattern.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    private RandomSpawnCache(AreaSpawner plugin){
+        this.plugin = plugin;
+        this.cacheFileHeader = plugin.getCacheYaml().getAccess().options().header();
+        if(Settings.getInstance().isCacheEnabled()) {
+            Logger.send("Cache successfully initialized");
+            loadFromFile();
+            createSafeSpawns(false);
+        }else{
+            Logger.send("&eWARNING &f- Location cache is disabled. Locations will be calculated on the spot, players may take a while to respawn depending on your other settings.");
+        }
+        PersistenceService.getInstance().register(this);
+    }
+
+
+    /**
+     * Creates an empty RandomSpawnCache that neither loads, generates nor saves locations, for tests.
+     */
+    RandomSpawnCache(){
+        this.plugin = null;
+        this.cacheFileHeader = null;
+    }
+
+
+    /**
+     * Fills the list of safe spawn locations with new ones.
+     * @param clear Whether to clear the current list of safe spawn locations.
+     */
+    public void createSafeSpawns(boolean clear){
+        if(clear) {
+            spawnLocations.clear();
+            unverifiedLocations.clear();
+            version.incrementAndGet();
+        }
+        createSafeLocations();
+    }
+
+    /**
+     * Stops the current cache task from creating new safe spawn locations.
+     * @return true if the cache was successfully stopped.
+     */
+    public boolean stopCache(){
+        refiller.stopFill();
+        if(cacheGeneratorTask == null || cacheGeneratorTask.isCancelled()) return false;
+        cacheGeneratorTask.cancel();
+        return true;
+    }
+
+    /**
+     * Teleports a player to a safe spawn location and sends them the teleport message.
+     * @param player The player to teleport.
+     */
+    public void teleport(Player player){
+        player.teleport(getSafeSpawn(DemandSource.FORCE), PlayerTeleportEvent.TeleportCause.PLUGIN);
+        Logger.send(player, plugin.getMessagesYaml().getAccess().getString("messages.you have been teleported"));
+    }
+
+
+
+    /**
+     * Gets a safe spawn point, recording it in the demand trace.
+     * @param source What asked for the location.
+     * @return A safe location ready for a player to spawn in, if the cache is disabled or the list of locations is
+     * empty, it will try to generate a safe location on the spot.
+     */
+    public Location getSafeSpawn(DemandSource source){
+        int cacheSize = spawnLocations.size();
+        Location location = pollSafeSpawn();
+        DemandRecorder.getInstance().record(source, cacheSize, location != null);
+        if(location != null) return location;
+
+        Settings settings = Settings.getInstance();
+        Metrics metrics = Metrics.getInstance();
+        if(settings.isCacheEnabled()) metrics.getCacheMisses().increment();
+        metrics.getFallbacks().increment();
+        return LocationGenerator.generateNewLocation(settings.getAllowedRegion(), settings.getForbiddenRegion(), settings);
+    }
+
+    /**
+     * Gets a safe spawn point from the cache, without generating one on the spot.
+     * @return A safe location ready for a player to spawn in, or null if the cache is disabled or no safe location
+     * was found in it within as many picks as it has locations.
+     */
+    public Location pollSafeSpawn(){
+        Settings settings = Settings.getInstance();
+        if(!settings.isCacheEnabled()) return null;
+
+        //Nothing but the returned location is allocated here unless the location has to be checked for safety
+        Metrics metrics = Metrics.getInstance();
+        long start = System.nanoTime();
+        Location location;
+        //Unsafe locations kept in the pool would be picked again and again, so give up after as many picks as
+        //there are locations and let the caller fall back to generating one
+        int picks = spawnLocations.size();
+        while(picks-- > 0 && (location = spawnLocations.random(settings.getSampler())) != null) {
+            boolean unverified = !unverifiedLocations.isEmpty() && unverifiedLocations.remove(location);
+
+            if((settings.isCheckSafetyOnUse() || unverified)
+                    && !LocationGenerator.isValidLocation(location, settings.getForbiddenRegion(), settings.getAllowedRegion(), settings)) {
+                if(unverified) {
+                    Logger.debug("&cA location loaded from the cache file is not safe, discarding it.");
+                    discardLocation(location);
+                    metrics.getRevalidationEvictions().increment();
+                }else if(settings.isDeleteOnUnsafe()) {
+                    Logger.debug("&cA previously considered safe location is no longer safe, generating a new one in replacement.");
+                    removeLocation(location, settings);
+                    metrics.getRevalidationEvictions().increment();
+                }
+                continue;
+            }
+
+            Logger.debug("&eA location has been used");
+
+            if(settings.isRemoveUsedLocation()) {
+                Logger.debug("&eRemoving the used location.");
+                removeLocation(location, settings);
+            }
+            metrics.getCacheHits().increment();
+            metrics.getHandOutLatency().record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            return location.clone().add(0.5,1,0.5);
+        }
+
+        return null;
+    }
+
+
+
+    /**
+     * Puts a location handed out by {@link #pollSafeSpawn()} back in the cache, for when it could not be used,
+     * i.e: a travel the player can no longer pay for. Nothing is added if the cache is disabled or full, or the
+     * location is still in it.
+     * @param handedOut The location as it was handed out, above the cached block.
+     */
+    public void returnLocation(Location handedOut){
+        Settings settings = Settings.getInstance();
+        if(!settings.isCacheEnabled() || spawnLocations.size() >= settings.getCachedLocationsAmount()) return;
+
+        Location loc = new Location(handedOut.getWorld(), handedOut.getBlockX(), handedOut.getBlockY() - 1, handedOut.getBlockZ());
+        if(spawnLocations.contains(loc)) return;
+        Logger.debug("&eA location that could not be used has been put back in the cache.");
+        addLocation(loc);
+    }
+
+    /**
+     * Reserves up to the given amount of distinct cached locations, at least the given distance away from each other
+     * in the x,z plane. Locations are removed from the cache if "delete location on use" is set to true in config.
+     * Locations that have not been checked for safety yet are skipped.
+     * @param amount The amount of locations wanted.
+     * @param minDistance The minimum horizontal distance between any two of the returned locations.
+     * @return The reserved locations, as stored in cache (the block players would stand on), might be less than
+     * the amount wanted.
+     */
+    public List<Location> reserveLocations(int amount, double minDistance){
+        Settings settings = Settings.getInstance();
+        Sampler sampler = settings.getSampler();
+        List<Location> candidates = spawnLocations.snapshot();
+        List<Location> reserved = new ArrayList<>(Math.min(amount, candidates.size()));
+        double minDistanceSquared = minDistance * minDistance;
+
+        for (int i = candidates.size() - 1; i > 0; i--) {
+            Collections.swap(candidates, i, sampler.nextInt(i + 1));
+        }
+        for(Location candidate : candidates){
+            if(reserved.size() >= amount) break;
+            if(unverifiedLocations.contains(candidate)) continue;
+
+            boolean farEnough = true;
+            for(Location loc : reserved){
+                double x = loc.getX() - candidate.getX();
+                double z = loc.getZ() - candidate.getZ();
+                if(x * x + z * z < minDistanceSquared) {
+                    farEnough = false;
+                    break;
+                }
+            }
+            if(farEnough) reserved.add(candidate);
+        }
+
+        DemandRecorder recorder = DemandRecorder.getInstance();
+        for (int i = 0; i < reserved.size(); i++) {
+            recorder.record(DemandSource.FORCE, settings.isRemoveUsedLocation() ? candidates.size() - i : candidates.size(), true);
+        }
+        if(settings.isRemoveUsedLocation()) {
+            for(Location loc : reserved) removeLocation(loc, settings);
+        }
+        Logger.debug("&e{} locations have been reserved.", reserved.size());
+        return reserved;
+    }
+
+    /**
+     * Generates a replacement for a used location, with the current settings.
+     * @return The new location, or null if it could not be generated.
+     */
+    private Location generateReplacement(){
+        Settings settings = Settings.getInstance();
+        Region allowed = settings.getAllowedRegion();
+        Region forbidden = settings.getForbiddenRegion();
+
+        Location loc = LocationGenerator.generateNewLocation(allowed, forbidden, settings);
+
+        if(loc == null){
+            Logger.debug("&cFailed to add replacement location after {} attempts", settings.getFindSafeLocationAttempts());
+        }else {
+            Logger.debug("&aReplacement location successfully added!");
+        }
+        return loc;
+    }
+
+
+    /**
+     * Updates the cached locations after the config has been reloaded, keeping every location that is still valid.
+     * If the world changed, every location is discarded and the cache is generated again. If the regions changed,
+     * locations outside the new regions are discarded. If the block rules changed, every location is checked
+     * again in the background. Finally, the cache is trimmed or filled up to the new amount of cached spawns.
+     * @param previous The settings snapshot before reloading.
+     */
+    public void applySettingsChanges(Settings previous){
+        Settings settings = Settings.getInstance();
+
+        //The running generator uses the previous regions and amount.
+        stopCache();
+        if(!settings.isCacheEnabled()) return;
+
+        if(settings.isWorldChanged(previous)){
+            Logger.send("&cThe spawn world changed. Regenerating cached locations.");
+            createSafeSpawns(true);
+            return;
+        }
+
+        if(settings.isRegionsChanged(previous)){
+            int removed = spawnLocations.removeIf(loc -> {
+                if(LocationGenerator.isWithinRegions(loc, settings.getForbiddenRegion(), settings.getAllowedRegion())) return false;
+                unverifiedLocations.remove(loc);
+                return true;
+            });
+            if(removed > 0) version.incrementAndGet();
+            Logger.send("&e" + removed + " cached locations were outside the new spawn zone and have been removed.");
+        }
+
+        if(settings.isBlockRulesChanged(previous)){
+            Logger.send("&eBlock rules changed. Cached locations will be checked for safety again in the background.");
+            unverifiedLocations.addAll(spawnLocations.snapshot());
+            startVerifier();
+        }
+
+        int excess = spawnLocations.size() - settings.getCachedLocationsAmount();
+        if(excess > 0){
+            for (int i = 0; i < excess; i++) {
+                Location loc = spawnLocations.removeRandom(settings.getSampler());
+                unverifiedLocations.remove(loc);
+            }
+            version.incrementAndGet();
+            Logger.send("&e" + excess + " cached locations were removed to match the new amount of cached spawns.");
+        }
+
+        if(spawnLocations.size() < settings.getCachedLocationsAmount()) createSafeLocations();
+    }
+
+    /**
+     * Adds a location to the locations list.
+     * @param loc The location to add to the list.
+     */
+    void addLocation(Location loc){
+        spawnLocations.add(loc);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Removes a location that was never verified from the locations list, without replacing it. If the list
+     * is left with less locations than specified in config, the cache is filled up again.
+     * @param loc The location to remove from the list.
+     */
+    private void discardLocation(Location loc){
+        if(spawnLocations.remove(loc)) version.incrementAndGet();
+        if(spawnLocations.size() < Settings.getInstance().getCachedLocationsAmount() && !isGenerating()) {
+            createSafeLocations();
+        }
+    }
+
+    /**
+     * Checks whether the cache task is currently creating new safe spawn locations.
+     * @return true if the cache task is running.
+     */
+    private boolean isGenerating(){
+        return cacheGeneratorTask != null && !cacheGeneratorTask.isCancelled();
+    }
+
+    /**
+     * Starts checking, one by one and on the main thread, every location loaded from the cache file that has not
+     * been checked for safety yet. Unsafe locations are discarded.
+     */
+    private void startVerifier(){
+        if(verifierTask != null && !verifierTask.isCancelled()) return;
+
+        verifierTask = new BukkitRunnable(){
+
+            @Override
+            public void run(){
+                Iterator<Location> iterator = unverifiedLocations.iterator();
+                if(!iterator.hasNext()){
+                    Logger.debug("&fFinished checking locations loaded from the cache file.");
+                    cancel();
+                    return;
+                }
+                Location loc = iterator.next();
+                iterator.remove();
+
+                Settings settings = Settings.getInstance();
+                if(!LocationGenerator.isValidLocation(loc, settings.getForbiddenRegion(), settings.getAllowedRegion(), settings)) {
+                    Logger.debug("&cA location in the cache file was not safe and therefore removed from the spawn list.");
+                    discardLocation(loc);
+                    Metrics.getInstance().getRevalidationEvictions().increment();
+                }
+            }
+
+        }.runTaskTimer(plugin, 20, VERIFICATION_PERIOD);
+    }
+
+    /**
+     * Removes a location from the locations list and replaces it if
+     * "replace location on remove" is set to true in config.
+     * @param loc The location to remove from the list.
+     * @param settings The current settings snapshot.
+     */
+    private void removeLocation(Location loc, Settings settings){
+        if(spawnLocations.remove(loc)) version.incrementAndGet();
+        Logger.debug("&aLocation successfully removed from the locations list");
+        if(settings.isReplaceRemovedLocation()){
+            Logger.debug("&eCreating a new location in replacement.");
+            refiller.requestReplacement();
+        }
+
+    }
+
+
+    /**
+     * Creates as many safe spawn locations as specified in config and adds them to
+     * the list of locations.
+     */
+    public void createSafeLocations(){
+        Settings settings = Settings.getInstance();
+
+        if(!settings.isCacheEnabled()){
+            Logger.send("&eWARNING &f- Location cache is disabled. Locations will be calculated on the spot, players may take a while to respawn depending on your other settings.");
+            return;
+        }
+
+        Logger.send("&eCreating safe locations...");
+
+        //Locations being generated by a previous run are not added anymore
+        stopCache();
+        final Region allowed = settings.getAllowedRegion();
+        final Region forbidden = settings.getForbiddenRegion();
+        final CacheRefiller<Location>.Fill fill = refiller.startFill(settings.getCachedLocationsAmount() - spawnLocations.size(), () -> {
+            Logger.debug("&eAttempting to add a location to the cache.");
+            Location loc = LocationGenerator.generateNewLocation(allowed, forbidden, settings);
+            if(loc == null) Logger.debug("&cFailed to add a location after {} attempts", settings.getFindSafeLocationAttempts());
+            return loc;
+        });
+
+
+        //Decides how many locations to generate on the main thread, the locations are generated by the generation executor
+        cacheGeneratorTask = new BukkitRunnable(){
+
+            @Override
+            public void run(){
+                if(fill.tick(GenerationGovernor.getInstance().getPermits())){
+                    showAddedLocations(fill.getAdded(), fill.getFailed());
+                    cancel();
+                }
+            }
+
+        }.runTaskTimer(plugin, 5, settings.getTimeBetweenLocations());
+    }
+
+    /**
+     * Shows in console how many locations have been added and how many of them failed to be added.
+     * @param succeeded The amount of locations that were successfully added to the list.
+     * @param failed The amount of locations that, for some reason or another, were not able to be added.
+     */
+    private void showAddedLocations(int succeeded, int failed){
+        if(succeeded > 0) {
+            Logger.send("&aSuccessfully added " + succeeded + " new safe spawn locations");
+        }else{
+            Logger.send("&fNo new locations were added.");
+        }
+        if(failed > 0){
+            Logger.send("&cFailed to add "+ failed +" safe spawn locations");
+        }
+    }
+
+    /**
+     * Checks whether a location is stored in cache at the moment.
+     * @param loc The location, as stored in cache (the block players would stand on).
+     * @return true if the location is in the cache.
+     */
+    public boolean isCached(Location loc){
+        return spawnLocations.contains(loc);
+    }
+
+    /**
+     * Gets the amount of locations stored in cache at the moment.
+     * @return The amount of safe to spawn locations stored in cache.
+     */
+    public int getLocationsInCache(){
+        return spawnLocations.size();
+    }
+
+
+    /**
+     * Gets the cache file, where locations in cache are saved to.
+     * @return The cache file.
+     */
+    @Override
+    public File getFile(){
+        return plugin.getCacheYaml().getFile();
+    }
+
+    /**
+     * Gets the current version of the list of locations, changes every time a location is added or removed.
+     * @return The current version of the list of locations.
+     */
+    @Override
+    public long getVersion(){
+        return version.get();
+    }
+
+    /**
+     * Checks whether the locations in cache should be saved to the cache file.
+     * @return true if "save cache to file" is set to true in config.
+     */
+    @Override
+    public boolean isPersistent(){
+        return Settings.getInstance().isSaveCacheToFile();
+    }
+
+    /**
+     * Serializes the locations in cache to the cache file format.
+     * @return The contents of the cache file.
+     */
+    @Override
+    public byte[] snapshot(){
+        return CacheFile.write(spawnLocations.snapshot(), cacheFileHeader);
+    }
+
+    /**
+     * Loads every location in the cache file.
+     */
+    public void loadFromFile(){
+        Settings settings = Settings.getInstance();
+
+        if(settings.isSaveCacheToFile()) {
+            FileConfiguration cache = plugin.getCacheYaml().getAccess();
+            Logger.debug("&eTrying to load locations from cache file...");
+
+            List<Location> locations = CacheFile.getLocations(cache);
+            //If no cache section is found
+            if(locations == null) {
+                Logger.debug("&cNo locations were found. Creating new ones instead.");
+                return;
+            }
+
+            if(CacheFile.isModified(cache, locations)){
+                Logger.send("&cThe cache file has been modified. Invalidating cache.");
+                Logger.send("&eCreating new locations...");
+                return;
+            }
+
+            Logger.debug("&aCache file is valid.");
+            Logger.debug("&aFound &f{}&a locations to load.", locations.size());
+
+            if(!settings.isValidateCacheOnLoad()) {
+                for (Location loc : locations) {
+                    if(loc.getWorld() == null) continue;
+                    spawnLocations.add(loc);
+                    unverifiedLocations.add(loc);
+                }
+                //Dropped locations are only left out of the file once it is saved again
+                if(spawnLocations.size() < locations.size()) version.incrementAndGet();
+                Logger.send("&f" + spawnLocations.size() + " locations were loaded from the cache file, they will be checked for safety in the background");
+                CacheFile.clear(cache);
+                startVerifier();
+                return;
+            }
+
+            for (Location loc : locations) {
+                if(LocationGenerator.isValidLocation(loc, settings.getForbiddenRegion(), settings.getAllowedRegion(), settings)) {
+                    spawnLocations.add(loc);
+                    Logger.debug("&aAdded a location from the cache file.");
+                } else {
+                    Logger.debug("&cA location in the cache file was not safe and therefore not added to the spawn list.");
+                }
+            }
+
+            if(spawnLocations.size() < locations.size()) version.incrementAndGet();
+            Logger.debug("&fFinished loading locations from cache file.");
+            Logger.send("&f" + spawnLocations.size() + "/" + locations.size() + " safe locations were loaded from the cache file");
+
+            CacheFile.clear(cache);
+        }
+    }
+
+    /**
+     * Creates an instance of RandomSpawnCache if none found.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    public static void createInstance(AreaSpawner plugin){
+        if(instance == null){
+            instance = new RandomSpawnCache(plugin);
+        }
+    }
+
+    /**
+     * Gets the single instance of this class. {@link #createInstance(AreaSpawner)} should be run first.
+     * @return An instance of this RandomSpawnCache and the only one in existence.
+     */
+    public static RandomSpawnCache getInstance(){
+        return instance;
+    }
+
+
+
+}
@@ -0,0 +1,280 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+import com.popupmc.areaspawner.AreaSpawner;
+import com.popupmc.areaspawner.spawn.trace.DemandSource;
+import com.popupmc.areaspawner.utils.Logger;
+import com.popupmc.areaspawner.utils.Settings;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scatters many players at once to distinct cached locations. The chunks of every location are loaded first,
+ * in parallel when the server supports loading chunks asynchronously, and players are teleported a few at a time,
+ * so the per tick cost stays within the budget given in config.
+ *
+ * @author lelesape
+ */
+public class ScatterTask extends BukkitRunnable {
+
+    /**
+     * World#getChunkAtAsync(int, int), only available in some server implementations, null if not available.
+     */
+    private static final Method GET_CHUNK_AT_ASYNC = findGetChunkAtAsync();
+    /**
+     * The maximum amount of asynchronous chunk loads requested at once.
+     */
+    private static final int MAX_PENDING_LOADS = 32;
+
+    /**
+     * AreaSpawner's main class instance.
+     */
+    final private AreaSpawner plugin;
+    /**
+     * The one who started the scatter, receives the summary once done.
+     */
+    final private CommandSender sender;
+    /**
+     * The players to scatter.
+     */
+    final private List<UUID> players;
+    /**
+     * The reserved location for every player, in the same order.
+     */
+    final private List<Location> locations;
+    /**
+     * Whether the chunk of every location has been loaded.
+     */
+    final private boolean[] loaded;
+    /**
+     * The chunks kept loaded by this task, packed as x,z.
+     */
+    final private Set<Long> tickets = new HashSet<>();
+    /**
+     * The index of the next location to load.
+     */
+    private int nextLoad;
+    /**
+     * The index of the next player to teleport.
+     */
+    private int nextTeleport;
+    /**
+     * The amount of asynchronous chunk loads still pending.
+     */
+    private int pendingLoads;
+    /**
+     * The amount of players sent to the travel queue because their reserved location was no longer safe.
+     */
+    private int queued;
+    /**
+     * The amount of players whose reserved location was no longer safe and did not fit in the travel queue.
+     */
+    private int rejected;
+    /**
+     * The amount of players that went offline before being teleported.
+     */
+    private int offline;
+    /**
+     * The time the task started at, in nanoseconds.
+     */
+    final private long startTime = System.nanoTime();
+
+
+    /**
+     * Creates a new scatter task, {@link #start()} must be called for it to run.
+     * @param plugin AreaSpawner's main class instance.
+     * @param sender The one who started the scatter.
+     * @param players The players to scatter.
+     * @param locations A location for each player, as stored in cache, in the same order as the players.
+     */
+    public ScatterTask(AreaSpawner plugin, CommandSender sender, List<Player> players, List<Location> locations){
+        this.plugin = plugin;
+        this.sender = sender;
+        this.players = new ArrayList<>(players.size());
+        for(Player player : players) this.players.add(player.getUniqueId());
+        this.locations = locations;
+        this.loaded = new boolean[locations.size()];
+    }
+
+    /**
+     * Starts loading chunks and teleporting players, one batch every tick.
+     */
+    public void start(){
+        runTaskTimer(plugin, 1, 1);
+    }
+
+    @Override
+    public void run(){
+        Settings settings = Settings.getInstance();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getScatterTickBudget());
+
+        teleportPlayers(settings, deadline);
+        loadChunks(settings, deadline);
+
+        if(nextTeleport >= locations.size()) finish();
+    }
+
+    /**
+     * Loads the chunks of the next locations, asynchronously if possible.
+     * @param settings The current settings.
+     * @param deadline The time, in nanoseconds, at which this tick's budget runs out.
+     */
+    private void loadChunks(Settings settings, long deadline){
+        int loads = 0;
+
+        while(nextLoad < locations.size() && System.nanoTime() < deadline){
+            int index = nextLoad;
+            Location location = locations.get(index);
+            World world = location.getWorld();
+            int chunkX = location.getBlockX() >> 4;
+            int chunkZ = location.getBlockZ() >> 4;
+
+            if(world.isChunkLoaded(chunkX, chunkZ)) {
+                keepLoaded(world, chunkX, chunkZ);
+                loaded[index] = true;
+            }else if(GET_CHUNK_AT_ASYNC != null) {
+                if(pendingLoads >= MAX_PENDING_LOADS) return;
+                pendingLoads++;
+                loadAsync(world, chunkX, chunkZ).whenComplete((chunk, error) ->
+                        //Completed on the main thread by the server, or right away if it failed.
+                        Bukkit.getScheduler().runTask(plugin, () -> {
+                            pendingLoads--;
+                            if(error == null) keepLoaded(world, chunkX, chunkZ);
+                            loaded[index] = true;
+                        }));
+            }else {
+                if(loads >= settings.getScatterChunkLoadsPerTick()) return;
+                world.getChunkAt(chunkX, chunkZ);
+                keepLoaded(world, chunkX, chunkZ);
+                loaded[index] = true;
+                loads++;
+            }
+            nextLoad++;
+        }
+    }
+
+    /**
+     * Teleports, in order, the next players whose location's chunk is already loaded.
+     * @param settings The current settings.
+     * @param deadline The time, in nanoseconds, at which this tick's budget runs out.
+     */
+    private void teleportPlayers(Settings settings, long deadline){
+        String teleported = plugin.getMessagesYaml().getAccess().getString("messages.you have been teleported");
+        int teleports = 0;
+
+        while(nextTeleport < locations.size() && loaded[nextTeleport]
+                && teleports < settings.getScatterTeleportsPerTick() && System.nanoTime() < deadline){
+            Player player = Bukkit.getPlayer(players.get(nextTeleport));
+            Location location = locations.get(nextTeleport);
+            nextTeleport++;
+            if(player == null) {
+                offline++;
+                continue;
+            }
+
+            if(settings.isCheckSafetyOnUse() && !LocationGenerator.isValidLocation(location, settings.getForbiddenRegion(), settings.getAllowedRegion(), settings)) {
+                Logger.debug("&cA reserved location is no longer safe, sending the player to the travel queue instead.");
+                int position = TravelQueue.getInstance().enqueue(player, DemandSource.FORCE, (traveler, safe) -> {
+                    traveler.teleport(safe, PlayerTeleportEvent.TeleportCause.PLUGIN);
+                    Logger.send(traveler, teleported);
+                });
+                if(position < 0) rejected++;
+                else queued++;
+                continue;
+            }
+
+            player.teleport(location.clone().add(0.5, 1, 0.5), PlayerTeleportEvent.TeleportCause.PLUGIN);
+            Logger.send(player, teleported);
+            teleports++;
+        }
+    }
+
+    /**
+     * Stops the task, releases every chunk kept loaded and sends the summary to the sender.
+     */
+    private void finish(){
+        cancel();
+        for(long key : tickets){
+            World world = locations.get(0).getWorld();
+            world.removePluginChunkTicket((int) (key >> 32), (int) key, plugin);
+        }
+        tickets.clear();
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        Logger.send(sender, "&aScattered &f" + (locations.size() - queued - rejected - offline) + "&a players in &f" + millis + "ms&a.");
+        if(queued > 0) Logger.send(sender, "&e" + queued + " players were sent to the travel queue because their location was no longer safe.");
+        if(rejected > 0) Logger.send(sender, "&c" + rejected + " players were not scattered, their location was no longer safe and the travel queue is full.");
+        if(offline > 0) Logger.send(sender, "&e" + offline + " players went offline before being scattered.");
+    }
+
+    /**
+     * Keeps a chunk loaded until this task finishes.
+     * @param world The world of the chunk.
+     * @param chunkX The chunk's x coordinate.
+     * @param chunkZ The chunk's z coordinate.
+     */
+    private void keepLoaded(World world, int chunkX, int chunkZ){
+        if(tickets.add(((long) chunkX << 32) | (chunkZ & 0xffffffffL))) {
+            world.addPluginChunkTicket(chunkX, chunkZ, plugin);
+        }
+    }
+
+    /**
+     * Loads a chunk asynchronously through World#getChunkAtAsync.
+     * @param world The world of the chunk.
+     * @param chunkX The chunk's x coordinate.
+     * @param chunkZ The chunk's z coordinate.
+     * @return A future completed once the chunk is loaded.
+     */
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<Chunk> loadAsync(World world, int chunkX, int chunkZ){
+        try {
+            return (CompletableFuture<Chunk>) GET_CHUNK_AT_ASYNC.invoke(world, chunkX, chunkZ);
+        } catch (ReflectiveOperationException e) {
+            CompletableFuture<Chunk> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * Looks for World#getChunkAtAsync(int, int).
+     * @return The method, or null if the server does not support loading chunks asynchronously.
+     */
+    private static Method findGetChunkAtAsync(){
+        try {
+            return World.class.getMethod("getChunkAtAsync", int.class, int.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+import com.popupmc.areaspawner.spawn.sampling.Sampler;
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * The cached spawn locations, kept in a plain array. Locations are removed by moving the last one into their
+ * place, so neither picking nor removing a location allocates anything, unlike a copy-on-write list which copies
+ * the whole array on every removal.
+ *
+ * @author lelesape
+ */
+public class SpawnPool {
+
+    /**
+     * The cached locations, only the first {@link #size} are in use.
+     */
+    private Location[] locations = new Location[16];
+    /**
+     * The amount of cached locations.
+     */
+    private int size;
+
+
+    /**
+     * Adds a location to the pool.
+     * @param loc The location to add.
+     */
+    public synchronized void add(Location loc){
+        if(size == locations.length) locations = Arrays.copyOf(locations, size * 2);
+        locations[size++] = loc;
+    }
+
+    /**
+     * Removes a location from the pool.
+     * @param loc The location to remove.
+     * @return true if the location was in the pool.
+     */
+    public synchronized boolean remove(Location loc){
+        for (int i = 0; i < size; i++) {
+            if(locations[i].equals(loc)) {
+                removeAt(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a location is in the pool.
+     * @param loc The location to look for.
+     * @return true if the location is in the pool.
+     */
+    public synchronized boolean contains(Location loc){
+        for (int i = 0; i < size; i++) {
+            if(locations[i].equals(loc)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes every location matching the given condition.
+     * @param condition The condition for removing a location.
+     * @return The amount of locations removed.
+     */
+    public synchronized int removeIf(Predicate<Location> condition){
+        int removed = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            if(condition.test(locations[i])) {
+                removeAt(i);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes a random location from the pool.
+     * @param sampler The sampler choosing the location.
+     * @return The removed location, or null if the pool is empty.
+     */
+    public synchronized Location removeRandom(Sampler sampler){
+        if(size == 0) return null;
+        int index = sampler.nextInt(size);
+        Location loc = locations[index];
+        removeAt(index);
+        return loc;
+    }
+
+    /**
+     * Gets a random location from the pool, without removing it.
+     * @param sampler The sampler choosing the location.
+     * @return A random location, or null if the pool is empty.
+     */
+    public synchronized Location random(Sampler sampler){
+        return size == 0 ? null : locations[sampler.nextInt(size)];
+    }
+
+    /**
+     * Removes the location at the given index, moving the last location into its place.
+     * @param index The index of the location to remove.
+     */
+    private void removeAt(int index){
+        locations[index] = locations[--size];
+        locations[size] = null;
+    }
+
+    /**
+     * Removes every location from the pool.
+     */
+    public synchronized void clear(){
+        Arrays.fill(locations, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Gets the amount of locations in the pool.
+     * @return The amount of cached locations.
+     */
+    public synchronized int size(){
+        return size;
+    }
+
+    /**
+     * Checks if the pool has no locations.
+     * @return true if there are no cached locations.
+     */
+    public synchronized boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * Copies every location in the pool, for iterating over them without holding the pool.
+     * @return A new list with every cached location.
+     */
+    public synchronized List<Location> snapshot(){
+        List<Location> copy = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            copy.add(locations[i]);
+        }
+        return copy;
+    }
+}
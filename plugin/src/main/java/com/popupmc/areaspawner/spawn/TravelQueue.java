@@ -0,0 +1,270 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+import com.popupmc.areaspawner.AreaSpawner;
+import com.popupmc.areaspawner.spawn.trace.DemandRecorder;
+import com.popupmc.areaspawner.spawn.trace.DemandSource;
+import com.popupmc.areaspawner.utils.Logger;
+import com.popupmc.areaspawner.utils.Metrics;
+import com.popupmc.areaspawner.utils.Settings;
+import com.popupmc.areaspawner.utils.TokenBucket;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Admission control for travels. Travel requests are handled in order of arrival, at the rate given in config,
+ * and only when a safe location is available in the cache, so a burst of requests never drains the cache
+ * and falls back to generating locations on the spot. A request that waited longer than allowed, or any request
+ * while the cache is disabled, gets a single attempt at generating a location on the spot and is cancelled if
+ * that fails.
+ *
+ * @author lelesape
+ */
+public class TravelQueue {
+
+    /**
+     * The only instance for this class.
+     */
+    private static TravelQueue instance;
+    /**
+     * The amount of ticks between each queue position update sent to waiting players.
+     */
+    private static final int POSITION_UPDATE_PERIOD = 60;
+
+    /**
+     * AreaSpawner's main class instance.
+     */
+    final private AreaSpawner plugin;
+    /**
+     * Pending travel requests in order of arrival, by player.
+     */
+    final private Map<UUID, Request> queue = new LinkedHashMap<>();
+    /**
+     * Limits the amount of travels handled per second.
+     */
+    private TokenBucket bucket;
+    /**
+     * The amount of ticks since the last queue position update.
+     */
+    private int ticksSinceUpdate;
+    /**
+     * The amount of ticks the queue has been running for, to know how long requests have been waiting.
+     */
+    private long ticks;
+
+
+    /**
+     * Creates a new TravelQueue instance, private for helping on applying Singleton pattern.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    private TravelQueue(AreaSpawner plugin){
+        this.plugin = plugin;
+        reloadSettings();
+
+        new BukkitRunnable(){
+
+            @Override
+            public void run(){
+                ticks++;
+                process();
+                if(++ticksSinceUpdate >= POSITION_UPDATE_PERIOD) {
+                    ticksSinceUpdate = 0;
+                    sendPositions();
+                }
+            }
+
+        }.runTaskTimer(plugin, 1, 1);
+    }
+
+    /**
+     * Re-creates the rate limiter with the values given in config.
+     */
+    public void reloadSettings(){
+        Settings settings = Settings.getInstance();
+        this.bucket = new TokenBucket(settings.getTravelsPerSecond(), settings.getTravelBurst());
+    }
+
+    /**
+     * Adds a travel request to the queue and handles it right away if possible. New requests are recorded in the
+     * demand trace as a hit if the cache had locations when they arrived.
+     * @param player The player to teleport.
+     * @param source What asked for the travel.
+     * @param handler What to do once a safe location has been secured for the player.
+     * @return 0 if the request was handled right away, the position in the queue if it has to wait (or the current
+     * position if the player was already waiting), or -1 if the queue is full.
+     */
+    public int enqueue(Player player, DemandSource source, TravelHandler handler){
+        UUID id = player.getUniqueId();
+
+        if(!queue.containsKey(id)) {
+            if(queue.size() >= Settings.getInstance().getTravelQueueSize()) return -1;
+            int cacheSize = RandomSpawnCache.getInstance().getLocationsInCache();
+            DemandRecorder.getInstance().record(source, cacheSize, cacheSize > 0);
+            queue.put(id, new Request(handler, ticks));
+            process();
+        }
+
+        return getPosition(id);
+    }
+
+    /**
+     * Gets the position of a player in the queue.
+     * @param player The unique id of the player.
+     * @return The 1 based position of the player in the queue, 0 if the player is not waiting.
+     */
+    public int getPosition(UUID player){
+        int position = 1;
+        for(UUID id : queue.keySet()){
+            if(id.equals(player)) return position;
+            position++;
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the amount of requests waiting in the queue.
+     * @return The amount of waiting requests.
+     */
+    public int size(){
+        return queue.size();
+    }
+
+    /**
+     * Handles as many requests as allowed by the rate limiter and the locations available, in order of arrival.
+     */
+    private void process(){
+        RandomSpawnCache cache = RandomSpawnCache.getInstance();
+        Settings settings = Settings.getInstance();
+        boolean cacheEnabled = settings.isCacheEnabled();
+        Iterator<Map.Entry<UUID, Request>> iterator = queue.entrySet().iterator();
+
+        while(iterator.hasNext() && bucket.isAvailable()){
+            Map.Entry<UUID, Request> entry = iterator.next();
+            Request request = entry.getValue();
+            Player player = Bukkit.getPlayer(entry.getKey());
+            if(player == null) {
+                iterator.remove();
+                continue;
+            }
+
+            Location location = cacheEnabled ? cache.pollSafeSpawn() : null;
+            if(location == null) {
+                if(cacheEnabled && ticks - request.enqueued < settings.getTravelMaxWait()) {
+                    Logger.debug("&eNo safe location available for the travel queue, waiting for the cache.");
+                    return;
+                }
+
+                //Generating on the spot blocks the main thread, so it is only tried once for every request
+                Logger.debug("&eGenerating a location on the spot for a travel request.");
+                bucket.tryAcquire();
+                iterator.remove();
+                if(cacheEnabled) Metrics.getInstance().getFallbacks().increment();
+                location = LocationGenerator.generateNewLocation(settings.getAllowedRegion(), settings.getForbiddenRegion(), settings);
+                if(location == null) {
+                    Logger.send(player, plugin.getMessagesYaml().getAccess().getString("messages.travel queue failed",
+                            "&cNo safe location could be found for you, please try again later."));
+                    continue;
+                }
+                request.handler.travel(player, location);
+                continue;
+            }
+
+            bucket.tryAcquire();
+            iterator.remove();
+            request.handler.travel(player, location);
+        }
+    }
+
+    /**
+     * Sends every waiting player their current position in the queue.
+     */
+    private void sendPositions(){
+        String message = plugin.getMessagesYaml().getAccess().getString("messages.travel queue position");
+        int position = 1;
+
+        for(UUID id : queue.keySet()){
+            Player player = Bukkit.getPlayer(id);
+            if(player != null) Logger.send(player, message.replace("%position%", String.valueOf(position)));
+            position++;
+        }
+    }
+
+
+    /**
+     * A travel request waiting in the queue.
+     */
+    private static final class Request {
+
+        /**
+         * What to do once a safe location has been secured.
+         */
+        final private TravelHandler handler;
+        /**
+         * The tick the request was added to the queue at.
+         */
+        final private long enqueued;
+
+        /**
+         * Creates a new request.
+         * @param handler What to do once a safe location has been secured.
+         * @param enqueued The tick the request was added to the queue at.
+         */
+        private Request(TravelHandler handler, long enqueued){
+            this.handler = handler;
+            this.enqueued = enqueued;
+        }
+    }
+
+
+    /**
+     * Action to perform once a safe location has been secured for a travel request.
+     */
+    @FunctionalInterface
+    public interface TravelHandler {
+
+        /**
+         * Completes the travel, called from the main thread.
+         * @param player The player traveling, online.
+         * @param location The safe location secured for the player.
+         */
+        void travel(Player player, Location location);
+    }
+
+
+    /**
+     * Creates an instance of TravelQueue if none found.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    public static void createInstance(AreaSpawner plugin){
+        if(instance == null) instance = new TravelQueue(plugin);
+    }
+
+    /**
+     * Gets the single instance of this class. {@link #createInstance(AreaSpawner)} should be run first.
+     * @return An instance of this TravelQueue and the only one in existence.
+     */
+    public static TravelQueue getInstance(){
+        return instance;
+    }
+}
@@ -0,0 +1,295 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.sampling;
+
+import com.popupmc.areaspawner.AreaSpawner;
+import com.popupmc.areaspawner.spawn.SafetyRules;
+import com.popupmc.areaspawner.utils.Checkpoint;
+import com.popupmc.areaspawner.utils.Logger;
+import com.popupmc.areaspawner.utils.PersistenceService;
+import com.popupmc.areaspawner.utils.Settings;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Remembers chunks where generation keeps failing (i.e: oceans, lava lakes or protected areas), so they are
+ * skipped without loading them. Chunks are kept in a Bloom filter, which needs a few bits per chunk, and is
+ * saved to "unsafe chunks.bin" so it survives restarts. It is emptied whenever the rules deciding whether a
+ * location is safe change.
+ * A Bloom filter can mistake a good chunk for a bad one, but with the false positive rate used here that only
+ * skips about 1 in 100 good chunks.
+ *
+ * @author lelesape
+ */
+public class UnsafeChunkFilter implements Checkpoint {
+
+    /**
+     * The only instance for this class.
+     */
+    private static UnsafeChunkFilter instance;
+
+    /**
+     * The first bytes of the file, for recognizing it.
+     */
+    private static final int MAGIC = 0x41534346;
+    /**
+     * The version of the file format.
+     */
+    private static final int FORMAT_VERSION = 1;
+    /**
+     * The false positive rate the filter is sized for.
+     */
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    /**
+     * The maximum amount of chunks being counted at the same time, counts are forgotten past this amount.
+     */
+    private static final int MAX_COUNTED_CHUNKS = 65_536;
+
+    /**
+     * AreaSpawner's main class instance.
+     */
+    final private AreaSpawner plugin;
+    /**
+     * Rejections of every chunk that has not been marked as unsafe and has never had a safe location.
+     * Chunks with a safe location are kept with a negative count so they are never marked.
+     */
+    final private Map<Long, Integer> rejections = new ConcurrentHashMap<>();
+    /**
+     * Incremented every time a chunk is marked, used for knowing when the file is outdated.
+     */
+    final private AtomicLong version = new AtomicLong();
+    /**
+     * The filter's bits.
+     */
+    private volatile AtomicLongArray bits;
+    /**
+     * The amount of bits set for every chunk.
+     */
+    private volatile int hashes;
+    /**
+     * Hash of the rules the current chunks were marked with.
+     */
+    private volatile long rulesHash;
+
+
+    /**
+     * Creates a new UnsafeChunkFilter instance, private for helping on applying Singleton pattern.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    private UnsafeChunkFilter(AreaSpawner plugin){
+        this.plugin = plugin;
+        Settings settings = Settings.getInstance();
+        reset(settings);
+        if(settings.isUnsafeChunksEnabled()) loadFromFile();
+        PersistenceService.getInstance().register(this);
+    }
+
+    /**
+     * Checks if a chunk is known to be unsafe.
+     * @param chunkX The chunk's x coordinate.
+     * @param chunkZ The chunk's z coordinate.
+     * @return true if the chunk has been marked as unsafe, or in rare cases if it has not.
+     */
+    public boolean isUnsafe(int chunkX, int chunkZ){
+        AtomicLongArray bits = this.bits;
+        long hash = mix(Sampler.pack(chunkX, chunkZ));
+        long bitCount = bits.length() * 64L;
+
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod((hash >>> 32) + i * (hash & 0xFFFFFFFFL), bitCount);
+            if((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records the outcome of checking a column. Chunks are marked as unsafe after the amount of rejections given
+     * in config, unless a safe location was ever found in them.
+     * @param chunkX The chunk's x coordinate.
+     * @param chunkZ The chunk's z coordinate.
+     * @param safe Whether a safe location was found in the column.
+     * @param settings The settings snapshot the column was checked with.
+     */
+    public void record(int chunkX, int chunkZ, boolean safe, Settings settings){
+        if(!settings.isUnsafeChunksEnabled()) return;
+        Long key = Sampler.pack(chunkX, chunkZ);
+
+        if(safe) {
+            rejections.put(key, -1);
+            return;
+        }
+
+        if(rejections.size() >= MAX_COUNTED_CHUNKS) rejections.clear();
+        int count = rejections.merge(key, 1, (previous, one) -> previous < 0 ? previous : previous + one);
+        if(count >= settings.getUnsafeChunkRejections()) {
+            rejections.remove(key);
+            mark(key);
+            Logger.debug("&eChunk {}, {} has been marked as unsafe.", chunkX, chunkZ);
+        }
+    }
+
+    /**
+     * Sets a chunk's bits in the filter.
+     * @param key The chunk's packed coordinates.
+     */
+    private void mark(long key){
+        AtomicLongArray bits = this.bits;
+        long hash = mix(key);
+        long bitCount = bits.length() * 64L;
+
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod((hash >>> 32) + i * (hash & 0xFFFFFFFFL), bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(index);
+            } while ((current & mask) == 0 && !bits.compareAndSet(index, current, current | mask));
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Empties the filter if the rules deciding whether a location is safe changed, called after reloading.
+     */
+    public void reloadSettings(){
+        Settings settings = Settings.getInstance();
+        if(SafetyRules.getRulesHash(settings) != rulesHash || getBitCount(settings) != bits.length() * 64L) {
+            Logger.send("&eSpawn settings changed, forgetting every chunk known to be unsafe.");
+            reset(settings);
+        }
+    }
+
+    /**
+     * Empties the filter, sizing it for the capacity given in config.
+     * @param settings The current settings.
+     */
+    private void reset(Settings settings){
+        long bitCount = getBitCount(settings);
+        int capacity = Math.max(1, settings.getUnsafeChunksCapacity());
+
+        this.bits = new AtomicLongArray((int) (bitCount / 64));
+        this.hashes = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        this.rulesHash = SafetyRules.getRulesHash(settings);
+        rejections.clear();
+        version.incrementAndGet();
+    }
+
+    /**
+     * Gets the amount of bits needed for the capacity given in config at the wanted false positive rate.
+     * @param settings The current settings.
+     * @return The amount of bits, a multiple of 64.
+     */
+    private static long getBitCount(Settings settings){
+        int capacity = Math.max(1, settings.getUnsafeChunksCapacity());
+        long bits = (long) Math.ceil(-capacity * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+        return Math.min(Integer.MAX_VALUE * 64L, (bits + 63) / 64 * 64);
+    }
+
+    /**
+     * Mixes the bits of a chunk key, so nearby chunks end up in unrelated parts of the filter.
+     * @param key The chunk's packed coordinates.
+     * @return The mixed key.
+     */
+    private static long mix(long key){
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+
+    /**
+     * Loads the filter from its file, if it was saved with the same rules and size.
+     */
+    private void loadFromFile(){
+        File file = getFile();
+        if(!file.exists()) return;
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file.toPath()))) {
+            if(in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                Logger.send("&cThe unsafe chunks file is not valid, ignoring it.");
+                return;
+            }
+            long savedRulesHash = in.readLong();
+            int savedHashes = in.readInt();
+            int length = in.readInt();
+            if(savedRulesHash != rulesHash || length != bits.length()) {
+                Logger.send("&eSpawn settings changed since the unsafe chunks file was saved, ignoring it.");
+                return;
+            }
+
+            AtomicLongArray loaded = new AtomicLongArray(length);
+            for (int i = 0; i < length; i++) {
+                loaded.set(i, in.readLong());
+            }
+            this.hashes = savedHashes;
+            this.bits = loaded;
+            Logger.debug("&aLoaded the unsafe chunks file.");
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not load the unsafe chunks file: " + e);
+        }
+    }
+
+    @Override
+    public File getFile(){
+        return new File(plugin.getDataFolder(), "unsafe chunks.bin");
+    }
+
+    @Override
+    public long getVersion(){
+        return version.get();
+    }
+
+    @Override
+    public boolean isPersistent(){
+        return Settings.getInstance().isUnsafeChunksEnabled();
+    }
+
+    @Override
+    public byte[] snapshot(){
+        AtomicLongArray bits = this.bits;
+        ByteBuffer buffer = ByteBuffer.allocate(24 + bits.length() * 8);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(rulesHash).putInt(hashes).putInt(bits.length());
+        for (int i = 0; i < bits.length(); i++) {
+            buffer.putLong(bits.get(i));
+        }
+        return buffer.array();
+    }
+
+
+    /**
+     * Creates an instance of UnsafeChunkFilter if none found.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    public static void createInstance(AreaSpawner plugin){
+        if(instance == null) instance = new UnsafeChunkFilter(plugin);
+    }
+
+    /**
+     * Gets the single instance of this class. {@link #createInstance(AreaSpawner)} should be run first.
+     * @return An instance of this UnsafeChunkFilter and the only one in existence.
+     */
+    public static UnsafeChunkFilter getInstance(){
+        return instance;
+    }
+}
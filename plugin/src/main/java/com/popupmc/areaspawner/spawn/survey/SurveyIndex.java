@@ -0,0 +1,514 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.survey;
+
+import com.popupmc.areaspawner.AreaSpawner;
+import com.popupmc.areaspawner.spawn.SafetyRules;
+import com.popupmc.areaspawner.spawn.sampling.Sampler;
+import com.popupmc.areaspawner.utils.Checkpoint;
+import com.popupmc.areaspawner.utils.Logger;
+import com.popupmc.areaspawner.utils.PersistenceService;
+import com.popupmc.areaspawner.utils.Settings;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * A persistent index of the safe columns found by the survey ("/as survey"), one bitset per region file saved in
+ * the "survey" folder. Once columns have been surveyed, safe locations are handed out from here without reading
+ * any block. Only the regions being used are kept in memory.
+ * The survey's progress is saved along with the amount of safe columns of every region to "survey/index.bin",
+ * so a survey resumes where it stopped after a restart. Everything is thrown away when the rules deciding whether
+ * a location is safe change.
+ *
+ * @author lelesape
+ */
+public class SurveyIndex implements Checkpoint {
+
+    /**
+     * The only instance for this class.
+     */
+    private static SurveyIndex instance;
+
+    /**
+     * The first bytes of the file, for recognizing it.
+     */
+    private static final int MAGIC = 0x41535349;
+    /**
+     * The version of the file format.
+     */
+    private static final int FORMAT_VERSION = 1;
+    /**
+     * The most columns picked for a location before giving up if every one is taken.
+     */
+    private static final int MAX_PICKS = 8;
+
+    /**
+     * AreaSpawner's main class instance.
+     */
+    final private AreaSpawner plugin;
+    /**
+     * The folder every survey file is saved to.
+     */
+    final private File folder;
+    /**
+     * The amount of safe columns of every surveyed region with at least one, by packed region coordinates.
+     */
+    final private Map<Long, Integer> safeCounts = new ConcurrentHashMap<>();
+    /**
+     * The regions currently in memory, least recently used first. Guarded by itself.
+     */
+    final private LinkedHashMap<Long, SurveyRegion> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * The regions removed from memory whose file is still being written, by packed region coordinates. Taken
+     * back from here instead of reading their outdated file if needed again.
+     */
+    final private Map<Long, SurveyRegion> evicted = new ConcurrentHashMap<>();
+    /**
+     * Incremented every time the survey advances, used for knowing when the file is outdated.
+     */
+    final private AtomicLong version = new AtomicLong();
+    /**
+     * Hash of the rules the columns are checked with.
+     */
+    private volatile long rulesHash;
+    /**
+     * The position of the next chunk to survey, see {@link SurveyTask}.
+     */
+    private volatile long cursor;
+    /**
+     * Whether the survey is running, kept so it resumes after a restart.
+     */
+    private volatile boolean running;
+    /**
+     * The survey task, null if not running.
+     */
+    private BukkitTask task;
+
+
+    /**
+     * Creates a new SurveyIndex instance, private for helping on applying Singleton pattern.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    private SurveyIndex(AreaSpawner plugin){
+        this.plugin = plugin;
+        this.folder = new File(plugin.getDataFolder(), "survey");
+        this.rulesHash = SafetyRules.getRulesHash(Settings.getInstance());
+        loadFromFile();
+        PersistenceService.getInstance().register(this);
+
+        if(running) {
+            Logger.send("&eResuming the survey at chunk &f" + cursor + "&e.");
+            startTask();
+        }
+    }
+
+    /**
+     * Starts surveying the spawn zone, or resumes it where it was stopped.
+     * @return false if the survey was already running.
+     */
+    public boolean start(){
+        if(running) return false;
+        running = true;
+        version.incrementAndGet();
+        startTask();
+        return true;
+    }
+
+    /**
+     * Stops surveying the spawn zone, it can be resumed later.
+     * @return false if the survey was not running.
+     */
+    public boolean stop(){
+        if(!running) return false;
+        running = false;
+        version.incrementAndGet();
+        if(task != null) task.cancel();
+        task = null;
+        return true;
+    }
+
+    /**
+     * Starts the task surveying the spawn zone.
+     */
+    private void startTask(){
+        if(task != null) task.cancel();
+        task = new SurveyTask(this).runTaskTimer(plugin, 20, 1);
+    }
+
+    /**
+     * Called by the survey task once every chunk of the spawn zone has been surveyed.
+     */
+    void finish(){
+        stop();
+        Logger.send("&aThe survey has finished, &f" + getSafeColumns() + "&a safe columns were found.");
+    }
+
+    /**
+     * Records the outcome of surveying a chunk.
+     * @param chunkX The chunk's x coordinate.
+     * @param chunkZ The chunk's z coordinate.
+     * @param columns The Y value of every safe column of the chunk, indexed as z * 16 + x, or
+     *                {@link SafetyRules#NO_SAFE_Y} for columns that are not safe.
+     * @param rulesHash Hash of the rules the columns were checked with, the chunk is ignored if they changed since.
+     */
+    void record(int chunkX, int chunkZ, int[] columns, long rulesHash){
+        synchronized (loaded) {
+            if(rulesHash != this.rulesHash) return;
+            SurveyRegion region = getRegion(chunkX >> 5, chunkZ >> 5);
+            region.record(chunkX & 31, chunkZ & 31, columns);
+            updateSafeCount(region);
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Gets a random safe location among every surveyed column, without reading any block. Might load a region
+     * from disk, except when called from the main thread, where only regions in memory are used.
+     * @param settings The current settings.
+     * @param taken Tells if a location is already in use, i.e: in the cache, so the same spot is not handed out twice.
+     * @return A safe location as stored in cache (the block players would stand on), or null if no safe column
+     * that is not taken was found.
+     */
+    public Location nextSafeLocation(Settings settings, Predicate<Location> taken){
+        World world = settings.getWorld();
+        if(world == null || safeCounts.isEmpty()) return null;
+
+        boolean inMemoryOnly = Bukkit.isPrimaryThread();
+        for (int i = 0; i < MAX_PICKS; i++) {
+            Location location = inMemoryOnly ? pickLoaded(world, settings.getSampler()) : pick(world, settings.getSampler());
+            if(location == null) return null;
+            if(!taken.test(location)) return location;
+        }
+        return null;
+    }
+
+    /**
+     * Picks a random safe column among every surveyed one, loading its region from disk if needed.
+     * @param world The spawn world.
+     * @param sampler The sampler to pick with.
+     * @return The location of the column, or null if there are none.
+     */
+    private Location pick(World world, Sampler sampler){
+        long total = getSafeColumns();
+        if(total <= 0) return null;
+        long pick = total <= Integer.MAX_VALUE ? sampler.nextInt((int) total) : ThreadLocalRandom.current().nextLong(total);
+
+        for(Map.Entry<Long, Integer> entry : safeCounts.entrySet()){
+            if(pick >= entry.getValue()) {
+                pick -= entry.getValue();
+                continue;
+            }
+
+            synchronized (loaded) {
+                return getLocation(world, getRegion(Sampler.unpackX(entry.getKey()), Sampler.unpackZ(entry.getKey())), pick);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Picks a random safe column among the regions in memory, never reading from disk.
+     * @param world The spawn world.
+     * @param sampler The sampler to pick with.
+     * @return The location of the column, or null if the regions in memory have none.
+     */
+    private Location pickLoaded(World world, Sampler sampler){
+        synchronized (loaded) {
+            long total = 0;
+            for(SurveyRegion region : loaded.values()) total += region.getSafeCount();
+            if(total <= 0) return null;
+            long pick = total <= Integer.MAX_VALUE ? sampler.nextInt((int) total) : ThreadLocalRandom.current().nextLong(total);
+
+            for(SurveyRegion region : loaded.values()){
+                if(pick < region.getSafeCount()) return getLocation(world, region, pick);
+                pick -= region.getSafeCount();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Gets the location of one of the safe columns of a region. Must be called holding the lock of {@link #loaded}.
+     * @param world The spawn world.
+     * @param region The region.
+     * @param index The index of the column among the region's safe columns.
+     * @return The location of the column, or null if the region has no safe columns.
+     */
+    private static Location getLocation(World world, SurveyRegion region, long index){
+        int count = region.getSafeCount();
+        if(count == 0) return null;
+        int column = region.getSafeColumn((int) Math.min(index, count - 1));
+        if(column < 0) return null;
+
+        return new Location(world,
+                region.getRegionX() * SurveyRegion.SIZE + column % SurveyRegion.SIZE,
+                region.getHeight(column),
+                region.getRegionZ() * SurveyRegion.SIZE + column / SurveyRegion.SIZE);
+    }
+
+    /**
+     * Gets a region, loading it from disk if it is not in memory. The least recently used regions are removed from
+     * memory if there are more than given in config, and saved from an I/O thread. Must be called holding the lock
+     * of {@link #loaded}.
+     * @param regionX The region's x coordinate.
+     * @param regionZ The region's z coordinate.
+     * @return The region, empty if it was never surveyed.
+     */
+    private SurveyRegion getRegion(int regionX, int regionZ){
+        long key = Sampler.pack(regionX, regionZ);
+        SurveyRegion region = loaded.get(key);
+        if(region != null) return region;
+
+        evictEldest();
+        //Still registered, its pending write keeps it so once done
+        region = evicted.remove(key);
+        if(region != null) {
+            loaded.put(key, region);
+            return region;
+        }
+
+        region = new SurveyRegion(folder, regionX, regionZ, rulesHash);
+        try {
+            region.load();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not load the survey file " + region.getFile().getName() + ": " + e);
+        }
+        //The index might be ahead of a region file that was not saved before a crash
+        updateSafeCount(region);
+
+        PersistenceService.getInstance().register(region);
+        loaded.put(key, region);
+        return region;
+    }
+
+    /**
+     * Removes the least recently used regions from memory until there is room for one more, saving them from an
+     * I/O thread. Must be called holding the lock of {@link #loaded}.
+     */
+    private void evictEldest(){
+        int maxLoaded = Math.max(1, Settings.getInstance().getSurveyMaxLoadedRegions());
+        Iterator<Map.Entry<Long, SurveyRegion>> eldest = loaded.entrySet().iterator();
+        while(loaded.size() >= maxLoaded && eldest.hasNext()){
+            Map.Entry<Long, SurveyRegion> entry = eldest.next();
+            Long key = entry.getKey();
+            SurveyRegion region = entry.getValue();
+            eldest.remove();
+
+            evicted.put(key, region);
+            //Kept registered if it was taken back before being written
+            PersistenceService.getInstance().unregisterLater(region, () -> !evicted.remove(key, region));
+        }
+    }
+
+    /**
+     * Updates the amount of safe columns kept for a region.
+     * @param region The region.
+     */
+    private void updateSafeCount(SurveyRegion region){
+        long key = Sampler.pack(region.getRegionX(), region.getRegionZ());
+        int count = region.getSafeCount();
+        if(count > 0) {
+            safeCounts.put(key, count);
+        }else {
+            safeCounts.remove(key);
+        }
+    }
+
+    /**
+     * Throws away the survey if the rules deciding whether a location is safe changed, called after reloading.
+     * A running survey starts over.
+     */
+    public void reloadSettings(){
+        long current = SafetyRules.getRulesHash(Settings.getInstance());
+        if(current == rulesHash) return;
+
+        Logger.send("&eSpawn settings changed, forgetting every surveyed column.");
+        reset(current);
+        if(running) startTask();
+    }
+
+    /**
+     * Throws away every surveyed column and deletes the region files.
+     * @param rulesHash Hash of the rules the columns will be checked with from now on.
+     */
+    private void reset(long rulesHash){
+        synchronized (loaded) {
+            for(SurveyRegion region : loaded.values()){
+                region.discard();
+                PersistenceService.getInstance().unregister(region);
+            }
+            for(SurveyRegion region : evicted.values()){
+                region.discard();
+                PersistenceService.getInstance().unregister(region);
+            }
+            loaded.clear();
+            evicted.clear();
+            safeCounts.clear();
+            this.rulesHash = rulesHash;
+            this.cursor = 0;
+
+            File[] files = folder.listFiles((dir, name) -> name.startsWith("r.") && name.endsWith(".bin"));
+            if(files != null) {
+                for(File file : files){
+                    if(!file.delete()) plugin.getLogger().warning("Could not delete the survey file " + file.getName());
+                }
+            }
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Loads the survey's progress from its file, if it was saved with the same rules.
+     */
+    private void loadFromFile(){
+        File file = getFile();
+        if(!file.exists()) return;
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file.toPath()))) {
+            if(in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                Logger.send("&cThe survey index file is not valid, ignoring it.");
+                return;
+            }
+            long savedRulesHash = in.readLong();
+            long savedCursor = in.readLong();
+            this.running = in.readBoolean();
+            if(savedRulesHash != rulesHash) {
+                Logger.send("&eSpawn settings changed since the survey was saved, it will start over.");
+                reset(rulesHash);
+                return;
+            }
+
+            this.cursor = savedCursor;
+            int regions = in.readInt();
+            for (int i = 0; i < regions; i++) {
+                safeCounts.put(in.readLong(), in.readInt());
+            }
+            Logger.debug("&aLoaded the survey index, {} safe columns known.", getSafeColumns());
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not load the survey index file: " + e);
+        }
+    }
+
+    /**
+     * Gets the amount of safe columns found so far.
+     * @return The amount of safe columns.
+     */
+    public long getSafeColumns(){
+        long total = 0;
+        for(int count : safeCounts.values()) total += count;
+        return total;
+    }
+
+    /**
+     * Gets the amount of regions with safe columns found so far.
+     * @return The amount of regions.
+     */
+    public int getSurveyedRegions(){
+        return safeCounts.size();
+    }
+
+    long getCursor(){
+        return cursor;
+    }
+
+    /**
+     * Moves the survey to the given chunk, only called from the main thread.
+     * @param cursor The position of the next chunk to survey.
+     */
+    void setCursor(long cursor){
+        this.cursor = cursor;
+        version.incrementAndGet();
+    }
+
+    long getRulesHash(){
+        return rulesHash;
+    }
+
+    public boolean isRunning(){
+        return running;
+    }
+
+    /**
+     * Gets how much of the spawn zone has been surveyed.
+     * @param settings The current settings.
+     * @return The surveyed fraction of the spawn zone, from 0 to 1.
+     */
+    public double getProgress(Settings settings){
+        long total = SurveyTask.getTotalChunks(settings.getAllowedRegion());
+        return total == 0 ? 1 : Math.min(1, (double) cursor / total);
+    }
+
+    @Override
+    public File getFile(){
+        return new File(folder, "index.bin");
+    }
+
+    @Override
+    public long getVersion(){
+        return version.get();
+    }
+
+    @Override
+    public boolean isPersistent(){
+        return folder.isDirectory() || folder.mkdirs();
+    }
+
+    @Override
+    public byte[] snapshot(){
+        List<Map.Entry<Long, Integer>> regions = new ArrayList<>(safeCounts.entrySet());
+        ByteBuffer buffer = ByteBuffer.allocate(33 + regions.size() * 12);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(rulesHash).putLong(cursor).put((byte) (running ? 1 : 0));
+        buffer.putInt(regions.size());
+        for(Map.Entry<Long, Integer> region : regions){
+            buffer.putLong(region.getKey()).putInt(region.getValue());
+        }
+        return buffer.array();
+    }
+
+
+    /**
+     * Creates an instance of SurveyIndex if none found.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    public static void createInstance(AreaSpawner plugin){
+        if(instance == null) instance = new SurveyIndex(plugin);
+    }
+
+    /**
+     * Gets the single instance of this class. {@link #createInstance(AreaSpawner)} should be run first.
+     * @return An instance of this SurveyIndex and the only one in existence.
+     */
+    public static SurveyIndex getInstance(){
+        return instance;
+    }
+}
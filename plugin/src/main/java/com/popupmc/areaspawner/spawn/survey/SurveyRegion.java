@@ -0,0 +1,227 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.survey;
+
+import com.popupmc.areaspawner.spawn.SafetyRules;
+import com.popupmc.areaspawner.utils.Checkpoint;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+/**
+ * The safe columns found by the survey in the area of one region file (32x32 chunks, 512x512 columns), kept as one
+ * bit per column along with the Y value of every column, so safe locations can be handed out without reading
+ * any block. Saved to its own file in the "survey" folder.
+ *
+ * @author lelesape
+ */
+class SurveyRegion implements Checkpoint {
+
+    /**
+     * The first bytes of the file, for recognizing it.
+     */
+    private static final int MAGIC = 0x41535352;
+    /**
+     * The version of the file format.
+     */
+    private static final int FORMAT_VERSION = 2;
+    /**
+     * The amount of columns per side.
+     */
+    static final int SIZE = 512;
+
+    /**
+     * The file this region is saved to.
+     */
+    final private File file;
+    /**
+     * The region's x coordinate, as in region file names.
+     */
+    final private int regionX;
+    /**
+     * The region's z coordinate, as in region file names.
+     */
+    final private int regionZ;
+    /**
+     * Hash of the rules the columns were checked with.
+     */
+    final private long rulesHash;
+    /**
+     * One bit per column, set if the column is safe. Columns are indexed as z * 512 + x, relative to the region.
+     */
+    final private long[] safe = new long[SIZE * SIZE / 64];
+    /**
+     * The Y value of every safe column. Short, as worlds might go below 0 or above 255.
+     */
+    final private short[] heights = new short[SIZE * SIZE];
+    /**
+     * The amount of safe columns.
+     */
+    private int safeCount;
+    /**
+     * Incremented every time a chunk is recorded, used for knowing when the file is outdated.
+     */
+    private long version;
+    /**
+     * Whether the region has been thrown away and must not be saved anymore.
+     */
+    private volatile boolean discarded;
+
+
+    /**
+     * Creates a new empty region.
+     * @param folder The folder region files are saved to.
+     * @param regionX The region's x coordinate.
+     * @param regionZ The region's z coordinate.
+     * @param rulesHash Hash of the rules the columns are checked with.
+     */
+    SurveyRegion(File folder, int regionX, int regionZ, long rulesHash){
+        this.file = new File(folder, "r." + regionX + "." + regionZ + ".bin");
+        this.regionX = regionX;
+        this.regionZ = regionZ;
+        this.rulesHash = rulesHash;
+    }
+
+    /**
+     * Records the outcome of surveying a chunk, replacing whatever was recorded for it before.
+     * @param chunkX The chunk's x coordinate, relative to the region (0 to 31).
+     * @param chunkZ The chunk's z coordinate, relative to the region (0 to 31).
+     * @param columns The Y value of every safe column of the chunk, indexed as z * 16 + x, or
+     *                {@link SafetyRules#NO_SAFE_Y} for columns that are not safe.
+     */
+    synchronized void record(int chunkX, int chunkZ, int[] columns){
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int column = (chunkZ * 16 + z) * SIZE + chunkX * 16 + x;
+                long mask = 1L << column;
+                boolean wasSafe = (safe[column >>> 6] & mask) != 0;
+                int y = columns[z * 16 + x];
+
+                if(y != SafetyRules.NO_SAFE_Y) {
+                    safe[column >>> 6] |= mask;
+                    heights[column] = (short) y;
+                    if(!wasSafe) safeCount++;
+                }else if(wasSafe) {
+                    safe[column >>> 6] &= ~mask;
+                    safeCount--;
+                }
+            }
+        }
+        version++;
+    }
+
+    /**
+     * Gets the nth safe column of this region.
+     * @param n The position of the column among the safe columns, from 0 to the amount of safe columns - 1.
+     * @return The column's index (z * 512 + x, relative to the region), or -1 if there are not that many.
+     */
+    synchronized int getSafeColumn(int n){
+        for (int i = 0; i < safe.length; i++) {
+            int count = Long.bitCount(safe[i]);
+            if(n < count) {
+                long word = safe[i];
+                for (int skip = 0; skip < n; skip++) word &= word - 1;
+                return i * 64 + Long.numberOfTrailingZeros(word);
+            }
+            n -= count;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the Y value recorded for a safe column.
+     * @param column The column's index, as given by {@link #getSafeColumn(int)}.
+     * @return The Y value of the column.
+     */
+    synchronized int getHeight(int column){
+        return heights[column];
+    }
+
+    synchronized int getSafeCount(){
+        return safeCount;
+    }
+
+    int getRegionX(){
+        return regionX;
+    }
+
+    int getRegionZ(){
+        return regionZ;
+    }
+
+    /**
+     * Throws this region away, so it is not saved anymore.
+     */
+    void discard(){
+        discarded = true;
+    }
+
+    /**
+     * Loads the region from its file, if it was saved with the given rules.
+     * @return true if the file was loaded, false if there is no file or it is outdated.
+     * @throws IOException If the file could not be read.
+     */
+    synchronized boolean load() throws IOException {
+        if(!file.exists()) return false;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if(in.readInt() != MAGIC) return false;
+            int formatVersion = in.readInt();
+            if(formatVersion < 1 || formatVersion > FORMAT_VERSION || in.readLong() != rulesHash) return false;
+            safeCount = in.readInt();
+            for (int i = 0; i < safe.length; i++) {
+                safe[i] = in.readLong();
+            }
+            //The first version kept heights as unsigned bytes
+            for (int i = 0; i < heights.length; i++) {
+                heights[i] = formatVersion == 1 ? (short) in.readUnsignedByte() : in.readShort();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public File getFile(){
+        return file;
+    }
+
+    @Override
+    public synchronized long getVersion(){
+        return version;
+    }
+
+    @Override
+    public boolean isPersistent(){
+        return !discarded && (file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+    }
+
+    @Override
+    public synchronized byte[] snapshot(){
+        ByteBuffer buffer = ByteBuffer.allocate(20 + safe.length * 8 + heights.length * 2);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(rulesHash).putInt(safeCount);
+        for (long word : safe) {
+            buffer.putLong(word);
+        }
+        for (short height : heights) {
+            buffer.putShort(height);
+        }
+        return buffer.array();
+    }
+}
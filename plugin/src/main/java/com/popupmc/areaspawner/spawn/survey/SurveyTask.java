@@ -0,0 +1,274 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.survey;
+
+import com.popupmc.areaspawner.spawn.BlockReader;
+import com.popupmc.areaspawner.spawn.GenerationExecutor;
+import com.popupmc.areaspawner.spawn.GenerationGovernor;
+import com.popupmc.areaspawner.spawn.Region;
+import com.popupmc.areaspawner.spawn.SafetyRules;
+import com.popupmc.areaspawner.spawn.anvil.AnvilChunk;
+import com.popupmc.areaspawner.spawn.anvil.LevelData;
+import com.popupmc.areaspawner.spawn.sampling.Sampler;
+import com.popupmc.areaspawner.utils.Logger;
+import com.popupmc.areaspawner.utils.Settings;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Walks the spawn zone chunk by chunk, one region file at a time, and records the safe columns of every chunk in
+ * the {@link SurveyIndex}. Every tick, a few chunks are loaded on the main thread within the time and chunk load
+ * budget given in config, and their columns are checked from a snapshot by the generation executor. Chunks that
+ * are not loaded are read straight from the world's region files by the generation executor instead, so only
+ * chunks not generated yet have to be loaded by the server.
+ * Chunks are visited in a fixed order, so the survey's progress is a single number (the cursor): the regions
+ * overlapping the spawn zone row by row, and the 32x32 chunks of every region row by row.
+ *
+ * @author lelesape
+ */
+class SurveyTask extends BukkitRunnable {
+
+    /**
+     * The maximum amount of chunks skipped in a tick for being outside the spawn zone.
+     */
+    private static final int MAX_SKIPS_PER_TICK = 4096;
+
+    /**
+     * The index the survey is recorded to.
+     */
+    final private SurveyIndex index;
+    /**
+     * A chunk snapshot taken but not handed to the generation executor yet, because it was full.
+     */
+    private ChunkSnapshot pending;
+    /**
+     * The position of the pending chunk, or -1 if it is not at the cursor.
+     */
+    private long pendingCursor;
+    /**
+     * Chunks that could not be read from their region file (i.e: not generated yet), packed as x,z.
+     */
+    final private Queue<Long> unreadableChunks = new ConcurrentLinkedQueue<>();
+    /**
+     * The amount of chunks being read from region files.
+     */
+    final private AtomicInteger reads = new AtomicInteger();
+    /**
+     * The world whose region folder was looked for last.
+     */
+    private World regionFolderWorld;
+    /**
+     * The region folder of {@link #regionFolderWorld}.
+     */
+    private File regionFolder;
+
+
+    /**
+     * Creates a new survey task.
+     * @param index The index the survey is recorded to.
+     */
+    SurveyTask(SurveyIndex index){
+        this.index = index;
+    }
+
+    @Override
+    public void run(){
+        Settings settings = Settings.getInstance();
+        World world = settings.getWorld();
+        if(world == null || GenerationGovernor.getInstance().getPermits() == 0) return;
+
+        Region allowed = settings.getAllowedRegion();
+        File regionFolder = settings.isSurveyReadRegionFiles() ? getRegionFolder(world) : null;
+        long total = getTotalChunks(allowed);
+        long deadline = System.nanoTime() + (long) (settings.getSurveyTickBudget() * TimeUnit.MILLISECONDS.toNanos(1));
+        int loads = 0;
+        int skips = 0;
+
+        while(System.nanoTime() < deadline){
+            if(pending != null) {
+                if(!submit(pending, settings)) return;
+                pending = null;
+                if(pendingCursor >= 0) index.setCursor(pendingCursor + 1);
+            }
+
+            //Chunks that could not be read from their region file are loaded by the server
+            Long unreadable = unreadableChunks.peek();
+            long cursor = -1;
+            int chunkX;
+            int chunkZ;
+
+            if(unreadable != null) {
+                chunkX = Sampler.unpackX(unreadable);
+                chunkZ = Sampler.unpackZ(unreadable);
+            }else {
+                cursor = index.getCursor();
+                if(cursor >= total) {
+                    if(reads.get() == 0) index.finish();
+                    return;
+                }
+
+                int regionsX = (allowed.getMaxX() >> 9) - (allowed.getMinX() >> 9) + 1;
+                long region = cursor >> 10;
+                chunkX = ((allowed.getMinX() >> 9) + (int) (region % regionsX)) * 32 + (int) (cursor & 31);
+                chunkZ = ((allowed.getMinZ() >> 9) + (int) (region / regionsX)) * 32 + (int) ((cursor >> 5) & 31);
+
+                if(!isInSpawnZone(chunkX, chunkZ, allowed, settings.getForbiddenRegion())) {
+                    index.setCursor(cursor + 1);
+                    if(++skips >= MAX_SKIPS_PER_TICK) return;
+                    continue;
+                }
+
+                //Chunks not loaded are read from their region file by the generation executor
+                if(regionFolder != null && !world.isChunkLoaded(chunkX, chunkZ)) {
+                    if(!read(regionFolder, chunkX, chunkZ, settings)) return;
+                    index.setCursor(cursor + 1);
+                    continue;
+                }
+            }
+
+            if(!world.isChunkLoaded(chunkX, chunkZ)) {
+                if(loads >= settings.getSurveyChunksPerTick()) return;
+                loads++;
+                GenerationGovernor.getInstance().recordChunkLoad();
+            }
+            pending = world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false);
+            pendingCursor = cursor;
+            if(unreadable != null) unreadableChunks.poll();
+        }
+    }
+
+    /**
+     * Hands a chunk snapshot to the generation executor, which checks its columns and records them.
+     * @param snapshot The chunk snapshot.
+     * @param settings The settings snapshot to check the columns with.
+     * @return false if the generation executor is full.
+     */
+    private boolean submit(ChunkSnapshot snapshot, Settings settings){
+        long rulesHash = index.getRulesHash();
+        BlockReader reader = (x, y, z) -> y < 0 ? "VOID_AIR" : y > 255 ? "AIR" : snapshot.getBlockType(x & 15, y, z & 15).name();
+        return GenerationExecutor.getInstance().submit(() ->
+                index.record(snapshot.getX(), snapshot.getZ(), survey(reader, snapshot.getX(), snapshot.getZ(), settings), rulesHash));
+    }
+
+    /**
+     * Hands a chunk to the generation executor, which reads it from its region file, checks its columns and
+     * records them. Chunks that could not be read are left to be loaded by the server.
+     * @param regionFolder The world's folder of region files.
+     * @param chunkX The chunk's x coordinate.
+     * @param chunkZ The chunk's z coordinate.
+     * @param settings The settings snapshot to check the columns with.
+     * @return false if the generation executor is full.
+     */
+    private boolean read(File regionFolder, int chunkX, int chunkZ, Settings settings){
+        long rulesHash = index.getRulesHash();
+        reads.incrementAndGet();
+
+        boolean submitted = GenerationExecutor.getInstance().submit(() -> {
+            try {
+                AnvilChunk chunk = AnvilChunk.read(regionFolder, chunkX, chunkZ);
+                if(chunk == null) {
+                    unreadableChunks.add(Sampler.pack(chunkX, chunkZ));
+                }else {
+                    index.record(chunkX, chunkZ, survey(chunk, chunkX, chunkZ, settings), rulesHash);
+                }
+            } catch (IOException | RuntimeException e) {
+                Logger.debug("&cCould not read chunk {}, {} from its region file.", chunkX, chunkZ);
+                Logger.debug(() -> "&c" + e);
+                unreadableChunks.add(Sampler.pack(chunkX, chunkZ));
+            } finally {
+                reads.decrementAndGet();
+            }
+        });
+
+        if(!submitted) reads.decrementAndGet();
+        return submitted;
+    }
+
+    /**
+     * Checks every column of a chunk, can be run from any thread.
+     * @param reader The chunk's blocks.
+     * @param chunkX The chunk's x coordinate.
+     * @param chunkZ The chunk's z coordinate.
+     * @param settings The settings snapshot to check the columns with.
+     * @return The Y value of every safe column of the chunk, indexed as z * 16 + x, or {@link SafetyRules#NO_SAFE_Y}
+     * for columns that are not safe.
+     */
+    static int[] survey(BlockReader reader, int chunkX, int chunkZ, Settings settings){
+        Region allowed = settings.getAllowedRegion();
+        Region forbidden = settings.getForbiddenRegion();
+        int[] columns = new int[256];
+
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int blockX = chunkX * 16 + x;
+                int blockZ = chunkZ * 16 + z;
+                int y = SafetyRules.findSafeY(reader, blockX, blockZ, allowed.getMinY(), allowed.getMaxY(), settings);
+                boolean safe = SafetyRules.getRejection(reader, blockX, y, blockZ, forbidden, allowed, settings) == null;
+                columns[z * 16 + x] = safe ? y : SafetyRules.NO_SAFE_Y;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Gets the folder holding the region files of a world, cached for the last world asked for.
+     * @param world The world.
+     * @return The folder, or null if the world has none yet.
+     */
+    private File getRegionFolder(World world){
+        if(world != regionFolderWorld) {
+            regionFolderWorld = world;
+            regionFolder = LevelData.getRegionFolder(world.getWorldFolder());
+        }
+        return regionFolder;
+    }
+
+    /**
+     * Checks if any column of a chunk is inside the spawn zone.
+     * @param chunkX The chunk's x coordinate.
+     * @param chunkZ The chunk's z coordinate.
+     * @param allowed The spawn region.
+     * @param forbidden The "forbidden" spawn region.
+     * @return false if the chunk is entirely outside the spawn region or inside the forbidden region.
+     */
+    private static boolean isInSpawnZone(int chunkX, int chunkZ, Region allowed, Region forbidden){
+        int minX = chunkX << 4;
+        int minZ = chunkZ << 4;
+        if(minX > allowed.getMaxX() || minX + 15 < allowed.getMinX()
+                || minZ > allowed.getMaxZ() || minZ + 15 < allowed.getMinZ()) return false;
+
+        return !(forbidden.contains2D(minX, minZ) && forbidden.contains2D(minX + 15, minZ + 15));
+    }
+
+    /**
+     * Gets the amount of chunks visited by a survey of the given spawn region, including those skipped.
+     * @param allowed The spawn region.
+     * @return The amount of chunks in every region file overlapping the spawn region.
+     */
+    static long getTotalChunks(Region allowed){
+        long regionsX = (allowed.getMaxX() >> 9) - (allowed.getMinX() >> 9) + 1;
+        long regionsZ = (allowed.getMaxZ() >> 9) - (allowed.getMinZ() >> 9) + 1;
+        return regionsX * regionsZ * 1024;
+    }
+}
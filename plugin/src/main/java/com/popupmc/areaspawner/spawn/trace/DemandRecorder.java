@@ -0,0 +1,167 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn.trace;
+
+import com.popupmc.areaspawner.AreaSpawner;
+import com.popupmc.areaspawner.utils.AsyncSink;
+import com.popupmc.areaspawner.utils.Settings;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Records every time a spawn location is asked for to a demand trace in the plugin's "traces" folder, for
+ * replaying it offline. Like the debug log, events are written from their own thread, dropping events instead
+ * of making the thread asking for a location wait. Dropped events are written to the trace as a marker, so a
+ * replay knows how much demand it is missing.
+ *
+ * @author lelesape
+ */
+public class DemandRecorder extends AsyncSink<DemandEvent> {
+
+    /**
+     * The only instance for this class.
+     */
+    private static DemandRecorder instance;
+
+    /**
+     * The maximum amount of events waiting to be written.
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * AreaSpawner's main class instance.
+     */
+    final private AreaSpawner plugin;
+    /**
+     * The folder traces are written to.
+     */
+    final private File folder;
+    /**
+     * Whether the trace reached its maximum size or could not be written, no more events are recorded then.
+     */
+    private volatile boolean full;
+    /**
+     * The current trace writer, only used from the writer thread.
+     */
+    private DemandTraceWriter writer;
+
+
+    /**
+     * Creates a new DemandRecorder instance, private for helping on applying Singleton pattern.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    private DemandRecorder(AreaSpawner plugin){
+        super("AreaSpawner-Trace", BUFFER_SIZE, 1000);
+        this.plugin = plugin;
+        this.folder = new File(plugin.getDataFolder(), "traces");
+        start();
+    }
+
+    /**
+     * Records a location being asked for if enabled in config, never blocks. If too many are waiting to be
+     * written it is only counted.
+     * @param source What asked for the location.
+     * @param cacheSize The amount of locations in cache when it was asked for.
+     * @param hit Whether the location was taken from the cache.
+     */
+    public void record(DemandSource source, int cacheSize, boolean hit){
+        Settings settings = Settings.getInstance();
+        if(!isRunning() || full || settings == null || !settings.isDemandTraceEnabled()) return;
+        offer(new DemandEvent(System.currentTimeMillis(), source, cacheSize, hit));
+    }
+
+    /**
+     * Writes a batch of events to the trace, opening it on the first event, followed by a marker if any were
+     * dropped.
+     * @param batch The events to write.
+     * @param dropped The amount of events dropped since the last batch.
+     */
+    @Override
+    protected void write(List<DemandEvent> batch, long dropped){
+        if((batch.isEmpty() && dropped == 0) || full) return;
+        Settings settings = Settings.getInstance();
+        long maxSize = (settings == null ? 16 : settings.getDemandTraceMaxSize()) * 1024L * 1024L;
+        try {
+            if(writer == null) {
+                Files.createDirectories(folder.toPath());
+                long start = batch.isEmpty() ? System.currentTimeMillis() : batch.get(0).getTime();
+                File file = new File(folder, "demand-" + start + ".bin");
+                writer = new DemandTraceWriter(new BufferedOutputStream(Files.newOutputStream(file.toPath())), start);
+            }
+            for(DemandEvent event : batch){
+                if(writer.getSize() >= maxSize) {
+                    plugin.getLogger().warning("The demand trace reached its maximum size, no more demand is recorded until a restart.");
+                    full = true;
+                    close();
+                    return;
+                }
+                writer.write(event);
+            }
+            if(dropped > 0) writer.writeDropped(System.currentTimeMillis(), dropped);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not write the demand trace: " + e);
+            full = true;
+            close();
+        }
+    }
+
+    /**
+     * Flushes the current trace, if any.
+     */
+    @Override
+    protected void flush(){
+        if(writer == null) return;
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * Closes the current trace, if any.
+     */
+    @Override
+    protected void close(){
+        if(writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+        }
+        writer = null;
+    }
+
+
+    /**
+     * Creates an instance of DemandRecorder if none found.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    public static void createInstance(AreaSpawner plugin){
+        if(instance == null) instance = new DemandRecorder(plugin);
+    }
+
+    /**
+     * Gets the single instance of this class. {@link #createInstance(AreaSpawner)} should be run first.
+     * @return An instance of this DemandRecorder and the only one in existence.
+     */
+    public static DemandRecorder getInstance(){
+        return instance;
+    }
+}
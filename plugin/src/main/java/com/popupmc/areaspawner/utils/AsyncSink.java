@@ -0,0 +1,155 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes items from its own thread. Items are put in a bounded ring buffer, and if the writer falls behind new
+ * items are dropped and counted instead of making the thread offering them wait. The writer is told how many
+ * were dropped with every batch, so it can leave a mark where they are missing.
+ *
+ * @param <T> The type of the items written.
+ * @author lelesape
+ */
+public abstract class AsyncSink<T> {
+
+    /**
+     * The maximum amount of milliseconds to wait for pending items when the plugin is disabled.
+     */
+    private static final int SHUTDOWN_TIMEOUT = 2000;
+
+    /**
+     * Items waiting to be written, an ArrayBlockingQueue is a ring buffer over a fixed array.
+     */
+    final private BlockingQueue<T> buffer;
+    /**
+     * Items dropped because the buffer was full, since the last batch written.
+     */
+    final private AtomicLong dropped = new AtomicLong();
+    /**
+     * The maximum amount of milliseconds to wait for an item before flushing.
+     */
+    final private long pollTimeout;
+    /**
+     * The thread writing the items.
+     */
+    final private Thread writerThread;
+    /**
+     * Whether the writer thread should stop once the buffer is empty.
+     */
+    private volatile boolean running = true;
+
+
+    /**
+     * Creates a new sink, {@link #start()} must be run once the subclass is ready to write.
+     * @param threadName The name of the writer thread.
+     * @param bufferSize The maximum amount of items waiting to be written.
+     * @param pollTimeout The maximum amount of milliseconds to wait for an item before flushing.
+     */
+    protected AsyncSink(String threadName, int bufferSize, long pollTimeout){
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.pollTimeout = pollTimeout;
+        this.writerThread = new Thread(this::writeLoop, threadName);
+        this.writerThread.setDaemon(true);
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    protected void start(){
+        writerThread.start();
+    }
+
+    /**
+     * Queues an item to be written, never blocks.
+     * @param item The item to write.
+     * @return Whether it was queued, if not it is counted as dropped.
+     */
+    protected boolean offer(T item){
+        if(running && buffer.offer(item)) return true;
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Gets whether items are still accepted.
+     * @return False once {@link #shutdown()} was run.
+     */
+    protected boolean isRunning(){
+        return running;
+    }
+
+    /**
+     * Writes queued items until the plugin is disabled.
+     */
+    private void writeLoop(){
+        List<T> batch = new ArrayList<>();
+        while (running || !buffer.isEmpty()) {
+            try {
+                T first = buffer.poll(pollTimeout, TimeUnit.MILLISECONDS);
+                if(first == null) {
+                    flush();
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch);
+                write(batch, dropped.getAndSet(0));
+                batch.clear();
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+        buffer.drainTo(batch);
+        write(batch, dropped.getAndSet(0));
+        close();
+    }
+
+    /**
+     * Writes a batch of items, only run from the writer thread.
+     * @param batch The items to write, may be empty when the plugin is disabled.
+     * @param dropped The amount of items dropped since the last batch, they were offered after the ones in this batch.
+     */
+    protected abstract void write(List<T> batch, long dropped);
+
+    /**
+     * Flushes what was written so far, run from the writer thread when there is nothing to write.
+     */
+    protected abstract void flush();
+
+    /**
+     * Closes what was written to, run from the writer thread once it stops.
+     */
+    protected abstract void close();
+
+    /**
+     * Stops accepting items, and waits for the pending ones to be written. The writer thread is not
+     * interrupted, as that would close the file it is writing to.
+     */
+    public void shutdown(){
+        running = false;
+        try {
+            writerThread.join(SHUTDOWN_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
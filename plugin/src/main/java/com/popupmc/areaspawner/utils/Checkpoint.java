@@ -0,0 +1,51 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.utils;
+
+import java.io.File;
+
+/**
+ * Data that can be periodically written to disk by the {@link PersistenceService}.
+ * Every method in here may be called from the I/O thread, so implementations must be safe to read concurrently.
+ *
+ * @author lelesape
+ */
+public interface Checkpoint {
+
+    /**
+     * Gets the file this checkpoint is written to.
+     * @return The file to write the snapshot to.
+     */
+    File getFile();
+
+    /**
+     * Gets a number that changes every time the data to persist changes, used for skipping unchanged checkpoints.
+     * @return The current version of the data.
+     */
+    long getVersion();
+
+    /**
+     * Checks whether this checkpoint should currently be written to disk.
+     * @return true if the data should be persisted.
+     */
+    boolean isPersistent();
+
+    /**
+     * Serializes the current state of the data.
+     * @return The bytes to write to the checkpoint's file.
+     */
+    byte[] snapshot();
+}
@@ -0,0 +1,195 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.utils;
+
+import com.popupmc.areaspawner.AreaSpawner;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Writes debug messages to a rolling file in the plugin's "logs" folder from its own thread. If the writer falls
+ * behind new messages are dropped instead of making the thread logging them wait, and a line tells how many.
+ *
+ * @author lelesape
+ */
+public class DebugLog extends AsyncSink<String> {
+
+    /**
+     * The only instance for this class.
+     */
+    private static DebugLog instance;
+
+    /**
+     * The maximum amount of messages waiting to be written.
+     */
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * Matches color codes, both untranslated (&amp;a) and translated ones.
+     */
+    private static final Pattern COLOR_CODES = Pattern.compile("(?i)[&\\u00A7][0-9A-FK-ORX]");
+    /**
+     * The format of the time written before every message.
+     */
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    /**
+     * The length of the time written before every message, including the space after it.
+     */
+    private static final int TIME_LENGTH = 24;
+
+    /**
+     * AreaSpawner's main class instance.
+     */
+    final private AreaSpawner plugin;
+    /**
+     * The folder debug files are written to.
+     */
+    final private File folder;
+    /**
+     * The current debug file writer, only used from the writer thread.
+     */
+    private Writer writer;
+    /**
+     * The size of the current debug file in bytes, only used from the writer thread.
+     */
+    private long fileSize;
+
+
+    /**
+     * Creates a new DebugLog instance, private for helping on applying Singleton pattern.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    private DebugLog(AreaSpawner plugin){
+        super("AreaSpawner-Log", BUFFER_SIZE, 500);
+        this.plugin = plugin;
+        this.folder = new File(plugin.getDataFolder(), "logs");
+        start();
+    }
+
+    /**
+     * Queues a message to be written, never blocks.
+     * @param msg The message, color codes are removed.
+     */
+    public void log(String msg){
+        offer(LocalDateTime.now().format(TIME_FORMAT) + " " + msg);
+    }
+
+    /**
+     * Writes a batch of messages to the current debug file and to the console if enabled in config.
+     * @param batch The messages to write.
+     * @param dropped The amount of messages dropped since the last batch.
+     */
+    @Override
+    protected void write(List<String> batch, long dropped){
+        Settings settings = Settings.getInstance();
+        if(dropped > 0) batch.add(LocalDateTime.now().format(TIME_FORMAT) + " " + dropped + " debug messages were dropped.");
+
+        for(String msg : batch){
+            String line = COLOR_CODES.matcher(msg).replaceAll("");
+            if(settings != null && settings.isDebugToConsole()) plugin.getLogger().info(line.substring(TIME_LENGTH));
+            try {
+                if(writer == null || (settings != null && fileSize >= settings.getDebugLogMaxSize() * 1024L * 1024L)) roll(settings);
+                writer.write(line);
+                writer.write(System.lineSeparator());
+                fileSize += line.length() + System.lineSeparator().length();
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not write to the debug log: " + e);
+                close();
+            }
+        }
+    }
+
+    /**
+     * Closes the current debug file if any, shifts the old files (debug.log becomes debug.1.log and so on,
+     * deleting the oldest one) and opens a new debug file.
+     * @param settings The current settings, for the amount of files to keep.
+     * @throws IOException If the files could not be moved or opened.
+     */
+    private void roll(Settings settings) throws IOException {
+        boolean opened = writer != null;
+        close();
+        Files.createDirectories(folder.toPath());
+
+        File current = new File(folder, "debug.log");
+        //Only roll when the file is full, not every time the server starts
+        if(opened || current.length() >= (settings == null ? 5 : settings.getDebugLogMaxSize()) * 1024L * 1024L) {
+            int files = Math.max(1, settings == null ? 3 : settings.getDebugLogFiles());
+            for (int i = files - 1; i >= 1; i--) {
+                File older = i == 1 ? current : new File(folder, "debug." + (i - 1) + ".log");
+                if(older.exists()) Files.move(older.toPath(), new File(folder, "debug." + i + ".log").toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.deleteIfExists(current.toPath());
+        }
+
+        fileSize = current.length();
+        writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(current.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Flushes the current debug file, if any.
+     */
+    @Override
+    protected void flush(){
+        if(writer == null) return;
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * Closes the current debug file, if any.
+     */
+    @Override
+    protected void close(){
+        if(writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+        }
+        writer = null;
+    }
+
+
+    /**
+     * Creates an instance of DebugLog if none found.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    public static void createInstance(AreaSpawner plugin){
+        if(instance == null) instance = new DebugLog(plugin);
+    }
+
+    /**
+     * Gets the single instance of this class. {@link #createInstance(AreaSpawner)} should be run first.
+     * @return An instance of this DebugLog and the only one in existence.
+     */
+    public static DebugLog getInstance(){
+        return instance;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The kinds of thread pools generation and file saving can run on, chosen with "executor backend" in config.
+ *
+ * @author lelesape
+ */
+public enum ExecutorBackend {
+
+    /**
+     * A fixed amount of platform threads.
+     */
+    FIXED,
+    /**
+     * A work-stealing pool of platform threads.
+     */
+    FORK_JOIN,
+    /**
+     * A new virtual thread for every job, only available on Java 21 or newer.
+     */
+    VIRTUAL;
+
+    /**
+     * The amount of seconds an idle thread of a fixed pool is kept alive.
+     */
+    private static final int KEEP_ALIVE = 30;
+
+
+    /**
+     * Creates a new executor of this kind.
+     * @param name The name for the executor's threads, followed by a number.
+     * @param threads The amount of threads, ignored by virtual threads.
+     * @return The new executor, a fixed pool if virtual threads are not supported by this Java version.
+     */
+    public ExecutorService create(String name, int threads){
+        threads = Math.max(1, threads);
+
+        if(this == VIRTUAL) {
+            ExecutorService executor = createVirtual(name);
+            if(executor != null) return executor;
+            Logger.send("&eVirtual threads require Java 21 or newer, using a fixed pool for " + name + " instead.");
+        }
+
+        if(this == FORK_JOIN) {
+            return new ForkJoinPool(threads, pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName(name + "-" + (thread.getPoolIndex() + 1));
+                thread.setDaemon(true);
+                return thread;
+            }, null, true);
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for every job, through reflection so the plugin
+     * still runs on older Java versions.
+     * @param name The name for the executor's threads, followed by a number.
+     * @return The new executor, or null if virtual threads are not supported.
+     */
+    private static ExecutorService createVirtual(String name){
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the backend with the given name, ignoring case, spaces, dashes and underscores.
+     * @param name The name of the backend (i.e: "fixed", "fork join" or "virtual").
+     * @return The backend, or {@link #FIXED} if none matches the name.
+     */
+    public static ExecutorBackend fromString(String name){
+        if(name == null) return FIXED;
+        String normalized = name.replaceAll("[\\s_-]", "");
+        for(ExecutorBackend backend : values()){
+            if(backend.name().replace("_", "").equalsIgnoreCase(normalized)) return backend;
+        }
+        return FIXED;
+    }
+}
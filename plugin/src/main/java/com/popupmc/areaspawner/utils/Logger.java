@@ -0,0 +1,157 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.utils;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import java.util.function.Supplier;
+
+/**
+ * Utility class with the only purpose of communicating with the server console and or players.
+ *
+ * @author lelesape
+ */
+public class Logger {
+
+    /**
+     * Whether debug messages are logged, kept here so checking it costs a single read.
+     */
+    private static volatile boolean debug;
+
+    /**
+     * Sends a message to the console.
+     * @param msg The message to be sent.
+     */
+    public static void send(String msg){
+        send(Bukkit.getConsoleSender(), msg);
+    }
+
+    /**
+     * Sends a message to the given CommandSender.
+     * @param sender The sender to send the message to.
+     * @param msg The message to be sent.
+     */
+    public static void send(CommandSender sender, String msg){
+        sender.sendMessage(ChatColor.translateAlternateColorCodes('&', Settings.getInstance().getPrefix()+" "+msg));
+    }
+
+    /**
+     * Enables or disables debug messages, called every time a settings snapshot is loaded.
+     * @param enabled Whether debug messages should be logged.
+     */
+    static void setDebug(boolean enabled){
+        debug = enabled;
+    }
+
+    /**
+     * Checks if debug messages are being logged, for skipping work only needed for debug messages.
+     * @return true if the debug mode is enabled.
+     */
+    public static boolean isDebug(){
+        return debug;
+    }
+
+    /**
+     * Logs a debug message only if the debug mode is enabled.
+     * @param msg The message to be logged.
+     */
+    public static void debug(String msg){
+        if(debug) log(msg);
+    }
+
+    /**
+     * Logs a debug message only if the debug mode is enabled, the message is only built if it is.
+     * @param msg The message to be logged.
+     */
+    public static void debug(Supplier<String> msg){
+        if(debug) log(msg.get());
+    }
+
+    /**
+     * Logs a debug message only if the debug mode is enabled, replacing "{}" in the message with the argument.
+     * @param format The message to be logged.
+     * @param arg The value for "{}".
+     */
+    public static void debug(String format, Object arg){
+        if(debug) log(format(format, arg, null));
+    }
+
+    /**
+     * Logs a debug message only if the debug mode is enabled, replacing "{}" in the message with the argument.
+     * @param format The message to be logged.
+     * @param arg The value for "{}".
+     */
+    public static void debug(String format, int arg){
+        if(debug) log(format(format, arg, null));
+    }
+
+    /**
+     * Logs a debug message only if the debug mode is enabled, replacing both "{}" in the message with the arguments.
+     * @param format The message to be logged.
+     * @param first The value for the first "{}".
+     * @param second The value for the second "{}".
+     */
+    public static void debug(String format, Object first, Object second){
+        if(debug) log(format(format, first, second));
+    }
+
+    /**
+     * Logs a debug message only if the debug mode is enabled, replacing both "{}" in the message with the arguments.
+     * @param format The message to be logged.
+     * @param first The value for the first "{}".
+     * @param second The value for the second "{}".
+     */
+    public static void debug(String format, int first, int second){
+        if(debug) log(format(format, first, second));
+    }
+
+    /**
+     * Replaces the first two "{}" in a message with the given values.
+     * @param format The message.
+     * @param first The value for the first "{}".
+     * @param second The value for the second "{}".
+     * @return The resulting message.
+     */
+    private static String format(String format, Object first, Object second){
+        StringBuilder result = new StringBuilder(format.length() + 16);
+        Object[] args = {first, second};
+        int argument = 0;
+        int last = 0;
+        int index;
+
+        while (argument < args.length && (index = format.indexOf("{}", last)) >= 0) {
+            result.append(format, last, index).append(args[argument++]);
+            last = index + 2;
+        }
+        return result.append(format, last, format.length()).toString();
+    }
+
+    /**
+     * Sends a debug message to the debug log, or to the console if the debug log has not been started yet.
+     * @param msg The message.
+     */
+    private static void log(String msg){
+        DebugLog sink = DebugLog.getInstance();
+        if(sink != null) {
+            sink.log(msg);
+        }else {
+            send(msg);
+        }
+    }
+
+}
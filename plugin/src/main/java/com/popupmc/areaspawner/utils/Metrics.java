@@ -0,0 +1,152 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.utils;
+
+import com.popupmc.areaspawner.AreaSpawner;
+import com.popupmc.areaspawner.metrics.Counter;
+import com.popupmc.areaspawner.metrics.Histogram;
+import com.popupmc.areaspawner.metrics.MetricsRegistry;
+import com.popupmc.areaspawner.spawn.Rejection;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Keeps the plugin's metrics, shown with "/as stats". Every metric is lock-free and kept over the last 15 minutes,
+ * so they are always recorded, there is nothing to enable.
+ *
+ * @author lelesape
+ */
+public class Metrics {
+
+    /**
+     * The only instance for this class.
+     */
+    private static Metrics instance;
+
+    /**
+     * The prefix of every rejection reason counter.
+     */
+    public static final String REJECTION_PREFIX = "rejected: ";
+
+    /**
+     * Every metric, by name.
+     */
+    final private MetricsRegistry registry = new MetricsRegistry();
+
+    //Metrics
+    final private Histogram attemptsPerLocation = registry.histogram("attempts per location", "attempts");
+    final private Histogram generationLatency = registry.histogram("generation latency", "ms");
+    final private Histogram handOutLatency = registry.histogram("hand-out latency", "\u00B5s");
+    final private Histogram persistenceTime = registry.histogram("persistence time", "ms");
+    final private Counter generationFailures = registry.counter("generation failures");
+    final private Counter chunkLoads = registry.counter("chunk loads");
+    final private Counter chunkGenerations = registry.counter("chunk generations");
+    final private Counter cacheHits = registry.counter("cache hits");
+    final private Counter cacheMisses = registry.counter("cache misses");
+    final private Counter fallbacks = registry.counter("cache fallbacks");
+    final private Counter revalidationEvictions = registry.counter("revalidation evictions");
+    /**
+     * The counter of every rejection reason, registered up front so counting a rejection is a single increment.
+     */
+    final private Map<Rejection, Counter> rejections = new EnumMap<>(Rejection.class);
+
+
+    /**
+     * Creates a new Metrics instance, private for helping on applying Singleton pattern.
+     */
+    private Metrics(){
+        for(Rejection reason : Rejection.values()){
+            rejections.put(reason, registry.counter(REJECTION_PREFIX + reason.getDescription()));
+        }
+    }
+
+    /**
+     * Counts a location rejected for the given reason.
+     * @param reason The reason, as given by the safety rules.
+     */
+    public void recordRejection(Rejection reason){
+        rejections.get(reason).increment();
+    }
+
+
+    //Fields getters
+
+    public MetricsRegistry getRegistry(){
+        return registry;
+    }
+
+    public Histogram getAttemptsPerLocation(){
+        return attemptsPerLocation;
+    }
+
+    public Histogram getGenerationLatency(){
+        return generationLatency;
+    }
+
+    public Histogram getHandOutLatency(){
+        return handOutLatency;
+    }
+
+    public Histogram getPersistenceTime(){
+        return persistenceTime;
+    }
+
+    public Counter getGenerationFailures(){
+        return generationFailures;
+    }
+
+    public Counter getChunkLoads(){
+        return chunkLoads;
+    }
+
+    public Counter getChunkGenerations(){
+        return chunkGenerations;
+    }
+
+    public Counter getCacheHits(){
+        return cacheHits;
+    }
+
+    public Counter getCacheMisses(){
+        return cacheMisses;
+    }
+
+    public Counter getFallbacks(){
+        return fallbacks;
+    }
+
+    public Counter getRevalidationEvictions(){
+        return revalidationEvictions;
+    }
+
+
+    /**
+     * Creates an instance of Metrics if none found.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    public static void createInstance(AreaSpawner plugin){
+        if(instance == null) instance = new Metrics();
+    }
+
+    /**
+     * Gets the single instance of this class. {@link #createInstance(AreaSpawner)} should be run first.
+     * @return An instance of this Metrics and the only one in existence.
+     */
+    public static Metrics getInstance(){
+        return instance;
+    }
+}
@@ -0,0 +1,247 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.utils;
+
+import com.popupmc.areaspawner.AreaSpawner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Writes {@link Checkpoint}s to disk from dedicated I/O threads, periodically and once more when the plugin
+ * is disabled. Files are written to a temporary file first and then renamed, so a crash mid-write never leaves
+ * a half written file behind.
+ *
+ * @author lelesape
+ */
+public class PersistenceService {
+
+    /**
+     * The only instance for this class.
+     */
+    private static PersistenceService instance;
+
+    /**
+     * The maximum amount of seconds to wait for pending writes when the plugin is disabled.
+     */
+    private static final int SHUTDOWN_TIMEOUT = 10;
+    /**
+     * The amount of I/O threads, for backends with a fixed amount of threads.
+     */
+    private static final int IO_THREADS = 2;
+
+    /**
+     * AreaSpawner's main class instance.
+     */
+    final private AreaSpawner plugin;
+    /**
+     * The thread starting the periodic checkpoints.
+     */
+    final private ScheduledExecutorService scheduler;
+    /**
+     * The threads every write is made from, given by the executor backend in config.
+     */
+    final private ExecutorService executor;
+    /**
+     * Every registered checkpoint along with the last version written to disk.
+     */
+    final private Map<Checkpoint, Long> checkpoints = new ConcurrentHashMap<>();
+    /**
+     * The periodic checkpoint task used for cancelling said task.
+     */
+    private ScheduledFuture<?> checkpointTask;
+
+
+    /**
+     * Creates a new PersistenceService instance, private for helping on applying Singleton pattern.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    private PersistenceService(AreaSpawner plugin){
+        this.plugin = plugin;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AreaSpawner-IO-Scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor = Settings.getInstance().getExecutorBackend().create("AreaSpawner-IO", IO_THREADS);
+        reschedule();
+    }
+
+    /**
+     * Registers a checkpoint to be periodically written to disk. The data is considered to be already saved
+     * at the moment of registering it.
+     * @param checkpoint The checkpoint to register.
+     */
+    public void register(Checkpoint checkpoint){
+        checkpoints.put(checkpoint, checkpoint.getVersion());
+    }
+
+    /**
+     * Writes a checkpoint to disk, if it changed since it was last written, and stops writing it periodically.
+     * The checkpoint is written from the calling thread.
+     * @param checkpoint The checkpoint to unregister.
+     */
+    public void unregister(Checkpoint checkpoint){
+        synchronized (checkpoint) {
+            writeIfChanged(checkpoint);
+            checkpoints.remove(checkpoint);
+        }
+    }
+
+    /**
+     * Like {@link #unregister(Checkpoint)}, but the checkpoint is written from an I/O thread, so it can be called
+     * from the main thread. Once written, the checkpoint stays registered if it turns out to be wanted again.
+     * @param checkpoint The checkpoint to unregister.
+     * @param keep Checked holding the checkpoint's lock once it is written, whether it must stay registered.
+     */
+    public void unregisterLater(Checkpoint checkpoint, BooleanSupplier keep){
+        Runnable unregister = () -> {
+            synchronized (checkpoint) {
+                writeIfChanged(checkpoint);
+                if(!keep.getAsBoolean()) checkpoints.remove(checkpoint);
+            }
+        };
+
+        try {
+            executor.execute(unregister);
+        } catch (RejectedExecutionException e) {
+            //Shutting down, nothing else will write it
+            unregister.run();
+        }
+    }
+
+    /**
+     * Cancels the current periodic checkpoint task and starts a new one with the interval given in config.
+     */
+    public void reschedule(){
+        if(checkpointTask != null) checkpointTask.cancel(false);
+        long interval = Math.max(1, Settings.getInstance().getCheckpointInterval()) * 50L;
+        checkpointTask = scheduler.scheduleWithFixedDelay(this::writeAll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes every registered checkpoint that changed since it was last written, each one from an I/O thread.
+     */
+    private void writeAll(){
+        for(Checkpoint checkpoint : checkpoints.keySet()){
+            executor.execute(() -> write(checkpoint));
+        }
+    }
+
+    /**
+     * Writes a checkpoint to disk if it changed since it was last written. Writes of the same checkpoint never
+     * overlap, as they share the same temporary file.
+     * @param checkpoint The checkpoint to write.
+     */
+    private void write(Checkpoint checkpoint){
+        synchronized (checkpoint) {
+            writeIfChanged(checkpoint);
+        }
+    }
+
+    /**
+     * Writes a checkpoint to disk if it changed since it was last written.
+     * @param checkpoint The checkpoint to write.
+     */
+    private void writeIfChanged(Checkpoint checkpoint){
+        long version = checkpoint.getVersion();
+        Long written = checkpoints.get(checkpoint);
+        //Unregistered checkpoints are never written again, a newer one might be using the same file
+        if(!checkpoint.isPersistent() || written == null || written == version) return;
+
+        long start = System.nanoTime();
+        try {
+            writeAtomically(checkpoint.getFile().toPath(), checkpoint.snapshot());
+            checkpoints.put(checkpoint, version);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Metrics.getInstance().getPersistenceTime().record(millis);
+            Logger.debug("&aSaved &f{}&a in {}ms.", checkpoint.getFile().getName(), millis);
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to save " + checkpoint.getFile().getName() + ": " + e);
+        }
+    }
+
+    /**
+     * Writes the given data to a temporary file next to the target file and then renames it to the target file.
+     * @param target The file to write.
+     * @param data The contents of the file.
+     * @throws IOException If the file could not be written.
+     */
+    private static void writeAtomically(Path target, byte[] data) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while(buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Stops the periodic checkpoints, writes whatever changed since the last checkpoint and waits for it to finish.
+     */
+    public void shutdown(){
+        if(checkpointTask != null) checkpointTask.cancel(false);
+        scheduler.shutdown();
+        writeAll();
+        executor.shutdown();
+        try {
+            if(!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out while saving files, some changes may have been lost.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Creates an instance of PersistenceService if none found.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    public static void createInstance(AreaSpawner plugin){
+        if(instance == null) instance = new PersistenceService(plugin);
+    }
+
+    /**
+     * Gets the single instance of this class. {@link #createInstance(AreaSpawner)} should be run first.
+     * @return An instance of this PersistenceService and the only one in existence.
+     */
+    public static PersistenceService getInstance(){
+        return instance;
+    }
+}
@@ -0,0 +1,674 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.utils;
+
+import com.onarandombox.MultiverseCore.MultiverseCore;
+import com.popupmc.areaspawner.AreaSpawner;
+import com.popupmc.areaspawner.spawn.Region;
+import com.popupmc.areaspawner.spawn.SpawnRules;
+import com.popupmc.areaspawner.spawn.sampling.Sampler;
+import com.popupmc.areaspawner.spawn.sampling.SamplerType;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Class containing AreaSpawner's sensible settings, loaded from the config.yml file. Every instance is an
+ * immutable snapshot of the config, reloading creates a new snapshot and swaps it with the current one, so
+ * async tasks can keep reading the snapshot they started with while the config is being reloaded.
+ *
+ * @author lelesape
+ */
+public final class Settings implements SpawnRules {
+
+    /**
+     * The current settings snapshot.
+     */
+    static final private AtomicReference<Settings> current = new AtomicReference<>();
+
+    //Settings
+    final private boolean debug;
+    final private boolean debugToConsole;
+    final private boolean demandTraceEnabled;
+    final private boolean removeUsedLocation;
+    final private boolean cacheEnabled;
+    final private boolean saveCacheToFile;
+    final private boolean validateCacheOnLoad;
+    final private boolean topToBottom;
+    final private boolean checkPastSurface;
+    final private boolean checkSafetyOnUse;
+    final private boolean deleteOnUnsafe;
+    final private boolean replaceRemovedLocation;
+    final private boolean spawnOnDeath;
+    final private boolean spawnOnFirstJoin;
+    final private boolean spawnOnBed;
+    final private boolean useAutomaticPermission;
+    final private boolean essentialsHomeOnRespawn;
+    final private boolean essentialsSetHomeOnFirstJoin;
+    final private boolean essentialsSetHomeOnTravel;
+    final private boolean travelEnabled;
+    final private boolean removePermissionOnTravel;
+    final private boolean notifyCooldownEnd;
+    final private boolean governorEnabled;
+    final private boolean unsafeChunksEnabled;
+    final private boolean surveyUseForGeneration;
+    final private boolean surveyReadRegionFiles;
+    final private boolean listIsWhitelist;
+    final private int cachedLocationsAmount;
+    final private int findSafeLocationAttempts;
+    final private int airGapAbove;
+    final private int timeBetweenLocations;
+    final private int travelCooldown;
+    final private int checkpointInterval;
+    final private int travelBurst;
+    final private int travelQueueSize;
+    final private int travelMaxWait;
+    final private int scatterTeleportsPerTick;
+    final private int scatterChunkLoadsPerTick;
+    final private int scatterTickBudget;
+    final private int scatterMinDistance;
+    final private int generationThreads;
+    final private int debugLogMaxSize;
+    final private int debugLogFiles;
+    final private int demandTraceMaxSize;
+    final private int maxGenerationJobs;
+    final private int governorMaxTickTime;
+    final private int unsafeChunkRejections;
+    final private int heatmapGridSize;
+    final private int unsafeChunksCapacity;
+    final private int governorIdleTickTime;
+    final private int governorBurst;
+    final private int governorChunkLoadsPerMinute;
+    final private int governorMinFreeMemory;
+    final private int surveyChunksPerTick;
+    final private int surveyMaxLoadedRegions;
+    final private double travelsPerSecond;
+    final private double generationTickBudget;
+    final private double heatmapExploration;
+    final private double surveyTickBudget;
+    final private String prefix;
+    final private ExecutorBackend executorBackend;
+    final private SamplerType samplerType;
+    final private long samplerSeed;
+    final private Sampler sampler;
+    final private String worldName;
+    final private String firstJoinHomeName;
+    final private String travelHomeName;
+    final private Set<String> blockList;
+    final private World world;
+    final private Region allowedRegion;
+    final private Region forbiddenRegion;
+
+    /**
+     * Creates a new Settings snapshot from the config, private for helping on applying Singleton pattern.
+     * @param config The plugin's config.
+     * @param previous The previous snapshot, whose sampler is kept if its settings did not change, or null.
+     */
+    private Settings(FileConfiguration config, Settings previous){
+        this.debug = config.getBoolean("debug");
+        this.debugToConsole = config.getBoolean("debug to console", true);
+        this.debugLogMaxSize = config.getInt("debug log max size", 5);
+        this.debugLogFiles = config.getInt("debug log files", 3);
+        this.demandTraceEnabled = config.getBoolean("demand trace.enabled");
+        this.demandTraceMaxSize = config.getInt("demand trace.max size", 16);
+        this.removeUsedLocation = config.getBoolean("delete location on use");
+        this.cacheEnabled = config.getBoolean("enable cache");
+        this.saveCacheToFile = config.getBoolean("save cache to file");
+        this.validateCacheOnLoad = config.getBoolean("validate cache on load");
+        this.topToBottom = config.getBoolean("top to bottom");
+        this.checkPastSurface = config.getBoolean("check past surface");
+        this.checkSafetyOnUse = config.getBoolean("re-check for safety on use");
+        this.deleteOnUnsafe = config.getBoolean("delete location on unsafe");
+        this.replaceRemovedLocation = config.getBoolean("replace location on remove");
+        this.spawnOnDeath = config.getBoolean("spawn on death");
+        this.spawnOnFirstJoin = config.getBoolean("spawn on first join");
+        this.spawnOnBed = config.getBoolean("spawn on bed");
+        this.useAutomaticPermission = config.getBoolean("use permission");
+        boolean essentialsEnabled = Bukkit.getPluginManager().getPlugin("Essentials") != null && Bukkit.getPluginManager().isPluginEnabled("Essentials");
+        this.essentialsHomeOnRespawn = config.getBoolean("essentials home teleport") && essentialsEnabled;
+        this.essentialsSetHomeOnFirstJoin = config.getBoolean("essentials home on first spawn") && essentialsEnabled;
+        this.essentialsSetHomeOnTravel = config.getBoolean("home on travel") && essentialsEnabled;
+        this.travelEnabled = config.getBoolean("travel enabled");
+        this.removePermissionOnTravel = config.getBoolean("remove permission on travel");
+        this.notifyCooldownEnd = config.getBoolean("notify cooldown end");
+        this.listIsWhitelist = config.getBoolean("list is whitelist");
+
+        this.findSafeLocationAttempts = config.getInt("safe spawn attempts");
+        this.cachedLocationsAmount = config.getInt("amount of cached spawns");
+        this.airGapAbove = config.getInt("air gap above");
+        this.travelsPerSecond = config.getDouble("travel queue.travels per second", 2);
+        this.travelBurst = config.getInt("travel queue.burst", 5);
+        this.travelQueueSize = config.getInt("travel queue.max size", 100);
+        this.scatterTeleportsPerTick = config.getInt("scatter.teleports per tick", 10);
+        this.scatterChunkLoadsPerTick = config.getInt("scatter.chunk loads per tick", 4);
+        this.scatterTickBudget = config.getInt("scatter.tick budget", 10);
+        this.scatterMinDistance = config.getInt("scatter.minimum distance", 32);
+        this.generationThreads = config.getInt("generation threads", 1);
+        this.maxGenerationJobs = config.getInt("max generation jobs", 64);
+        this.executorBackend = ExecutorBackend.fromString(config.getString("executor backend"));
+        this.samplerType = SamplerType.fromString(config.getString("sampler"));
+        this.samplerSeed = config.getLong("sampler seed", 0);
+        this.generationTickBudget = config.getDouble("generation tick budget", 2);
+        this.unsafeChunksEnabled = config.getBoolean("unsafe chunks.enabled", true);
+        this.unsafeChunkRejections = config.getInt("unsafe chunks.rejections", 4);
+        this.unsafeChunksCapacity = config.getInt("unsafe chunks.capacity", 100_000);
+        this.governorEnabled = config.getBoolean("generation governor.enabled", true);
+        this.governorMaxTickTime = config.getInt("generation governor.max tick time", 55);
+        this.governorIdleTickTime = config.getInt("generation governor.idle tick time", 25);
+        this.governorBurst = config.getInt("generation governor.burst locations", 5);
+        this.governorChunkLoadsPerMinute = config.getInt("generation governor.chunk loads per minute", 600);
+        this.governorMinFreeMemory = config.getInt("generation governor.min free memory", 20);
+        this.surveyUseForGeneration = config.getBoolean("survey.use for generation", true);
+        this.surveyReadRegionFiles = config.getBoolean("survey.read region files", true);
+        this.surveyTickBudget = config.getDouble("survey.tick budget", 5);
+        this.surveyChunksPerTick = config.getInt("survey.chunks per tick", 2);
+        this.surveyMaxLoadedRegions = config.getInt("survey.max loaded regions", 16);
+        this.timeBetweenLocations = getTicks(config.getString("time between generating locations"), TimeUnit.getTicks(3, TimeUnit.SECONDS));
+        this.travelCooldown = getTicks(config.getString("travel cooldown"), TimeUnit.getTicks(0, TimeUnit.SECONDS));
+        this.checkpointInterval = getTicks(config.getString("cache save interval"), TimeUnit.getTicks(5, TimeUnit.MINUTES));
+        this.travelMaxWait = getTicks(config.getString("travel queue.max wait"), TimeUnit.getTicks(30, TimeUnit.SECONDS));
+
+        this.prefix = config.getString("prefix");
+        this.worldName = config.getString("spawn world");
+        this.firstJoinHomeName = config.getString("home on first spawn name");
+        this.travelHomeName = config.getString("home on travel name");
+
+        this.blockList = Collections.unmodifiableSet(new HashSet<>(config.getStringList("block list")));
+
+        this.world = Bukkit.getWorld(worldName);
+
+        this.allowedRegion = createAllowedRegion(config, world);
+        this.forbiddenRegion = createForbiddenRegion(config);
+        Logger.debug("Spawn region: {}", allowedRegion);
+        Logger.debug("No spawn region: {}", forbiddenRegion);
+
+        this.heatmapGridSize = config.getInt("heatmap.grid size", 32);
+        this.heatmapExploration = config.getDouble("heatmap.exploration", 0.1);
+        //Keeping the sampler keeps seeded and Halton sequences going and the heatmap learned across reloads
+        this.sampler = previous == null || isSamplerChanged(previous) ? samplerType.create(this) : previous.sampler;
+    }
+
+    /**
+     * Translates a time string from config (i.e: "5M") into ticks.
+     * @param timeString The time string, a number followed by a {@link TimeUnit} alias.
+     * @param def The amount of ticks to use if the time string is missing or its amount is not a number.
+     * @return The amount of ticks the given time string represents.
+     */
+    private static int getTicks(String timeString, int def){
+        if(timeString != null && timeString.length() > 1) {
+            try {
+                return TimeUnit.getTicks(Integer.parseInt(timeString.substring(0, timeString.length() - 1).trim()), timeString.charAt(timeString.length() - 1));
+            } catch (NumberFormatException e) {
+                Logger.debug("&cInvalid time \"{}\" in config, using the default instead.", timeString);
+            }
+        }
+        return def;
+    }
+
+    /**
+     * Creates the spawn region with the criteria given in the config file.
+     * @param config The config file.
+     * @param world The spawn world.
+     * @return The region players are allowed to spawn in.
+     */
+    private static Region createAllowedRegion(FileConfiguration config, World world){
+        boolean multiverseEnabled = Bukkit.getPluginManager().getPlugin("Multiverse-Core") != null && Bukkit.getPluginManager().isPluginEnabled("Multiverse-Core");
+
+        boolean clampToLimits = config.getBoolean("spawn zone.clamp to limits");
+
+        int xCenter;
+        int yCenter;
+        int zCenter;
+
+        //Multiverse, essentials and vanilla spawnpoints.
+        if(config.getInt("spawn zone.x center") == -1) {
+            if(config.getBoolean("spawn zone.default to multiverse") && multiverseEnabled){
+                xCenter = JavaPlugin.getPlugin(MultiverseCore.class).getMVWorldManager().getMVWorld(world).getSpawnLocation().getBlockX();
+            }else{
+                xCenter = world.getSpawnLocation().getBlockX();
+            }
+        }else{
+            xCenter = config.getInt("spawn zone.x center");
+        }
+
+        //Multiverse, essentials and vanilla spawnpoints.
+        if(config.getInt("spawn zone.y center") == -1) {
+            if(config.getBoolean("spawn zone.default to multiverse") && multiverseEnabled){
+                yCenter = JavaPlugin.getPlugin(MultiverseCore.class).getMVWorldManager().getMVWorld(world).getSpawnLocation().getBlockY();
+            }else{
+                yCenter = world.getSpawnLocation().getBlockY();
+            }
+        }else{
+            yCenter = config.getInt("spawn zone.y center");
+        }
+
+        //Multiverse, essentials and vanilla spawnpoints.
+        if(config.getInt("spawn zone.z center") == -1) {
+            if(config.getBoolean("spawn zone.default to multiverse") && multiverseEnabled){
+                zCenter = JavaPlugin.getPlugin(MultiverseCore.class).getMVWorldManager().getMVWorld(world).getSpawnLocation().getBlockZ();
+            }else{
+                zCenter = world.getSpawnLocation().getBlockZ();
+            }
+        }else{
+            zCenter = config.getInt("spawn zone.z center");
+        }
+
+        return Region.newSpawnRegion(xCenter, yCenter, zCenter,
+                config.getInt("spawn zone.x range"), config.getInt("spawn zone.y range"), config.getInt("spawn zone.z range"),
+                clampToLimits);
+    }
+
+    /**
+     * Creates the no spawn region with the criteria given in the config file.
+     * @param config The config file.
+     * @return The region players are not allowed to spawn in.
+     */
+    private static Region createForbiddenRegion(FileConfiguration config) {
+        boolean enabled = config.getBoolean("no spawn zone.enabled");
+
+        int xCenter = enabled ? config.getInt("spawn zone.x center"): 0;
+        int zCenter = enabled ? config.getInt("spawn zone.z center"): 0;
+
+        int xRange = enabled ? config.getInt("no spawn zone.x range") : 0;
+        int zRange = enabled ? config.getInt("no spawn zone.z range") : 0;
+
+        return Region.newRegionByRanges(xCenter, 0, zCenter,
+                xRange, 0, zRange);
+    }
+
+
+
+
+    //Fields getters
+
+    public boolean isDebug(){
+        return debug;
+    }
+
+    public boolean isDebugToConsole(){
+        return debugToConsole;
+    }
+
+    public int getDebugLogMaxSize(){
+        return debugLogMaxSize;
+    }
+
+    public int getDebugLogFiles(){
+        return debugLogFiles;
+    }
+
+    public boolean isDemandTraceEnabled(){
+        return demandTraceEnabled;
+    }
+
+    public int getDemandTraceMaxSize(){
+        return demandTraceMaxSize;
+    }
+
+    public boolean isRemoveUsedLocation(){
+        return removeUsedLocation;
+    }
+
+    public boolean isCacheEnabled(){
+        return cacheEnabled;
+    }
+
+    public boolean isSaveCacheToFile(){
+        return saveCacheToFile;
+    }
+
+    public boolean isValidateCacheOnLoad(){
+        return validateCacheOnLoad;
+    }
+
+    public boolean isTopToBottom(){
+        return topToBottom;
+    }
+
+    public boolean isNotCheckPastSurface(){
+        return !checkPastSurface;
+    }
+
+    public boolean isCheckSafetyOnUse(){
+        return checkSafetyOnUse;
+    }
+
+    public boolean isDeleteOnUnsafe(){
+        return deleteOnUnsafe;
+    }
+
+    public boolean isReplaceRemovedLocation(){
+        return replaceRemovedLocation;
+    }
+
+    public boolean isSpawnOnDeath(){
+        return spawnOnDeath;
+    }
+
+    public boolean isSpawnOnFirstJoin(){
+        return spawnOnFirstJoin;
+    }
+
+    public boolean isSpawnOnBed(){
+        return spawnOnBed;
+    }
+
+    public boolean isNotUseAutomaticPermission(){
+        return !useAutomaticPermission;
+    }
+
+    public boolean isEssentialsHomeOnRespawn(){
+        return essentialsHomeOnRespawn;
+    }
+
+    public boolean isEssentialsSetHomeOnFirstJoin(){
+        return essentialsSetHomeOnFirstJoin;
+    }
+
+    public boolean isEssentialsSetHomeOnTravel(){
+        return essentialsSetHomeOnTravel;
+    }
+
+    public boolean isTravelEnabled(){
+        return travelEnabled;
+    }
+
+    public boolean isRemovePermissionOnTravel(){
+        return removePermissionOnTravel;
+    }
+
+    public boolean isNotifyCooldownEnd(){
+        return notifyCooldownEnd;
+    }
+
+    public boolean isListIsWhitelist(){
+        return listIsWhitelist;
+    }
+
+    public int getFindSafeLocationAttempts(){
+        return findSafeLocationAttempts;
+    }
+
+    public int getCachedLocationsAmount(){
+        return cachedLocationsAmount;
+    }
+
+    public int getAirGapAbove(){
+        return airGapAbove;
+    }
+
+    public int getTimeBetweenLocations(){
+        return timeBetweenLocations;
+    }
+
+    public int getTravelCooldown(){
+        return travelCooldown;
+    }
+
+    public int getCheckpointInterval(){
+        return checkpointInterval;
+    }
+
+    public double getTravelsPerSecond(){
+        return travelsPerSecond;
+    }
+
+    public int getTravelBurst(){
+        return travelBurst;
+    }
+
+    public int getTravelQueueSize(){
+        return travelQueueSize;
+    }
+
+    public int getTravelMaxWait(){
+        return travelMaxWait;
+    }
+
+    public int getScatterTeleportsPerTick(){
+        return scatterTeleportsPerTick;
+    }
+
+    public int getScatterChunkLoadsPerTick(){
+        return scatterChunkLoadsPerTick;
+    }
+
+    public int getScatterTickBudget(){
+        return scatterTickBudget;
+    }
+
+    public int getScatterMinDistance(){
+        return scatterMinDistance;
+    }
+
+    public int getGenerationThreads(){
+        return generationThreads;
+    }
+
+    public int getMaxGenerationJobs(){
+        return maxGenerationJobs;
+    }
+
+    public ExecutorBackend getExecutorBackend(){
+        return executorBackend;
+    }
+
+    public SamplerType getSamplerType(){
+        return samplerType;
+    }
+
+    public long getSamplerSeed(){
+        return samplerSeed;
+    }
+
+    public int getHeatmapGridSize(){
+        return heatmapGridSize;
+    }
+
+    public double getHeatmapExploration(){
+        return heatmapExploration;
+    }
+
+    public Sampler getSampler(){
+        return sampler;
+    }
+
+    public double getGenerationTickBudget(){
+        return generationTickBudget;
+    }
+
+    public boolean isUnsafeChunksEnabled(){
+        return unsafeChunksEnabled;
+    }
+
+    public int getUnsafeChunkRejections(){
+        return unsafeChunkRejections;
+    }
+
+    public int getUnsafeChunksCapacity(){
+        return unsafeChunksCapacity;
+    }
+
+    public boolean isGovernorEnabled(){
+        return governorEnabled;
+    }
+
+    public int getGovernorMaxTickTime(){
+        return governorMaxTickTime;
+    }
+
+    public int getGovernorIdleTickTime(){
+        return governorIdleTickTime;
+    }
+
+    public int getGovernorBurst(){
+        return governorBurst;
+    }
+
+    public int getGovernorChunkLoadsPerMinute(){
+        return governorChunkLoadsPerMinute;
+    }
+
+    public int getGovernorMinFreeMemory(){
+        return governorMinFreeMemory;
+    }
+
+    public boolean isSurveyUseForGeneration(){
+        return surveyUseForGeneration;
+    }
+
+    public boolean isSurveyReadRegionFiles(){
+        return surveyReadRegionFiles;
+    }
+
+    public double getSurveyTickBudget(){
+        return surveyTickBudget;
+    }
+
+    public int getSurveyChunksPerTick(){
+        return surveyChunksPerTick;
+    }
+
+    public int getSurveyMaxLoadedRegions(){
+        return surveyMaxLoadedRegions;
+    }
+
+    public String getPrefix(){
+        return prefix;
+    }
+
+    public String getWorldName(){
+        return worldName;
+    }
+
+    public String getFirstJoinHomeName(){
+        return firstJoinHomeName;
+    }
+
+    public String getTravelHomeName(){
+        return travelHomeName;
+    }
+
+    public Set<String> getBlockList(){
+        return blockList;
+    }
+
+    public World getWorld(){
+        return world;
+    }
+
+    public Region getAllowedRegion(){
+        return allowedRegion;
+    }
+
+    public Region getForbiddenRegion(){
+        return forbiddenRegion;
+    }
+
+
+    //Comparisons with other snapshots
+
+    /**
+     * Checks if the spawn world is different in the given settings.
+     * @param other The settings to compare to.
+     * @return true if the world locations are generated for changed.
+     */
+    public boolean isWorldChanged(Settings other){
+        return worldName == null ? other.worldName != null : !worldName.equals(other.worldName);
+    }
+
+    /**
+     * Checks if the spawn zone or the no spawn zone are different in the given settings.
+     * @param other The settings to compare to.
+     * @return true if any of the regions changed.
+     */
+    public boolean isRegionsChanged(Settings other){
+        return !allowedRegion.equals(other.allowedRegion) || !forbiddenRegion.equals(other.forbiddenRegion);
+    }
+
+    /**
+     * Checks if the sampler or what it samples are different in the given settings.
+     * @param other The settings to compare to.
+     * @return true if the sampler type, its seed, the heatmap settings, the spawn world or the spawn zone changed.
+     */
+    public boolean isSamplerChanged(Settings other){
+        return samplerType != other.samplerType || samplerSeed != other.samplerSeed || heatmapGridSize != other.heatmapGridSize
+                || heatmapExploration != other.heatmapExploration || isWorldChanged(other) || !allowedRegion.equals(other.allowedRegion);
+    }
+
+    /**
+     * Checks if the rules deciding whether a block is safe are different in the given settings.
+     * @param other The settings to compare to.
+     * @return true if the block list, its type or the air gap changed.
+     */
+    public boolean isBlockRulesChanged(Settings other){
+        return listIsWhitelist != other.listIsWhitelist || airGapAbove != other.airGapAbove || !blockList.equals(other.blockList);
+    }
+
+    /**
+     * Checks if the amount of locations to cache is different in the given settings.
+     * @param other The settings to compare to.
+     * @return true if the amount of cached spawns changed.
+     */
+    public boolean isAmountChanged(Settings other){
+        return cachedLocationsAmount != other.cachedLocationsAmount;
+    }
+
+
+    /**
+     * Creates the first settings snapshot if none found.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    public static void createInstance(AreaSpawner plugin){
+        createInstance(plugin.getConfig());
+    }
+
+    /**
+     * Creates the first settings snapshot from the given config if none found, without the plugin, i.e: in tests.
+     * @param config The config to read the settings from.
+     */
+    public static void createInstance(FileConfiguration config){
+        current.compareAndSet(null, new Settings(config, null));
+        Logger.setDebug(current.get().isDebug());
+    }
+
+    /**
+     * Creates a new settings snapshot from the config and makes it the current one.
+     * @param plugin AreaSpawner's main class instance.
+     * @return The previous settings snapshot.
+     */
+    public static Settings reload(AreaSpawner plugin){
+        Settings previous = current.get();
+        current.set(new Settings(plugin.getConfig(), previous));
+        Logger.setDebug(current.get().isDebug());
+        return previous;
+    }
+
+    /**
+     * Gets the current settings snapshot. {@link #createInstance(AreaSpawner)} should be run first. Tasks reading
+     * settings more than once should keep the returned snapshot instead of calling this again.
+     * @return The current settings snapshot.
+     */
+    public static Settings getInstance(){
+        return current.get();
+    }
+}
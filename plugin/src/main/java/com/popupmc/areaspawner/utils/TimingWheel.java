@@ -0,0 +1,219 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel, schedules keys to expire at a given time. Scheduling, cancelling and expiring a key
+ * cost O(1), and memory only depends on the amount of keys currently scheduled.
+ * Each level has {@link #SLOTS} slots, every slot in a level spans as much time as a whole level below it.
+ * Keys far in the future sit in upper levels and cascade down as time passes.
+ * This class is not thread safe, it is meant to be used from the main thread only.
+ *
+ * @param <K> The type of the keys to schedule.
+ * @author lelesape
+ */
+public class TimingWheel<K> {
+
+    /**
+     * The amount of bits needed for indexing the slots of a level.
+     */
+    private static final int SLOT_BITS = 6;
+    /**
+     * The amount of slots per level.
+     */
+    private static final int SLOTS = 1 << SLOT_BITS;
+    /**
+     * The slot index mask.
+     */
+    private static final int SLOT_MASK = SLOTS - 1;
+    /**
+     * The amount of levels, with one second ticks the top level spans roughly 194 days.
+     */
+    private static final int LEVELS = 4;
+
+    /**
+     * The milliseconds every wheel tick represents.
+     */
+    final private long tickMillis;
+    /**
+     * Every level's slots, each slot is the head of a doubly linked list of nodes.
+     */
+    final private Node<K>[][] wheels;
+    /**
+     * The node of every scheduled key, for cancelling and rescheduling in O(1).
+     */
+    final private Map<K, Node<K>> nodes = new HashMap<>();
+    /**
+     * The next tick to be processed.
+     */
+    private long currentTick;
+
+
+    /**
+     * Creates a new timing wheel.
+     * @param tickMillis The resolution of the wheel in milliseconds, keys expire at most this late.
+     * @param now The current time in milliseconds.
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long now){
+        this.tickMillis = tickMillis;
+        this.wheels = new Node[LEVELS][SLOTS];
+        this.currentTick = now / tickMillis;
+    }
+
+    /**
+     * Schedules a key to expire at the given time, replacing any previous schedule for said key.
+     * @param key The key to schedule.
+     * @param deadline The time in milliseconds at which the key expires.
+     */
+    public void schedule(K key, long deadline){
+        cancel(key);
+        Node<K> node = new Node<>(key, (deadline + tickMillis - 1) / tickMillis);
+        nodes.put(key, node);
+        place(node);
+    }
+
+    /**
+     * Removes a key from the wheel.
+     * @param key The key to remove.
+     * @return true if the key was scheduled.
+     */
+    public boolean cancel(K key){
+        Node<K> node = nodes.remove(key);
+        if(node == null) return false;
+        unlink(node);
+        return true;
+    }
+
+    /**
+     * Advances the wheel up to the given time, expiring every key whose time has come.
+     * @param now The current time in milliseconds.
+     * @param expired Receives every expired key.
+     */
+    public void advance(long now, Consumer<K> expired){
+        long targetTick = now / tickMillis;
+
+        while(currentTick <= targetTick){
+            int slot = (int) (currentTick & SLOT_MASK);
+
+            //Move the next slot of each upper level down when the level below completes a lap.
+            for (int level = 1; level < LEVELS && ((currentTick >> (SLOT_BITS * (level - 1))) & SLOT_MASK) == 0; level++) {
+                cascade(level, (int) ((currentTick >> (SLOT_BITS * level)) & SLOT_MASK));
+            }
+
+            Node<K> node = wheels[0][slot];
+            wheels[0][slot] = null;
+            while(node != null){
+                Node<K> next = node.next;
+                node.prev = node.next = null;
+                if(node.deadlineTick <= currentTick) {
+                    nodes.remove(node.key);
+                    expired.accept(node.key);
+                }else {
+                    place(node);
+                }
+                node = next;
+            }
+
+            currentTick++;
+        }
+    }
+
+    /**
+     * Gets the amount of keys currently scheduled.
+     * @return The amount of scheduled keys.
+     */
+    public int size(){
+        return nodes.size();
+    }
+
+    /**
+     * Re-places every node in the given slot, which moves them to lower levels.
+     * @param level The level of the slot.
+     * @param slot The slot to cascade.
+     */
+    private void cascade(int level, int slot){
+        Node<K> node = wheels[level][slot];
+        wheels[level][slot] = null;
+        while(node != null){
+            Node<K> next = node.next;
+            node.prev = node.next = null;
+            place(node);
+            node = next;
+        }
+    }
+
+    /**
+     * Puts a node in the slot of the lowest level able to hold its deadline.
+     * @param node The node to place.
+     */
+    private void place(Node<K> node){
+        long deadline = Math.max(node.deadlineTick, currentTick);
+        long delta = deadline - currentTick;
+
+        int level = 0;
+        while(level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) level++;
+        if(delta >= 1L << (SLOT_BITS * LEVELS)) {
+            //Too far in the future, park it in the farthest slot, it will be placed again once cascaded.
+            deadline = currentTick + (1L << (SLOT_BITS * LEVELS)) - 1;
+        }
+
+        int slot = (int) ((deadline >> (SLOT_BITS * level)) & SLOT_MASK);
+        Node<K> head = wheels[level][slot];
+        node.level = level;
+        node.slot = slot;
+        node.next = head;
+        if(head != null) head.prev = node;
+        wheels[level][slot] = node;
+    }
+
+    /**
+     * Removes a node from the slot it is in.
+     * @param node The node to remove.
+     */
+    private void unlink(Node<K> node){
+        if(node.prev != null) {
+            node.prev.next = node.next;
+        }else if(wheels[node.level][node.slot] == node) {
+            wheels[node.level][node.slot] = node.next;
+        }
+        if(node.next != null) node.next.prev = node.prev;
+        node.prev = node.next = null;
+    }
+
+
+    /**
+     * A scheduled key, linked to the other keys in the same slot.
+     * @param <K> The type of the key.
+     */
+    private static final class Node<K> {
+        final private K key;
+        final private long deadlineTick;
+        private int level;
+        private int slot;
+        private Node<K> prev;
+        private Node<K> next;
+
+        private Node(K key, long deadlineTick){
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
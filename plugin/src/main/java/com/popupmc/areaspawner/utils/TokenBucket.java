@@ -0,0 +1,83 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.utils;
+
+/**
+ * Token bucket rate limiter. Tokens are added at a constant rate up to a maximum, and every action consumes one.
+ * This class is not thread safe.
+ *
+ * @author lelesape
+ */
+public class TokenBucket {
+
+    /**
+     * The amount of tokens added every nanosecond.
+     */
+    final private double tokensPerNano;
+    /**
+     * The maximum amount of tokens the bucket can hold.
+     */
+    final private double capacity;
+    /**
+     * The amount of tokens currently in the bucket.
+     */
+    private double tokens;
+    /**
+     * The last time, in nanoseconds, tokens were added to the bucket.
+     */
+    private long lastRefill;
+
+    /**
+     * Creates a new full token bucket.
+     * @param tokensPerSecond The amount of tokens added every second.
+     * @param capacity The maximum amount of tokens the bucket can hold, at least 1.
+     */
+    public TokenBucket(double tokensPerSecond, double capacity){
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000D;
+        this.capacity = Math.max(1, capacity);
+        this.tokens = this.capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Consumes a token if there is one available.
+     * @return true if a token was consumed.
+     */
+    public boolean tryAcquire(){
+        refill();
+        if(tokens < 1) return false;
+        tokens--;
+        return true;
+    }
+
+    /**
+     * Checks if there is a token available, without consuming it.
+     * @return true if a token is available.
+     */
+    public boolean isAvailable(){
+        refill();
+        return tokens >= 1;
+    }
+
+    /**
+     * Adds the tokens generated since the last refill.
+     */
+    private void refill(){
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,214 @@
+package com.popupmc.areaspawner.utils;
+
+import com.popupmc.areaspawner.AreaSpawner;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class for managing players that are on cooldown and checking if a player is on cooldown.
+ * Cooldowns are kept in memory and written to the cooldown file in the background by the {@link PersistenceService},
+ * and are removed from memory by a {@link TimingWheel} as soon as they expire.
+ *
+ * @author lelesape
+ */
+public class TravelCooldownManager implements Checkpoint {
+
+    /**
+     * The only instance for this class.
+     */
+    private static TravelCooldownManager instance;
+    /**
+     * The resolution in milliseconds at which cooldowns expire.
+     */
+    private static final long EXPIRY_RESOLUTION = 1000;
+
+    /**
+     * AreaSpawner's main class instance.
+     */
+    final private AreaSpawner plugin;
+    /**
+     * The system time in milliseconds at which every player on cooldown will be able to travel again.
+     */
+    final private Map<UUID, Long> cooldowns = new ConcurrentHashMap<>();
+    /**
+     * Schedules every player on cooldown to be removed from the cooldown once it ends. Main thread only.
+     */
+    final private TimingWheel<UUID> expirations = new TimingWheel<>(EXPIRY_RESOLUTION, System.currentTimeMillis());
+    /**
+     * Incremented every time a player is added to the cooldown, used for knowing when the cooldown file is outdated.
+     */
+    final private AtomicLong version = new AtomicLong();
+    /**
+     * The header of the cooldown file, kept for writing it back on every save.
+     */
+    final private String cooldownFileHeader;
+
+    /**
+     * Creates an instance of this manager.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    private TravelCooldownManager(AreaSpawner plugin){
+        this.plugin = plugin;
+        this.cooldownFileHeader = plugin.getCooldownYaml().getAccess().options().header();
+        loadFromFile();
+        PersistenceService.getInstance().register(this);
+
+        new BukkitRunnable(){
+
+            @Override
+            public void run(){
+                expirations.advance(System.currentTimeMillis(), TravelCooldownManager.this::expire);
+            }
+
+        }.runTaskTimer(plugin, 20, EXPIRY_RESOLUTION / 50);
+    }
+
+    /**
+     * Removes a player from the cooldown once it ends, and lets them know if they are online and
+     * "notify cooldown end" is enabled in config.
+     * @param player The unique id of the player whose cooldown ended.
+     */
+    private void expire(UUID player){
+        Long expiry = cooldowns.get(player);
+        if(expiry != null && expiry <= System.currentTimeMillis()) cooldowns.remove(player, expiry);
+
+        if(Settings.getInstance().isNotifyCooldownEnd()) {
+            Player online = Bukkit.getPlayer(player);
+            if(online != null) {
+                Logger.send(online, plugin.getMessagesYaml().getAccess().getString("messages.travel cooldown ended"));
+            }
+        }
+    }
+
+    /**
+     * Loads every cooldown that has not expired yet from the cooldown file.
+     */
+    private void loadFromFile(){
+        FileConfiguration cooldownFile = plugin.getCooldownYaml().getAccess();
+        ConfigurationSection section = cooldownFile.getConfigurationSection("cooldowns");
+        long now = System.currentTimeMillis();
+
+        if(section != null) {
+            for (String key : section.getKeys(false)) {
+                long expiry = section.getLong(key);
+                if(expiry <= now) continue;
+                try {
+                    UUID player = UUID.fromString(key);
+                    cooldowns.put(player, expiry);
+                    expirations.schedule(player, expiry);
+                } catch (IllegalArgumentException e) {
+                    Logger.debug("&cInvalid player id in the cooldown file: {}", key);
+                }
+            }
+        }
+        //Cooldowns are no longer read from the file once loaded.
+        cooldownFile.set("cooldowns", null);
+        cooldownFile.set("cooldown", null);
+    }
+
+
+    /**
+     * Returns the amount of milliseconds the given player has to wait before traveling again.
+     * @param player The unique id of the player to look for.
+     * @return The milliseconds left for the player to travel again.
+     */
+    public long getTimeLeft(UUID player){
+        Long expiry = cooldowns.get(player);
+        if(expiry == null) return 0;
+
+        long timeLeft = expiry - System.currentTimeMillis();
+        if(timeLeft <= 0) cooldowns.remove(player, expiry);
+        return timeLeft;
+    }
+
+    /**
+     * Puts a player on cooldown, for the amount of time given in config, starting now. Must be called from the
+     * main thread.
+     * @param player The unique id of the player to add to the cooldown.
+     */
+    public void addToCooldown(UUID player){
+        long cooldownMillis = TimeUnit.SECONDS.toMillis(Settings.getInstance().getTravelCooldown()/20);
+        if(cooldownMillis <= 0) return;
+
+        long expiry = System.currentTimeMillis() + cooldownMillis;
+        cooldowns.put(player, expiry);
+        expirations.schedule(player, expiry);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Gets the cooldown file, where cooldowns are saved to.
+     * @return The cooldown file.
+     */
+    @Override
+    public File getFile(){
+        return plugin.getCooldownYaml().getFile();
+    }
+
+    /**
+     * Gets the current version of the cooldowns, changes every time a player is added to the cooldown.
+     * @return The current version of the cooldowns.
+     */
+    @Override
+    public long getVersion(){
+        return version.get();
+    }
+
+    /**
+     * Cooldowns are always saved to the cooldown file.
+     * @return true.
+     */
+    @Override
+    public boolean isPersistent(){
+        return true;
+    }
+
+    /**
+     * Serializes every cooldown that has not expired yet to the cooldown file format. Expired cooldowns are removed.
+     * @return The contents of the cooldown file.
+     */
+    @Override
+    public byte[] snapshot(){
+        YamlConfiguration cooldownFile = new YamlConfiguration();
+        long now = System.currentTimeMillis();
+
+        cooldownFile.options().header(cooldownFileHeader);
+        for(Map.Entry<UUID, Long> entry : cooldowns.entrySet()){
+            if(entry.getValue() <= now) {
+                cooldowns.remove(entry.getKey(), entry.getValue());
+                continue;
+            }
+            cooldownFile.set("cooldowns." + entry.getKey(), entry.getValue());
+        }
+
+        return cooldownFile.saveToString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates an instance of TravelCooldownManager if none found.
+     * @param plugin AreaSpawner's main class instance.
+     */
+    public static void createInstance(AreaSpawner plugin){
+        if(instance == null) instance = new TravelCooldownManager(plugin);
+    }
+
+    /**
+     * Gets the single instance of this class. {@link #createInstance(AreaSpawner)} should be run first.
+     * @return An instance of this TravelCooldownManager and the only one in existence.
+     */
+    public static TravelCooldownManager getInstance(){
+        return instance;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.plugin.PluginManager;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * The least Bukkit needs for reading settings and serializing locations without a server: a server with a single
+ * world and no plugins, answering nothing else. Shared with the benchmarks through this module's test jar.
+ *
+ * @author lelesape
+ */
+public final class FakeServer {
+
+    /**
+     * The name of the only world.
+     */
+    public static final String WORLD_NAME = "world";
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private FakeServer(){}
+
+    /**
+     * Sets a fake server as Bukkit's server, if there is none yet.
+     * @return The server's only world.
+     */
+    public static synchronized World install(){
+        if(Bukkit.getServer() == null) {
+            UUID uid = UUID.nameUUIDFromBytes(WORLD_NAME.getBytes());
+            World world = create(World.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getName":
+                        return WORLD_NAME;
+                    case "getUID":
+                        return uid;
+                    case "getMaxHeight":
+                        return 256;
+                    default:
+                        return getDefault(proxy, method.getName(), method.getReturnType(), args);
+                }
+            });
+            PluginManager pluginManager = create(PluginManager.class, (proxy, method, args) ->
+                    getDefault(proxy, method.getName(), method.getReturnType(), args));
+            Logger logger = Logger.getLogger("FakeServer");
+            Bukkit.setServer(create(Server.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getName":
+                    case "getVersion":
+                    case "getBukkitVersion":
+                        return "FakeServer";
+                    case "getLogger":
+                        return logger;
+                    case "getPluginManager":
+                        return pluginManager;
+                    case "getWorld":
+                        return WORLD_NAME.equals(args[0]) || uid.equals(args[0]) ? world : null;
+                    default:
+                        return getDefault(proxy, method.getName(), method.getReturnType(), args);
+                }
+            }));
+        }
+        return Bukkit.getServer().getWorld(WORLD_NAME);
+    }
+
+    /**
+     * Creates an object answering every method of an interface with the given handler.
+     * @param type The interface.
+     * @param handler The handler.
+     * @param <T> The interface's type.
+     * @return The new object.
+     */
+    private static <T> T create(Class<T> type, InvocationHandler handler){
+        return type.cast(Proxy.newProxyInstance(FakeServer.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    /**
+     * Answers the methods every object has and gives an empty value for everything else.
+     * @param proxy The object the method was called on.
+     * @param name The method's name.
+     * @param returnType The method's return type.
+     * @param args The method's arguments.
+     * @return The value to return.
+     */
+    private static Object getDefault(Object proxy, String name, Class<?> returnType, Object[] args){
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "FakeServer";
+        }
+        if(returnType == boolean.class) return false;
+        if(returnType == int.class) return 0;
+        if(returnType == long.class) return 0L;
+        if(returnType == double.class) return 0.0;
+        if(returnType == float.class) return 0f;
+        if(returnType == short.class) return (short) 0;
+        if(returnType == byte.class) return (byte) 0;
+        if(returnType == char.class) return '\0';
+        return null;
+    }
+}
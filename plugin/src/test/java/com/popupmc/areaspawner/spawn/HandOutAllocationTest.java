@@ -0,0 +1,135 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.spawn;
+
+import com.popupmc.areaspawner.FakeServer;
+import com.popupmc.areaspawner.spawn.sampling.Sampler;
+import com.popupmc.areaspawner.utils.Metrics;
+import com.popupmc.areaspawner.utils.Settings;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the cached spawn hand-out path stays within its allocation budget once warmed up: nothing for picking
+ * and removing a location from the pool, and only the returned location for a cache hit.
+ *
+ * @author lelesape
+ */
+class HandOutAllocationTest {
+
+    /**
+     * Calls made before measuring, so the hand-out path is compiled.
+     */
+    private static final int WARMUP_CALLS = 200_000;
+    /**
+     * Calls measured.
+     */
+    private static final int MEASURED_CALLS = 100_000;
+    /**
+     * Locations in the pool.
+     */
+    private static final int LOCATIONS = 100;
+    /**
+     * The bytes a Location takes, with or without compressed pointers.
+     */
+    private static final long LOCATION_BYTES = 64;
+    /**
+     * Allowed average bytes per call for paths that should not allocate, for what measuring itself allocates.
+     */
+    private static final double NOISE_BYTES = 1;
+
+    /**
+     * Measures the bytes allocated by the current thread.
+     */
+    private static com.sun.management.ThreadMXBean threads;
+    /**
+     * The world of every location.
+     */
+    private static World world;
+    /**
+     * Keeps handed out locations reachable, so the calls are not optimized away.
+     */
+    private static volatile Location sink;
+
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "Allocated bytes per thread can not be measured.");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        world = FakeServer.install();
+        YamlConfiguration config;
+        try (Reader reader = new InputStreamReader(HandOutAllocationTest.class.getResourceAsStream("/config.yml"), StandardCharsets.UTF_8)) {
+            config = YamlConfiguration.loadConfiguration(reader);
+        }
+        //Checking a location for safety reads blocks through Bukkit, which allocates
+        config.set("re-check for safety on use", false);
+        config.set("delete location on use", false);
+        config.set("amount of cached spawns", LOCATIONS);
+        Settings.createInstance(config);
+        Metrics.createInstance(null);
+    }
+
+    @Test
+    void pickingAndRemovingFromThePoolDoesNotAllocate(){
+        SpawnPool pool = new SpawnPool();
+        for (int i = 0; i < LOCATIONS; i++) pool.add(new Location(world, i, 64, i));
+        Sampler sampler = Settings.getInstance().getSampler();
+
+        double perCall = getAllocatedPerCall(() -> {
+            Location loc = pool.random(sampler);
+            pool.remove(loc);
+            pool.add(loc);
+        });
+        assertTrue(perCall <= NOISE_BYTES, "SpawnPool allocated " + perCall + " bytes per hand-out.");
+    }
+
+    @Test
+    void cacheHitOnlyAllocatesTheHandedOutLocation(){
+        RandomSpawnCache cache = new RandomSpawnCache();
+        for (int i = 0; i < LOCATIONS; i++) cache.addLocation(new Location(world, i, 64, i));
+
+        double perCall = getAllocatedPerCall(() -> sink = cache.pollSafeSpawn());
+        assertTrue(sink != null, "The cache did not hand out a location.");
+        assertTrue(perCall <= LOCATION_BYTES + NOISE_BYTES, "pollSafeSpawn allocated " + perCall + " bytes per cache hit.");
+    }
+
+    /**
+     * Warms up a call and measures the average bytes it allocates.
+     * @param call The call to measure.
+     * @return The average bytes allocated per call.
+     */
+    private static double getAllocatedPerCall(Runnable call){
+        for (int i = 0; i < WARMUP_CALLS; i++) call.run();
+
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < MEASURED_CALLS; i++) call.run();
+        return (double) (threads.getThreadAllocatedBytes(thread) - before) / MEASURED_CALLS;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.tools;
+
+import com.popupmc.areaspawner.FakeServer;
+import com.popupmc.areaspawner.spawn.CacheFile;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Checks the cache files written by the tools load in the plugin the way it reads its own cache file, as a list of
+ * {@link Location}s deserialized by Bukkit.
+ *
+ * @author lelesape
+ */
+class CacheFileWriterTest {
+
+    @Test
+    void writtenCacheLoadsAsLocations(@TempDir Path folder) throws Exception {
+        World world = FakeServer.install();
+        Path file = folder.resolve("cache.yml");
+        CacheFileWriter.write(file, FakeServer.WORLD_NAME, Arrays.asList(new int[]{1, 64, -2}, new int[]{-300, -12, 4000}));
+
+        YamlConfiguration cache = YamlConfiguration.loadConfiguration(file.toFile());
+        List<Location> locations = CacheFile.getLocations(cache);
+        assertNotNull(locations);
+        assertEquals(Arrays.asList(new Location(world, 1, 64, -2), new Location(world, -300, -12, 4000)), locations);
+        //Without a hash, the plugin takes the file as it is
+        assertFalse(cache.contains("cache-settings-hash"));
+        assertFalse(CacheFile.isModified(cache, locations));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.tools;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes spawn locations in the format of the plugin's cache file (cache.yml), as a list of serialized locations.
+ * No settings hash is written, so the plugin loads the file as it is and checks the locations the way "validate
+ * cache on load" says.
+ *
+ * @author lelesape
+ */
+final class CacheFileWriter {
+
+    /**
+     * The comments at the top of the file.
+     */
+    private static final String HEADER = "# This is the cache file, written by MPAreaSpawner-tools from a copy of the world.\n"
+            + "# Every location in here will be validated and loaded or discarded when the plugin is enabled.\n"
+            + "# This file should not be modified manually.\n";
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private CacheFileWriter(){}
+
+    /**
+     * Writes the cache file.
+     * @param file The file to write.
+     * @param worldName The name of the world of every location.
+     * @param locations The locations, as {x, y, z} arrays, y being the value stored by the plugin.
+     * @throws IOException If the file could not be written.
+     */
+    static void write(Path file, String worldName, List<int[]> locations) throws IOException {
+        List<Map<String, Object>> cache = new ArrayList<>(locations.size());
+        for(int[] location : locations){
+            Map<String, Object> serialized = new LinkedHashMap<>();
+            serialized.put("==", "org.bukkit.Location");
+            serialized.put("world", worldName);
+            serialized.put("x", (double) location[0]);
+            serialized.put("y", (double) location[1]);
+            serialized.put("z", (double) location[2]);
+            serialized.put("pitch", 0.0);
+            serialized.put("yaw", 0.0);
+            cache.add(serialized);
+        }
+
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        options.setIndent(2);
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            new Yaml(options).dump(Collections.singletonMap("cache", cache), writer);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.tools;
+
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read only access to a YAML file such as AreaSpawner's config.yml, with paths separated by dots
+ * (i.e: "spawn zone.x range") and defaults for missing values, like the server's configuration API.
+ *
+ * @author lelesape
+ */
+final class ConfigFile {
+
+    /**
+     * The file's root section.
+     */
+    final private Map<?, ?> root;
+
+
+    /**
+     * Creates a new ConfigFile.
+     * @param root The file's root section.
+     */
+    private ConfigFile(Map<?, ?> root){
+        this.root = root;
+    }
+
+    /**
+     * Loads a YAML file.
+     * @param file The file to load.
+     * @return The loaded file.
+     * @throws IOException If the file could not be read or is not a YAML map.
+     */
+    static ConfigFile load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Object root = new Yaml().load(reader);
+            if(root == null) return new ConfigFile(Collections.emptyMap());
+            if(!(root instanceof Map)) throw new IOException(file + " is not a YAML map");
+            return new ConfigFile((Map<?, ?>) root);
+        } catch (RuntimeException e) {
+            throw new IOException("Could not parse " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the value at the given path.
+     * @param path The path, sections separated by dots.
+     * @return The value, or null if there is none.
+     */
+    Object get(String path){
+        Object current = root;
+        for(String key : path.split("\\.")){
+            if(!(current instanceof Map)) return null;
+            current = ((Map<?, ?>) current).get(key);
+        }
+        return current;
+    }
+
+    boolean getBoolean(String path, boolean def){
+        Object value = get(path);
+        return value instanceof Boolean ? (Boolean) value : def;
+    }
+
+    int getInt(String path, int def){
+        Object value = get(path);
+        return value instanceof Number ? ((Number) value).intValue() : def;
+    }
+
+    long getLong(String path, long def){
+        Object value = get(path);
+        return value instanceof Number ? ((Number) value).longValue() : def;
+    }
+
+    double getDouble(String path, double def){
+        Object value = get(path);
+        return value instanceof Number ? ((Number) value).doubleValue() : def;
+    }
+
+    /**
+     * Gets a time given as an amount and a unit (S, M, H or D), i.e: "5S", as the plugin reads it.
+     * @param path The path, sections separated by dots.
+     * @param def The ticks to return if there is no such value.
+     * @return The time in ticks.
+     */
+    int getTicks(String path, int def){
+        String value = getString(path, null);
+        if(value == null || value.length() < 2) return def;
+        try {
+            int amount = Integer.parseInt(value.substring(0, value.length() - 1));
+            switch (Character.toUpperCase(value.charAt(value.length() - 1))) {
+                case 'M':
+                    return amount * 1200;
+                case 'H':
+                    return amount * 72000;
+                case 'D':
+                    return amount * 1_728_000;
+                default:
+                    return amount * 20;
+            }
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    String getString(String path, String def){
+        Object value = get(path);
+        return value == null ? def : value.toString();
+    }
+
+    List<String> getStringList(String path){
+        Object value = get(path);
+        List<String> list = new ArrayList<>();
+        if(value instanceof List) {
+            for(Object element : (List<?>) value){
+                if(element != null) list.add(element.toString());
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.tools;
+
+import com.popupmc.areaspawner.spawn.Region;
+import com.popupmc.areaspawner.spawn.SpawnRules;
+import com.popupmc.areaspawner.spawn.anvil.LevelData;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The spawn rules in an AreaSpawner config.yml, read the same way the plugin reads them. The world spawn, used
+ * when a spawn zone center is -1, is taken from the world's level.dat, or is 0, 64, 0 for a world without a folder.
+ *
+ * @author lelesape
+ */
+final class ConfigRules implements SpawnRules {
+
+    /**
+     * The value for "spawn world" in config.
+     */
+    final private String worldName;
+    /**
+     * The spawn zone.
+     */
+    final private Region allowedRegion;
+    /**
+     * The no spawn zone, empty if disabled.
+     */
+    final private Region forbiddenRegion;
+    /**
+     * The value for "block list" in config.
+     */
+    final private Set<String> blockList;
+    /**
+     * The value for "list is whitelist" in config.
+     */
+    final private boolean listIsWhitelist;
+    /**
+     * The value for "air gap above" in config.
+     */
+    final private int airGapAbove;
+    /**
+     * The value for "top to bottom" in config.
+     */
+    final private boolean topToBottom;
+    /**
+     * The opposite of "check past surface" in config.
+     */
+    final private boolean notCheckPastSurface;
+    /**
+     * The value for "sampler seed" in config.
+     */
+    final private long samplerSeed;
+    /**
+     * The value for "heatmap.grid size" in config.
+     */
+    final private int heatmapGridSize;
+    /**
+     * The value for "heatmap.exploration" in config.
+     */
+    final private double heatmapExploration;
+
+
+    /**
+     * Reads the spawn rules from a config file.
+     * @param config The plugin's config file.
+     * @param worldFolder The spawn world's folder, or null for a world without one.
+     * @throws IOException If the world spawn is needed and level.dat could not be read.
+     */
+    ConfigRules(ConfigFile config, File worldFolder) throws IOException {
+        this.worldName = config.getString("spawn world", worldFolder == null ? "world" : worldFolder.getName());
+        this.blockList = Collections.unmodifiableSet(new HashSet<>(config.getStringList("block list")));
+        this.listIsWhitelist = config.getBoolean("list is whitelist", false);
+        this.airGapAbove = config.getInt("air gap above", 0);
+        this.topToBottom = config.getBoolean("top to bottom", false);
+        this.notCheckPastSurface = !config.getBoolean("check past surface", false);
+        this.samplerSeed = config.getLong("sampler seed", 0);
+        this.heatmapGridSize = config.getInt("heatmap.grid size", 32);
+        this.heatmapExploration = config.getDouble("heatmap.exploration", 0.1);
+
+        int xCenter = config.getInt("spawn zone.x center", 0);
+        int yCenter = config.getInt("spawn zone.y center", 0);
+        int zCenter = config.getInt("spawn zone.z center", 0);
+        if(worldFolder == null) {
+            if(xCenter == -1) xCenter = 0;
+            if(yCenter == -1) yCenter = 64;
+            if(zCenter == -1) zCenter = 0;
+        }else if(xCenter == -1 || yCenter == -1 || zCenter == -1) {
+            LevelData level = LevelData.read(worldFolder);
+            if(xCenter == -1) xCenter = level.getSpawnX();
+            if(yCenter == -1) yCenter = level.getSpawnY();
+            if(zCenter == -1) zCenter = level.getSpawnZ();
+        }
+        this.allowedRegion = Region.newSpawnRegion(xCenter, yCenter, zCenter,
+                config.getInt("spawn zone.x range", 0), config.getInt("spawn zone.y range", 0), config.getInt("spawn zone.z range", 0),
+                config.getBoolean("spawn zone.clamp to limits", false));
+
+        boolean forbiddenEnabled = config.getBoolean("no spawn zone.enabled", false);
+        this.forbiddenRegion = Region.newRegionByRanges(
+                forbiddenEnabled ? config.getInt("spawn zone.x center", 0) : 0, 0,
+                forbiddenEnabled ? config.getInt("spawn zone.z center", 0) : 0,
+                forbiddenEnabled ? config.getInt("no spawn zone.x range", 0) : 0, 0,
+                forbiddenEnabled ? config.getInt("no spawn zone.z range", 0) : 0);
+    }
+
+    @Override
+    public String getWorldName(){
+        return worldName;
+    }
+
+    @Override
+    public Region getAllowedRegion(){
+        return allowedRegion;
+    }
+
+    @Override
+    public Region getForbiddenRegion(){
+        return forbiddenRegion;
+    }
+
+    @Override
+    public Set<String> getBlockList(){
+        return blockList;
+    }
+
+    @Override
+    public boolean isListIsWhitelist(){
+        return listIsWhitelist;
+    }
+
+    @Override
+    public int getAirGapAbove(){
+        return airGapAbove;
+    }
+
+    @Override
+    public boolean isTopToBottom(){
+        return topToBottom;
+    }
+
+    @Override
+    public boolean isNotCheckPastSurface(){
+        return notCheckPastSurface;
+    }
+
+    @Override
+    public long getSamplerSeed(){
+        return samplerSeed;
+    }
+
+    @Override
+    public int getHeatmapGridSize(){
+        return heatmapGridSize;
+    }
+
+    @Override
+    public double getHeatmapExploration(){
+        return heatmapExploration;
+    }
+}
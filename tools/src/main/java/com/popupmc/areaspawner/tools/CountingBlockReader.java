@@ -0,0 +1,109 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.tools;
+
+import com.popupmc.areaspawner.spawn.BlockReader;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the blocks read from another reader and the chunks a server would have had to load for them, keeping a
+ * number of chunks loaded like a server keeps the chunks around players. Not thread safe.
+ *
+ * @author lelesape
+ */
+class CountingBlockReader implements BlockReader {
+
+    /**
+     * The reader blocks are read from.
+     */
+    final private BlockReader reader;
+    /**
+     * Whether the highest block of every column is known, as it is when reading region files.
+     */
+    final private boolean heightmap;
+    /**
+     * The chunks currently loaded, by packed chunk coordinates, the least recently used unloaded first.
+     */
+    final private Map<Long, Boolean> loaded;
+    /**
+     * The amount of blocks read.
+     */
+    private long blocksRead;
+    /**
+     * The amount of chunks loaded.
+     */
+    private long chunkLoads;
+
+
+    /**
+     * Creates a new counting reader.
+     * @param reader The reader blocks are read from.
+     * @param heightmap Whether to give the highest block of every column, otherwise every column is scanned from
+     *                  the top of the spawn region, as the plugin does with a live world.
+     * @param loadedChunks The amount of chunks kept loaded.
+     */
+    CountingBlockReader(BlockReader reader, boolean heightmap, int loadedChunks){
+        this.reader = reader;
+        this.heightmap = heightmap;
+        this.loaded = new LinkedHashMap<Long, Boolean>(loadedChunks, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest){
+                return size() > loadedChunks;
+            }
+        };
+    }
+
+    @Override
+    public String getBlock(int x, int y, int z){
+        blocksRead++;
+        touch(x >> 4, z >> 4);
+        return reader.getBlock(x, y, z);
+    }
+
+    @Override
+    public int getHighestY(int x, int z){
+        if(!heightmap) return Integer.MAX_VALUE;
+        touch(x >> 4, z >> 4);
+        return reader.getHighestY(x, z);
+    }
+
+    /**
+     * Loads a chunk if it is not loaded.
+     * @param chunkX The chunk's x coordinate.
+     * @param chunkZ The chunk's z coordinate.
+     */
+    private void touch(int chunkX, int chunkZ){
+        if(loaded.put((long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL), Boolean.TRUE) == null) chunkLoads++;
+    }
+
+    /**
+     * Gets the amount of blocks read.
+     * @return The amount of blocks read.
+     */
+    long getBlocksRead(){
+        return blocksRead;
+    }
+
+    /**
+     * Gets the amount of chunks loaded.
+     * @return The amount of chunks that were not loaded when read from.
+     */
+    long getChunkLoads(){
+        return chunkLoads;
+    }
+}
@@ -0,0 +1,328 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.tools;
+
+import com.popupmc.areaspawner.spawn.BlockReader;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A made up world for simulating generation: hills and mountains from fractal noise, oceans filling everything
+ * below a sea level, lava lakes on land and claimed areas covered in player builds. Every part is given as the
+ * fraction of columns it covers, so worlds with more or less hostile terrain can be compared.
+ * Columns are computed when first read and kept for a number of chunks, not thread safe.
+ *
+ * @author lelesape
+ */
+class NoiseTerrain implements BlockReader {
+
+    /**
+     * The lowest surface height.
+     */
+    private static final int MIN_HEIGHT = 40;
+    /**
+     * The difference between the highest and the lowest surface heights.
+     */
+    private static final int HEIGHT_RANGE = 80;
+    /**
+     * The height above which mountains are covered in snow.
+     */
+    private static final int SNOW_HEIGHT = 100;
+    /**
+     * The width, in blocks, of the biggest hills.
+     */
+    private static final double HILL_SCALE = 256;
+    /**
+     * The width, in blocks, of the biggest lava lakes.
+     */
+    private static final double LAVA_SCALE = 48;
+    /**
+     * The amount of columns looked at for finding the sea level and the lava threshold.
+     */
+    private static final int QUANTILE_SAMPLES = 8192;
+    /**
+     * The amount of chunks computed columns are kept for.
+     */
+    private static final int KEPT_CHUNKS = 4096;
+    /**
+     * The blocks on top of claimed areas, some of them in the default block list.
+     */
+    private static final String[] BUILDS = {"OAK_PLANKS", "COBBLESTONE", "TORCH", "CHEST", "WHEAT", "FURNACE",
+            "GLASS", "STONE_BRICKS", "FARMLAND", "RED_BED"};
+
+    /**
+     * Salt for the hill noise.
+     */
+    private static final long HILLS = 0x1L;
+    /**
+     * Salt for the lava lake noise.
+     */
+    private static final long LAVA = 0x2L;
+    /**
+     * Salt for picking claimed areas.
+     */
+    private static final long CLAIMS = 0x3L;
+    /**
+     * Salt for picking the blocks on claimed areas.
+     */
+    private static final long BUILD_BLOCKS = 0x4L;
+
+    /**
+     * The seed every noise is made from.
+     */
+    final private long seed;
+    /**
+     * The fraction of claim sized cells that are claimed.
+     */
+    final private double claimedFraction;
+    /**
+     * The width, in blocks, of a claimed area.
+     */
+    final private int claimSize;
+    /**
+     * The highest height filled with water.
+     */
+    final private int seaLevel;
+    /**
+     * Land columns with lava noise below this value are lava lakes.
+     */
+    final private double lavaThreshold;
+    /**
+     * The columns of the chunks computed last, by packed chunk coordinates.
+     */
+    final private Map<Long, Chunk> chunks = new LinkedHashMap<Long, Chunk>(KEPT_CHUNKS, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest){
+            return size() > KEPT_CHUNKS;
+        }
+    };
+
+
+    /**
+     * Creates a new world.
+     * @param seed The seed every noise is made from.
+     * @param oceanFraction The fraction of columns under water, from 0 to 1.
+     * @param lavaFraction The fraction of land columns in lava lakes, from 0 to 1.
+     * @param claimedFraction The fraction of land in claimed areas, from 0 to 1.
+     * @param claimSize The width, in blocks, of a claimed area.
+     */
+    NoiseTerrain(long seed, double oceanFraction, double lavaFraction, double claimedFraction, int claimSize){
+        this.seed = seed;
+        this.claimedFraction = claimedFraction;
+        this.claimSize = Math.max(1, claimSize);
+
+        //Thresholds are found from the values at random columns, so the fractions hold for any seed
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] heights = new int[QUANTILE_SAMPLES];
+        double[] lava = new double[QUANTILE_SAMPLES];
+        for (int i = 0; i < QUANTILE_SAMPLES; i++) {
+            int x = random.nextInt(-1_000_000, 1_000_000);
+            int z = random.nextInt(-1_000_000, 1_000_000);
+            heights[i] = getHeight(x, z);
+            lava[i] = fractal(x, z, LAVA_SCALE, LAVA);
+        }
+        Arrays.sort(heights);
+        Arrays.sort(lava);
+        this.seaLevel = oceanFraction <= 0 ? 0 : oceanFraction >= 1 ? MIN_HEIGHT + HEIGHT_RANGE + 1
+                : heights[(int) (oceanFraction * QUANTILE_SAMPLES)];
+        this.lavaThreshold = lavaFraction <= 0 ? -1 : lavaFraction >= 1 ? 2 : lava[(int) (lavaFraction * QUANTILE_SAMPLES)];
+    }
+
+    @Override
+    public String getBlock(int x, int y, int z){
+        Chunk chunk = getChunk(x >> 4, z >> 4);
+        int column = chunk.compute(x, z);
+        int height = chunk.heights[column];
+
+        if(y > height) return y <= seaLevel ? "WATER" : y > 255 || y < 0 ? "VOID_AIR" : "AIR";
+        if(y == height) return chunk.surfaces[column];
+        if(y <= 0) return y < 0 ? "VOID_AIR" : "BEDROCK";
+        return y > height - 4 ? "DIRT" : "STONE";
+    }
+
+    @Override
+    public int getHighestY(int x, int z){
+        Chunk chunk = getChunk(x >> 4, z >> 4);
+        return Math.max(seaLevel, chunk.heights[chunk.compute(x, z)]);
+    }
+
+    /**
+     * Gets the highest water block.
+     * @return The sea level.
+     */
+    int getSeaLevel(){
+        return seaLevel;
+    }
+
+    /**
+     * Gets the computed columns of a chunk, computing them if needed.
+     * @param chunkX The chunk's x coordinate.
+     * @param chunkZ The chunk's z coordinate.
+     * @return The chunk's columns.
+     */
+    private Chunk getChunk(int chunkX, int chunkZ){
+        long key = (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+        Chunk chunk = chunks.get(key);
+        if(chunk == null) {
+            chunk = new Chunk();
+            chunks.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * Gets the height of the surface of a column, ignoring water.
+     * @param x The column's x coordinate.
+     * @param z The column's z coordinate.
+     * @return The surface height.
+     */
+    private int getHeight(int x, int z){
+        double noise = fractal(x, z, HILL_SCALE, HILLS);
+        //Flattened valleys and sharper peaks
+        return MIN_HEIGHT + (int) (noise * noise * HEIGHT_RANGE);
+    }
+
+    /**
+     * Gets the block on top of a column.
+     * @param x The column's x coordinate.
+     * @param z The column's z coordinate.
+     * @param height The column's height.
+     * @return The surface block.
+     */
+    private String getSurface(int x, int z, int height){
+        if(height < seaLevel) return height < seaLevel - 5 ? "GRAVEL" : "SAND";
+        if(fractal(x, z, LAVA_SCALE, LAVA) < lavaThreshold) return "LAVA";
+        if(hash(Math.floorDiv(x, claimSize), Math.floorDiv(z, claimSize), CLAIMS) < claimedFraction) {
+            return BUILDS[(int) (hash(x, z, BUILD_BLOCKS) * BUILDS.length)];
+        }
+        if(height <= seaLevel + 1) return "SAND";
+        return height > SNOW_HEIGHT ? "SNOW_BLOCK" : "GRASS_BLOCK";
+    }
+
+    /**
+     * Gets fractal value noise, four octaves of smooth noise each half the size of the previous one.
+     * @param x The x coordinate.
+     * @param z The z coordinate.
+     * @param scale The width of the biggest octave.
+     * @param salt A different salt for every kind of noise.
+     * @return The noise, from 0 to 1.
+     */
+    private double fractal(int x, int z, double scale, long salt){
+        double total = 0;
+        double amplitude = 1;
+        double weights = 0;
+        for (int octave = 0; octave < 4; octave++) {
+            total += amplitude * smooth(x / scale, z / scale, salt + octave * 0x100L);
+            weights += amplitude;
+            amplitude /= 2;
+            scale /= 2;
+        }
+        return total / weights;
+    }
+
+    /**
+     * Gets smooth value noise, random values at integer coordinates interpolated in between.
+     * @param x The x coordinate.
+     * @param z The z coordinate.
+     * @param salt A different salt for every kind of noise.
+     * @return The noise, from 0 to 1.
+     */
+    private double smooth(double x, double z, long salt){
+        int x0 = (int) Math.floor(x);
+        int z0 = (int) Math.floor(z);
+        double fx = fade(x - x0);
+        double fz = fade(z - z0);
+        double top = lerp(hash(x0, z0, salt), hash(x0 + 1, z0, salt), fx);
+        double bottom = lerp(hash(x0, z0 + 1, salt), hash(x0 + 1, z0 + 1, salt), fx);
+        return lerp(top, bottom, fz);
+    }
+
+    /**
+     * Eases a value between 0 and 1, so noise has no creases.
+     * @param t The value.
+     * @return The eased value.
+     */
+    private static double fade(double t){
+        return t * t * (3 - 2 * t);
+    }
+
+    /**
+     * Interpolates between two values.
+     * @param a The first value.
+     * @param b The second value.
+     * @param t How far from the first value to the second one, from 0 to 1.
+     * @return The interpolated value.
+     */
+    private static double lerp(double a, double b, double t){
+        return a + (b - a) * t;
+    }
+
+    /**
+     * Gets a random value for some coordinates, always the same for the same seed, coordinates and salt.
+     * @param x The x coordinate.
+     * @param z The z coordinate.
+     * @param salt A different salt for every kind of value.
+     * @return A value from 0 (inclusive) to 1 (exclusive).
+     */
+    private double hash(int x, int z, long salt){
+        long h = seed ^ salt * 0x9E3779B97F4A7C15L ^ x * 0xC2B2AE3D27D4EB4FL ^ z * 0x165667B19E3779F9L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return (h >>> 11) * 0x1.0p-53;
+    }
+
+
+    /**
+     * The heights and surface blocks of the columns in a chunk.
+     */
+    private class Chunk {
+
+        /**
+         * The surface height of every column, by (x << 4 | z), {@link Integer#MIN_VALUE} if not computed yet.
+         */
+        final private int[] heights = new int[256];
+        /**
+         * The surface block of every column, by (x << 4 | z).
+         */
+        final private String[] surfaces = new String[256];
+
+        /**
+         * Creates a chunk with no columns computed.
+         */
+        private Chunk(){
+            Arrays.fill(heights, Integer.MIN_VALUE);
+        }
+
+        /**
+         * Computes a column if it was not computed yet.
+         * @param x The column's x coordinate.
+         * @param z The column's z coordinate.
+         * @return The column's index in this chunk.
+         */
+        private int compute(int x, int z){
+            int column = (x & 15) << 4 | (z & 15);
+            if(heights[column] == Integer.MIN_VALUE) {
+                heights[column] = getHeight(x, z);
+                surfaces[column] = getSurface(x, z, heights[column]);
+            }
+            return column;
+        }
+    }
+}
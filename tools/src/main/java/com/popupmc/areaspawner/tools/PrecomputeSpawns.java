@@ -0,0 +1,272 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.tools;
+
+import com.popupmc.areaspawner.spawn.Region;
+import com.popupmc.areaspawner.spawn.SafetyRules;
+import com.popupmc.areaspawner.spawn.anvil.AnvilChunk;
+import com.popupmc.areaspawner.spawn.anvil.LevelData;
+import com.popupmc.areaspawner.spawn.sampling.Sampler;
+import com.popupmc.areaspawner.spawn.sampling.SamplerType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command line tool computing safe spawn locations from a copy of a world, without a server, and writing them as
+ * the plugin's cache file. Columns are chosen by the sampler in config and checked with the same rules as the
+ * plugin, reading the world's region files from every core.
+ * Only terrain already generated is looked at, columns in chunks not generated yet count as failed attempts.
+ *
+ * Usage: java -jar MPAreaSpawner-tools(version).jar (world folder) (config.yml) [options]
+ *
+ * @author lelesape
+ */
+public final class PrecomputeSpawns {
+
+    /**
+     * The amount of chunks each worker keeps in memory.
+     */
+    private static final int CHUNKS_PER_WORKER = 256;
+    /**
+     * Seconds between progress reports.
+     */
+    private static final int PROGRESS_INTERVAL = 5;
+
+    /**
+     * The spawn rules from the config file.
+     */
+    final private ConfigRules rules;
+    /**
+     * The sampler from the config file, shared by every worker.
+     */
+    final private Sampler sampler;
+    /**
+     * The world's region folder.
+     */
+    final private File regionFolder;
+    /**
+     * The amount of locations wanted.
+     */
+    final private int count;
+    /**
+     * The maximum amount of columns to check before giving up.
+     */
+    final private long maxAttempts;
+    /**
+     * The locations found, as {x, y, z}.
+     */
+    final private ConcurrentLinkedQueue<int[]> found = new ConcurrentLinkedQueue<>();
+    /**
+     * The columns of the locations found, so none is found twice.
+     */
+    final private Set<Long> foundColumns = ConcurrentHashMap.newKeySet();
+    /**
+     * The amount of locations accepted, may go past the amount wanted while workers finish.
+     */
+    final private AtomicInteger accepted = new AtomicInteger();
+    /**
+     * The amount of columns checked.
+     */
+    final private AtomicLong attempts = new AtomicLong();
+    /**
+     * The amount of columns in chunks that could not be checked.
+     */
+    final private AtomicLong notGenerated = new AtomicLong();
+    /**
+     * The amount of chunks that failed to be read.
+     */
+    final private AtomicLong unreadable = new AtomicLong();
+
+
+    /**
+     * Creates a new PrecomputeSpawns.
+     * @param rules The spawn rules.
+     * @param sampler The sampler choosing columns.
+     * @param regionFolder The world's region folder.
+     * @param count The amount of locations wanted.
+     * @param maxAttempts The maximum amount of columns to check.
+     */
+    private PrecomputeSpawns(ConfigRules rules, Sampler sampler, File regionFolder, int count, long maxAttempts){
+        this.rules = rules;
+        this.sampler = sampler;
+        this.regionFolder = regionFolder;
+        this.count = count;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Runs the tool, see {@link #printUsage()} for the arguments.
+     * @param args The command line arguments.
+     */
+    public static void main(String[] args){
+        if(args.length < 2) {
+            printUsage();
+            System.exit(2);
+        }
+
+        Path output = Paths.get("cache.yml");
+        int count = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 2; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--count":
+                        count = Integer.parseInt(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--output":
+                        output = Paths.get(args[++i]);
+                        break;
+                    default:
+                        System.err.println("Unknown option " + args[i]);
+                        printUsage();
+                        System.exit(2);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            printUsage();
+            System.exit(2);
+        }
+
+        File worldFolder = new File(args[0]);
+        File regionFolder = LevelData.getRegionFolder(worldFolder);
+        if(regionFolder == null) {
+            System.err.println("No region files found in " + worldFolder);
+            System.exit(1);
+        }
+
+        try {
+            ConfigFile config = ConfigFile.load(Paths.get(args[1]));
+            ConfigRules rules = new ConfigRules(config, worldFolder);
+            Sampler sampler = SamplerType.fromString(config.getString("sampler", null)).create(rules);
+            long maxAttempts = (long) count * Math.max(1, config.getInt("safe spawn attempts", 25));
+
+            PrecomputeSpawns precompute = new PrecomputeSpawns(rules, sampler, regionFolder, count, maxAttempts);
+            List<int[]> locations = precompute.run(Math.max(1, threads));
+            CacheFileWriter.write(output, rules.getWorldName(), locations);
+            System.out.println("Wrote " + locations.size() + " locations to " + output.toAbsolutePath());
+            if(locations.size() < count) System.exit(1);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            System.err.println("Interrupted.");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Looks for safe locations from the given amount of threads until enough are found or attempts run out.
+     * @param threads The amount of worker threads.
+     * @return The locations found, as {x, y, z}.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    private List<int[]> run(int threads) throws InterruptedException {
+        Region allowed = rules.getAllowedRegion();
+        System.out.println("Looking for " + count + " safe locations in " + allowed + " from " + threads + " threads...");
+
+        long start = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.execute(this::work);
+        }
+        workers.shutdown();
+
+        while(!workers.awaitTermination(PROGRESS_INTERVAL, TimeUnit.SECONDS)){
+            System.out.println(accepted.get() + "/" + count + " locations found after " + attempts.get() + " attempts.");
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("Found %d/%d locations in %.1fs, %d columns checked (%.0f per second).",
+                Math.min(accepted.get(), count), count, seconds, attempts.get(), attempts.get() / Math.max(seconds, 1e-9)));
+        if(notGenerated.get() > 0) System.out.println(notGenerated.get() + " columns were in chunks not generated or not readable.");
+        if(unreadable.get() > 0) System.out.println(unreadable.get() + " chunks could not be read.");
+
+        return new ArrayList<>(found);
+    }
+
+    /**
+     * Checks columns chosen by the sampler until enough locations are found or attempts run out.
+     */
+    private void work(){
+        Region allowed = rules.getAllowedRegion();
+        Region forbidden = rules.getForbiddenRegion();
+        Map<Long, AnvilChunk> chunks = new LinkedHashMap<Long, AnvilChunk>(CHUNKS_PER_WORKER, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, AnvilChunk> eldest){
+                return size() > CHUNKS_PER_WORKER;
+            }
+        };
+
+        while(accepted.get() < count && attempts.getAndIncrement() < maxAttempts){
+            long column = sampler.nextColumn(allowed);
+            int x = Sampler.unpackX(column);
+            int z = Sampler.unpackZ(column);
+            long chunkKey = Sampler.pack(x >> 4, z >> 4);
+
+            AnvilChunk chunk = chunks.get(chunkKey);
+            if(chunk == null && !chunks.containsKey(chunkKey)) {
+                try {
+                    chunk = AnvilChunk.read(regionFolder, x >> 4, z >> 4);
+                } catch (IOException | RuntimeException e) {
+                    //Kept as missing so a broken chunk is only read once
+                    unreadable.incrementAndGet();
+                }
+                chunks.put(chunkKey, chunk);
+            }
+            if(chunk == null) {
+                notGenerated.incrementAndGet();
+                sampler.report(x, z, false);
+                continue;
+            }
+
+            int y = SafetyRules.findSafeY(chunk, x, z, allowed.getMinY(), allowed.getMaxY(), rules);
+            boolean safe = SafetyRules.getRejection(chunk, x, y, z, forbidden, allowed, rules) == null;
+            sampler.report(x, z, safe);
+
+            if(safe && foundColumns.add(column) && accepted.incrementAndGet() <= count) {
+                found.add(new int[]{x, y, z});
+            }
+        }
+    }
+
+    /**
+     * Prints how to use this tool.
+     */
+    private static void printUsage(){
+        System.err.println("Usage: java -jar MPAreaSpawner-tools(version).jar (world folder) (config.yml) [options]");
+        System.err.println("  --count (amount)    Amount of locations to find, 1000 by default.");
+        System.err.println("  --threads (amount)  Amount of threads, every core by default.");
+        System.err.println("  --output (file)     The cache file to write, cache.yml by default.");
+    }
+}
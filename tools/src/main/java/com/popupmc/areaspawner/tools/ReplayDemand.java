@@ -0,0 +1,529 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.tools;
+
+import com.popupmc.areaspawner.spawn.refill.CacheRefiller;
+import com.popupmc.areaspawner.spawn.trace.DemandEvent;
+import com.popupmc.areaspawner.spawn.trace.DemandSource;
+import com.popupmc.areaspawner.spawn.trace.DemandTraceReader;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line tool replaying a demand trace recorded by the plugin ("demand trace" in config) against different
+ * cache sizes and refill strategies, to find the smallest cache that would have never run out. The cache is refilled
+ * by the plugin's own {@link CacheRefiller} on simulated generation threads and time, with the config's "generation
+ * threads", "max generation jobs" and "time between generating locations". It differs from the plugin in that:
+ * every location asked for is taken from the cache, as with "delete location on use: true"; the cache starts full;
+ * generating a location takes a fixed time and never fails; and locations are never found unsafe on use or
+ * discarded, so the cache is never filled up again but by watermark strategies, which the plugin does not have.
+ *
+ * Usage: java -cp MPAreaSpawner-tools(version).jar com.popupmc.areaspawner.tools.ReplayDemand (trace.bin) [options]
+ *
+ * @author lelesape
+ */
+public final class ReplayDemand {
+
+    /**
+     * The milliseconds in a tick.
+     */
+    private static final long TICK_MILLIS = 50;
+
+    /**
+     * The time of every location asked for, in milliseconds since the start of the trace.
+     */
+    final private long[] times;
+    /**
+     * The length of the trace in milliseconds.
+     */
+    final private long duration;
+    /**
+     * The milliseconds it takes to generate a location.
+     */
+    final private long generationTime;
+    /**
+     * The value for "generation threads" in config.
+     */
+    final private int threads;
+    /**
+     * The value for "max generation jobs" in config.
+     */
+    final private int maxJobs;
+    /**
+     * The value for "time between generating locations" in config, in milliseconds.
+     */
+    final private long fillInterval;
+    /**
+     * The amount of locations submitted every time a fill is ticked, as given by the generation governor.
+     */
+    final private int permits;
+
+
+    /**
+     * Creates a new replay.
+     * @param times The time of every location asked for, in milliseconds since the start of the trace.
+     * @param generationTime The milliseconds it takes to generate a location.
+     * @param threads The value for "generation threads" in config.
+     * @param maxJobs The value for "max generation jobs" in config.
+     * @param fillInterval The value for "time between generating locations" in config, in milliseconds.
+     * @param permits The amount of locations submitted every time a fill is ticked.
+     */
+    private ReplayDemand(long[] times, long generationTime, int threads, int maxJobs, long fillInterval, int permits){
+        this.times = times;
+        this.duration = times.length == 0 ? 0 : times[times.length - 1];
+        this.generationTime = generationTime;
+        this.threads = threads;
+        this.maxJobs = maxJobs;
+        this.fillInterval = fillInterval;
+        this.permits = permits;
+    }
+
+    /**
+     * Runs the tool, see {@link #printUsage()} for the arguments.
+     * @param args The command line arguments.
+     */
+    public static void main(String[] args){
+        if(args.length < 1) {
+            printUsage();
+            System.exit(2);
+        }
+
+        String configPath = null;
+        int[] poolSizes = null;
+        String[] strategyNames = {"replace"};
+        long generationTime = 500;
+        int threads = -1;
+        int maxJobs = -1;
+        int permits = 1;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--config":
+                        configPath = args[++i];
+                        break;
+                    case "--pool-sizes":
+                        poolSizes = Arrays.stream(args[++i].split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+                        break;
+                    case "--strategies":
+                        strategyNames = args[++i].split(",");
+                        break;
+                    case "--generation-time":
+                        generationTime = Long.parseLong(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--max-jobs":
+                        maxJobs = Integer.parseInt(args[++i]);
+                        break;
+                    case "--permits":
+                        permits = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        System.err.println("Unknown option " + args[i]);
+                        printUsage();
+                        System.exit(2);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            printUsage();
+            System.exit(2);
+        }
+
+        try {
+            int configPoolSize = -1;
+            int tickInterval = 60;
+            if(configPath != null) {
+                ConfigFile config = ConfigFile.load(Paths.get(configPath));
+                configPoolSize = config.getInt("amount of cached spawns", 10);
+                if(threads < 0) threads = config.getInt("generation threads", 1);
+                if(maxJobs < 0) maxJobs = config.getInt("max generation jobs", 64);
+                tickInterval = config.getTicks("time between generating locations", tickInterval);
+                if(!config.getBoolean("delete location on use", false)) {
+                    System.out.println("\"delete location on use\" is false in the config, the plugin keeps used locations and its cache never runs out."
+                            + " Replaying as if it was true.");
+                }
+            }
+            if(threads < 0) threads = 1;
+            if(maxJobs < 0) maxJobs = 64;
+            if(poolSizes == null) {
+                poolSizes = configPoolSize > 0 ? new int[]{Math.max(1, configPoolSize / 2), configPoolSize, configPoolSize * 2, configPoolSize * 5}
+                        : new int[]{5, 10, 20, 50, 100};
+            }
+
+            List<Strategy> strategies = new ArrayList<>();
+            for(String name : strategyNames){
+                Strategy strategy = Strategy.parse(name.trim());
+                if(strategy == null) {
+                    System.err.println("Unknown strategy " + name + ", use replace or watermark:(low):(high).");
+                    System.exit(2);
+                }
+                strategies.add(strategy);
+            }
+
+            long[] times = readTrace(args[0]);
+            new ReplayDemand(times, Math.max(0, generationTime), Math.max(1, threads), Math.max(1, maxJobs),
+                    Math.max(1, tickInterval) * TICK_MILLIS, Math.max(1, permits)).run(poolSizes, strategies);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads every event in a trace and prints a summary of it.
+     * @param path The trace file.
+     * @return The time of every event, in milliseconds since the start of the trace.
+     * @throws IOException If the trace could not be read.
+     */
+    private static long[] readTrace(String path) throws IOException {
+        long[] times = new long[1024];
+        int count = 0;
+        int hits = 0;
+        long cacheSizes = 0;
+        Map<DemandSource, Integer> sources = new EnumMap<>(DemandSource.class);
+        long dropped;
+
+        try (DemandTraceReader reader = new DemandTraceReader(new BufferedInputStream(Files.newInputStream(Paths.get(path))))) {
+            DemandEvent event;
+            while((event = reader.next()) != null) {
+                if(count == times.length) times = Arrays.copyOf(times, count * 2);
+                times[count++] = event.getTime() - reader.getStartTime();
+                if(event.isHit()) hits++;
+                cacheSizes += event.getCacheSize();
+                sources.merge(event.getSource(), 1, Integer::sum);
+            }
+            dropped = reader.getDropped();
+        }
+        times = Arrays.copyOf(times, count);
+
+        long duration = count == 0 ? 0 : times[count - 1];
+        System.out.println(String.format("Trace: %d locations asked for in %s (%s), recorded hit rate %.1f%%, average cache size %.1f.",
+                count, VirtualTime.formatDuration(duration), sources, count == 0 ? 0 : 100.0 * hits / count, count == 0 ? 0 : (double) cacheSizes / count));
+        System.out.println(String.format("Peak demand: %d locations in a minute.", getPeakPerMinute(times, count)));
+        if(dropped > 0) System.out.println(dropped + " events were dropped while recording, the replay undercounts demand by that much.");
+        return times;
+    }
+
+    /**
+     * Replays the trace for every pool size and strategy and prints the results.
+     * @param poolSizes The pool sizes to try.
+     * @param strategies The refill strategies to try.
+     */
+    private void run(int[] poolSizes, List<Strategy> strategies){
+        System.out.println("Generating a location takes " + generationTime + "ms, on " + threads + " generation thread" + (threads == 1 ? "" : "s")
+                + " (" + maxJobs + " jobs at most), fills submit " + permits + " every " + fillInterval + "ms.");
+        System.out.println(String.format("%-20s %6s %8s %8s %8s %8s %10s %12s",
+                "strategy", "pool", "hits", "misses", "hit rate", "min pool", "time empty", "peak miss/m"));
+
+        int[] sorted = poolSizes.clone();
+        Arrays.sort(sorted);
+        for(Strategy strategy : strategies){
+            int smallestClean = -1;
+            for(int poolSize : sorted){
+                Result result = replay(Math.max(1, poolSize), strategy);
+                System.out.println(String.format("%-20s %6d %8d %8d %7.1f%% %8d %9.1f%% %12d",
+                        strategy, poolSize, times.length - result.misses, result.misses,
+                        times.length == 0 ? 100 : 100.0 * (times.length - result.misses) / times.length, result.minPool,
+                        duration == 0 ? 0 : 100.0 * result.emptyTime / duration, getPeakPerMinute(result.missTimes, result.misses)));
+                if(smallestClean < 0 && result.misses == 0) smallestClean = poolSize;
+            }
+            System.out.println(smallestClean < 0 ? "  " + strategy + ": every pool size tried ran out at least once."
+                    : "  " + strategy + ": the smallest pool size tried that never ran out is " + smallestClean + ".");
+        }
+    }
+
+    /**
+     * Replays the trace with a pool size and refill strategy. The pool starts full, every location asked for is
+     * taken from it if there is any, otherwise it is a miss and generated on the spot without touching the pool.
+     * Locations taken are replaced or the pool refilled by a {@link CacheRefiller}, like the plugin does.
+     * @param poolSize The amount of locations the pool holds when full.
+     * @param strategy The refill strategy.
+     * @return The result of the replay.
+     */
+    private Result replay(int poolSize, Strategy strategy){
+        SimulatedCache cache = new SimulatedCache(poolSize);
+        VirtualTime time = cache.time;
+        CacheRefiller<Boolean> refiller = new CacheRefiller<>(new VirtualExecutor(time, threads, maxJobs), cache::generate, added -> cache.add());
+        int low = strategy.getLow(poolSize);
+        int high = strategy.getHigh(poolSize);
+
+        for(long t : times){
+            time.runUntil(t);
+            boolean taken = cache.take();
+
+            if(strategy.isReplace()) {
+                if(taken) refiller.requestReplacement();
+            }else if(cache.pool <= low && !cache.isFilling()) {
+                cache.startFill(refiller, high - cache.pool);
+            }
+        }
+        time.runUntil(duration);
+        if(cache.pool == 0) cache.result.emptyTime += duration - cache.emptySince;
+        return cache.result;
+    }
+
+    /**
+     * Gets the most events in any minute.
+     * @param times The time of every event, sorted.
+     * @param count The amount of events.
+     * @return The most events within 60 seconds of each other.
+     */
+    private static int getPeakPerMinute(long[] times, int count){
+        int peak = 0;
+        int first = 0;
+        for (int i = 0; i < count; i++) {
+            while(times[i] - times[first] >= 60_000) first++;
+            peak = Math.max(peak, i - first + 1);
+        }
+        return peak;
+    }
+
+    /**
+     * Prints how to use this tool.
+     */
+    private static void printUsage(){
+        System.err.println("Usage: java -cp MPAreaSpawner-tools(version).jar com.popupmc.areaspawner.tools.ReplayDemand (trace.bin) [options]");
+        System.err.println("  --config (config.yml)       For the default pool sizes, threads, max jobs and time between generating locations.");
+        System.err.println("  --pool-sizes (a,b,...)      Pool sizes to try, around \"amount of cached spawns\" by default.");
+        System.err.println("  --strategies (a,b,...)      Refill strategies to try, replace by default:");
+        System.err.println("                                replace          Every location used is replaced, like the plugin with");
+        System.err.println("                                                 \"replace location on remove: true\".");
+        System.err.println("                                watermark:(l):(h) Once the pool is at l (fraction of the pool size) or less,");
+        System.err.println("                                                 fill it up to h the way the plugin fills its cache.");
+        System.err.println("  --generation-time (ms)      Time it takes to generate a location, 500 by default.");
+        System.err.println("  --threads (amount)          \"generation threads\", from the config or 1 by default.");
+        System.err.println("  --max-jobs (amount)         \"max generation jobs\", from the config or 64 by default.");
+        System.err.println("  --permits (amount)          Locations submitted every \"time between generating locations\" by fills, 1 by default.");
+        System.err.println("The replay takes every location asked for from the cache, starts with it full, never fails to generate");
+        System.err.println("a location and never finds one unsafe.");
+    }
+
+
+    /**
+     * A way of refilling the pool.
+     */
+    private static final class Strategy {
+
+        /**
+         * The name given in the command line.
+         */
+        final private String name;
+        /**
+         * The fraction of the pool size at which refilling starts, or -1 for replacing every location used.
+         */
+        final private double low;
+        /**
+         * The fraction of the pool size refilling stops at.
+         */
+        final private double high;
+
+        /**
+         * Creates a new strategy.
+         * @param name The name given in the command line.
+         * @param low The fraction of the pool size at which refilling starts, or -1 for replacing every location used.
+         * @param high The fraction of the pool size refilling stops at.
+         */
+        private Strategy(String name, double low, double high){
+            this.name = name;
+            this.low = low;
+            this.high = high;
+        }
+
+        /**
+         * Parses a strategy from the command line.
+         * @param name Either "replace" or "watermark:(low):(high)".
+         * @return The strategy, or null if the name is not valid.
+         */
+        static Strategy parse(String name){
+            if(name.equalsIgnoreCase("replace")) return new Strategy(name, -1, 1);
+
+            String[] parts = name.split(":");
+            if(parts.length != 3 || !parts[0].equalsIgnoreCase("watermark")) return null;
+            try {
+                double low = Double.parseDouble(parts[1]);
+                double high = Double.parseDouble(parts[2]);
+                if(low < 0 || high > 1 || low >= high) return null;
+                return new Strategy(name, low, high);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Checks whether every location used is replaced, instead of refilling between watermarks.
+         * @return true if this is the replace strategy.
+         */
+        boolean isReplace(){
+            return low < 0;
+        }
+
+        /**
+         * Gets the amount of locations at which refilling starts.
+         * @param poolSize The amount of locations the pool holds when full.
+         * @return The low watermark.
+         */
+        int getLow(int poolSize){
+            return (int) Math.floor(low * poolSize);
+        }
+
+        /**
+         * Gets the amount of locations refilling stops at.
+         * @param poolSize The amount of locations the pool holds when full.
+         * @return The high watermark.
+         */
+        int getHigh(int poolSize){
+            return Math.max(1, (int) Math.ceil(high * poolSize));
+        }
+
+        @Override
+        public String toString(){
+            return name;
+        }
+    }
+
+
+    /**
+     * The result of replaying the trace once.
+     */
+    private static final class Result {
+
+        /**
+         * The time of every location asked for while the pool was empty.
+         */
+        final private long[] missTimes;
+        /**
+         * The amount of locations asked for while the pool was empty.
+         */
+        private int misses;
+        /**
+         * The least locations the pool had.
+         */
+        private int minPool;
+        /**
+         * The milliseconds the pool was empty for.
+         */
+        private long emptyTime;
+
+        /**
+         * Creates a new result.
+         * @param events The amount of events in the trace.
+         */
+        private Result(int events){
+            this.missTimes = new long[events];
+        }
+    }
+
+
+    /**
+     * The pool of a single replay, on its own simulated time.
+     */
+    private final class SimulatedCache {
+
+        /**
+         * The simulated clock the replay runs on.
+         */
+        final private VirtualTime time = new VirtualTime();
+        /**
+         * The result of the replay.
+         */
+        final private Result result = new Result(times.length);
+        /**
+         * The amount of locations in the pool.
+         */
+        private int pool;
+        /**
+         * The time the pool was left empty at.
+         */
+        private long emptySince;
+        /**
+         * The fill refilling the pool, null if none is running.
+         */
+        private CacheRefiller<Boolean>.Fill fill;
+
+        /**
+         * Creates a new full pool.
+         * @param poolSize The amount of locations the pool holds when full.
+         */
+        private SimulatedCache(int poolSize){
+            this.pool = poolSize;
+            result.minPool = poolSize;
+        }
+
+        /**
+         * Takes a location from the pool for a location asked for now, counting a miss if it is empty.
+         * @return true if a location was taken.
+         */
+        private boolean take(){
+            if(pool == 0) {
+                result.missTimes[result.misses++] = time.now();
+                return false;
+            }
+            if(--pool == 0) emptySince = time.now();
+            result.minPool = Math.min(result.minPool, pool);
+            return true;
+        }
+
+        /**
+         * Adds a generated location to the pool.
+         */
+        private void add(){
+            if(pool++ == 0) result.emptyTime += time.now() - emptySince;
+        }
+
+        /**
+         * Generates a location, taking the generation time.
+         * @return Always a location.
+         */
+        private Boolean generate(){
+            time.sleep(generationTime);
+            return Boolean.TRUE;
+        }
+
+        /**
+         * Starts filling the pool, ticking the fill like the plugin's cache task until it is done.
+         * @param refiller The refiller the pool is filled by.
+         * @param amount The amount of locations to generate.
+         */
+        private void startFill(CacheRefiller<Boolean> refiller, int amount){
+            CacheRefiller<Boolean>.Fill started = refiller.startFill(amount, this::generate);
+            fill = started;
+            time.schedule(time.now() + 5 * TICK_MILLIS, new Runnable() {
+                @Override
+                public void run(){
+                    if(!started.tick(permits)) time.schedule(time.now() + fillInterval, this);
+                    else if(fill == started) fill = null;
+                }
+            });
+        }
+
+        /**
+         * Checks whether a fill is running.
+         * @return true if the pool is being filled.
+         */
+        private boolean isFilling(){
+            return fill != null;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.tools;
+
+import com.popupmc.areaspawner.spawn.BlockReader;
+import com.popupmc.areaspawner.spawn.Region;
+import com.popupmc.areaspawner.spawn.Rejection;
+import com.popupmc.areaspawner.spawn.SafetyRules;
+import com.popupmc.areaspawner.spawn.refill.CacheRefiller;
+import com.popupmc.areaspawner.spawn.refill.GenerationTiming;
+import com.popupmc.areaspawner.spawn.sampling.Sampler;
+import com.popupmc.areaspawner.spawn.sampling.SamplerType;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line tool simulating location generation with a config against a {@link NoiseTerrain} world, for tuning
+ * "safe spawn attempts", the block list and the cache size without a server. Every location is generated like the
+ * plugin does, attempting columns picked by the configured sampler until one is safe or attempts run out.
+ * The cache is filled up by the plugin's own {@link CacheRefiller} on simulated generation threads and time, where
+ * every attempt waits a tick for the main thread and every failed attempt is followed by the plugin's attempt delay,
+ * skipped while bursting (more than 1 permit), giving how long the server would take to fill a cache of that size.
+ *
+ * Usage: java -cp MPAreaSpawner-tools(version).jar com.popupmc.areaspawner.tools.SimulateGeneration (config.yml) [options]
+ *
+ * @author lelesape
+ */
+public final class SimulateGeneration {
+
+    /**
+     * The milliseconds every attempt waits for the main thread to check its column, at most a tick.
+     */
+    private static final long TICK_MILLIS = 50;
+
+    /**
+     * The rules from the config file.
+     */
+    final private ConfigRules rules;
+    /**
+     * The sampler from the config file.
+     */
+    final private Sampler sampler;
+    /**
+     * The world generation is simulated in.
+     */
+    final private NoiseTerrain terrain;
+    /**
+     * The world's blocks, counting every block read.
+     */
+    final private CountingBlockReader reader;
+    /**
+     * The value for "safe spawn attempts" in config.
+     */
+    final private int attempts;
+    /**
+     * The amount of locations submitted every time the fill is ticked, as given by the generation governor.
+     */
+    final private int permits;
+    /**
+     * The amount of attempts every accepted location needed.
+     */
+    final private int[] attemptsNeeded;
+    /**
+     * The simulated clock the cache is filled on.
+     */
+    final private VirtualTime time = new VirtualTime();
+    /**
+     * The amount of locations accepted.
+     */
+    private int accepted;
+    /**
+     * The amount of locations given up on after every attempt failed.
+     */
+    private int failed;
+    /**
+     * The amount of columns attempted.
+     */
+    private long totalAttempts;
+    /**
+     * The amount of columns rejected for every reason.
+     */
+    final private Map<String, Integer> rejections = new HashMap<>();
+    /**
+     * The simulated time the first location was added to the cache at, -1 if none was.
+     */
+    private long firstCached = -1;
+    /**
+     * The simulated time the last location was added to the cache at.
+     */
+    private long lastCached;
+
+
+    /**
+     * Creates a new simulation.
+     * @param rules The rules from the config file.
+     * @param sampler The sampler from the config file.
+     * @param terrain The world to generate locations in.
+     * @param reader The world's blocks, counting every block read.
+     * @param attempts The value for "safe spawn attempts" in config.
+     * @param locations The amount of locations to generate.
+     * @param permits The amount of locations submitted every time the fill is ticked.
+     */
+    private SimulateGeneration(ConfigRules rules, Sampler sampler, NoiseTerrain terrain, CountingBlockReader reader, int attempts, int locations, int permits){
+        this.rules = rules;
+        this.sampler = sampler;
+        this.terrain = terrain;
+        this.reader = reader;
+        this.attempts = attempts;
+        this.attemptsNeeded = new int[locations];
+        this.permits = permits;
+    }
+
+    /**
+     * Runs the tool, see {@link #printUsage()} for the arguments.
+     * @param args The command line arguments.
+     */
+    public static void main(String[] args){
+        if(args.length < 1) {
+            printUsage();
+            System.exit(2);
+        }
+
+        int locations = -1;
+        long seed = 0;
+        double ocean = 0.3;
+        double lava = 0.02;
+        double claimed = 0.05;
+        int claimSize = 64;
+        int loadedChunks = 256;
+        boolean heightmap = false;
+        int threads = -1;
+        int maxJobs = -1;
+        int permits = 1;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--locations":
+                        locations = Integer.parseInt(args[++i]);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    case "--ocean":
+                        ocean = Double.parseDouble(args[++i]);
+                        break;
+                    case "--lava":
+                        lava = Double.parseDouble(args[++i]);
+                        break;
+                    case "--claimed":
+                        claimed = Double.parseDouble(args[++i]);
+                        break;
+                    case "--claim-size":
+                        claimSize = Integer.parseInt(args[++i]);
+                        break;
+                    case "--loaded-chunks":
+                        loadedChunks = Integer.parseInt(args[++i]);
+                        break;
+                    case "--heightmap":
+                        heightmap = true;
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--max-jobs":
+                        maxJobs = Integer.parseInt(args[++i]);
+                        break;
+                    case "--permits":
+                        permits = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        System.err.println("Unknown option " + args[i]);
+                        printUsage();
+                        System.exit(2);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            printUsage();
+            System.exit(2);
+        }
+
+        try {
+            ConfigFile config = ConfigFile.load(Paths.get(args[0]));
+            ConfigRules rules = new ConfigRules(config, null);
+            Sampler sampler = SamplerType.fromString(config.getString("sampler", null)).create(rules);
+            if(locations < 0) locations = config.getInt("amount of cached spawns", 10);
+            int attempts = config.getInt("safe spawn attempts", 25);
+            if(threads < 0) threads = config.getInt("generation threads", 1);
+            if(maxJobs < 0) maxJobs = config.getInt("max generation jobs", 64);
+            int tickInterval = config.getTicks("time between generating locations", 60);
+
+            NoiseTerrain terrain = new NoiseTerrain(seed, ocean, lava, claimed, claimSize);
+            System.out.println(String.format("Terrain: seed %d, %.0f%% ocean (sea level %d), %.0f%% lava lakes on land, %.0f%% claimed in %d block claims.",
+                    seed, ocean * 100, terrain.getSeaLevel(), lava * 100, claimed * 100, claimSize));
+
+            CountingBlockReader reader = new CountingBlockReader(terrain, heightmap, Math.max(1, loadedChunks));
+            new SimulateGeneration(rules, sampler, terrain, reader, Math.max(1, attempts), Math.max(0, locations), Math.max(1, permits))
+                    .run(Math.max(1, threads), Math.max(1, maxJobs), Math.max(1, tickInterval));
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Fills the cache on simulated time and prints the results.
+     * @param threads The value for "generation threads" in config.
+     * @param maxJobs The value for "max generation jobs" in config.
+     * @param tickInterval The value for "time between generating locations" in config, in ticks.
+     */
+    private void run(int threads, int maxJobs, int tickInterval){
+        Region allowed = rules.getAllowedRegion();
+        System.out.println("Filling a cache of " + attemptsNeeded.length + " locations in " + allowed + ", " + attempts
+                + " attempts each, " + permits + " submitted every " + tickInterval + " ticks to " + threads + " generation thread" + (threads == 1 ? "" : "s") + "...");
+
+        CacheRefiller<Integer> refiller = new CacheRefiller<>(new VirtualExecutor(time, threads, maxJobs), () -> null, needed -> {
+            if(firstCached < 0) firstCached = time.now();
+            lastCached = time.now();
+        });
+        CacheRefiller<Integer>.Fill fill = refiller.startFill(attemptsNeeded.length, () -> generate(allowed, reader));
+
+        long start = System.nanoTime();
+        //The plugin ticks the fill 5 ticks after starting it and then every "time between generating locations"
+        time.schedule(5 * TICK_MILLIS, new Runnable() {
+            @Override
+            public void run(){
+                if(!fill.tick(permits)) time.schedule(time.now() + tickInterval * TICK_MILLIS, this);
+            }
+        });
+        time.runAll();
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        printResults(millis);
+    }
+
+    /**
+     * Generates a location the way the plugin does, waiting the simulated time the plugin would take.
+     * @param allowed The spawn zone.
+     * @param reader The world's blocks.
+     * @return The amount of attempts needed, or null if every attempt failed.
+     */
+    private Integer generate(Region allowed, BlockReader reader){
+        int needed = findSafeColumn(allowed, reader);
+        int tried = needed > 0 ? needed : attempts;
+        int failedAttempts = needed > 0 ? needed - 1 : attempts;
+        time.sleep(tried * TICK_MILLIS + failedAttempts * GenerationTiming.getAttemptDelay(permits));
+
+        if(needed == 0) {
+            failed++;
+            return null;
+        }
+        attemptsNeeded[accepted++] = needed;
+        return needed;
+    }
+
+    /**
+     * Attempts columns like the plugin does until one is safe or attempts run out.
+     * @param allowed The spawn zone.
+     * @param reader The world's blocks.
+     * @return The amount of attempts needed, or 0 if every attempt failed.
+     */
+    private int findSafeColumn(Region allowed, BlockReader reader){
+        Region forbidden = rules.getForbiddenRegion();
+        for (int i = 1; i <= attempts; i++) {
+            totalAttempts++;
+            long column = sampler.nextColumn(allowed);
+            int x = Sampler.unpackX(column);
+            int z = Sampler.unpackZ(column);
+
+            int y = SafetyRules.findSafeY(reader, x, z, allowed.getMinY(), allowed.getMaxY(), rules);
+            Rejection rejection = SafetyRules.getRejection(reader, x, y, z, forbidden, allowed, rules);
+            sampler.report(x, z, rejection == null);
+
+            if(rejection == null) return i;
+            //Columns with an unsafe surface are not scanned past it, the surface is what the block list rejected
+            String reason = y == SafetyRules.NO_SAFE_Y ? "No safe block found, the surface is " + terrain.getBlock(x, terrain.getHighestY(x, z), z) + "."
+                    : rejection.getMessage(rejection == Rejection.UNSAFE_BLOCK ? terrain.getBlock(x, y, z) : null);
+            rejections.merge(reason, 1, Integer::sum);
+        }
+        return 0;
+    }
+
+    /**
+     * Prints the results of the simulation.
+     * @param millis The time the simulation took, in milliseconds.
+     */
+    private void printResults(double millis){
+        System.out.println("Accepted " + accepted + "/" + attemptsNeeded.length + " locations, gave up on " + failed + ".");
+        if(firstCached >= 0) {
+            System.out.println(String.format("Server time: first location cached after %s, cache filled after %s (%.1f locations per minute).",
+                    VirtualTime.formatDuration(firstCached), VirtualTime.formatDuration(lastCached),
+                    accepted * 60000.0 / Math.max(1, lastCached)));
+        }else {
+            System.out.println("Server time: no location cached after " + VirtualTime.formatDuration(time.now()) + ".");
+        }
+        if(accepted > 0) {
+            int[] needed = Arrays.copyOf(attemptsNeeded, accepted);
+            Arrays.sort(needed);
+            System.out.println(String.format("Attempts per accepted location: %.2f (%d attempts in total), needed p50 %d, p90 %d, p99 %d, max %d.",
+                    (double) totalAttempts / accepted, totalAttempts, getPercentile(needed, 0.5), getPercentile(needed, 0.9),
+                    getPercentile(needed, 0.99), needed[needed.length - 1]));
+        }
+        System.out.println(String.format("Blocks read: %d (%.1f per attempt).",
+                reader.getBlocksRead(), (double) reader.getBlocksRead() / Math.max(1, totalAttempts)));
+        System.out.println(String.format("Simulated chunk loads: %d (%.2f per attempt).",
+                reader.getChunkLoads(), (double) reader.getChunkLoads() / Math.max(1, totalAttempts)));
+        System.out.println(String.format("Wall time: %.1fms (%.0f attempts per second).",
+                millis, totalAttempts / Math.max(millis / 1000, 1e-9)));
+
+        if(!rejections.isEmpty()) {
+            System.out.println("Rejected attempts:");
+            rejections.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .forEach(e -> System.out.println(String.format("  %6d  %s", e.getValue(), e.getKey())));
+        }
+    }
+
+    /**
+     * Gets a percentile of sorted values.
+     * @param sorted The values, sorted.
+     * @param percentile The percentile, from 0 to 1.
+     * @return The value at the percentile.
+     */
+    private static int getPercentile(int[] sorted, double percentile){
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    /**
+     * Prints how to use this tool.
+     */
+    private static void printUsage(){
+        System.err.println("Usage: java -cp MPAreaSpawner-tools(version).jar com.popupmc.areaspawner.tools.SimulateGeneration (config.yml) [options]");
+        System.err.println("  --locations (amount)      Size of the cache to fill, \"amount of cached spawns\" by default.");
+        System.err.println("  --seed (seed)             The synthetic world's seed, 0 by default.");
+        System.err.println("  --ocean (fraction)        Fraction of columns under water, 0.3 by default.");
+        System.err.println("  --lava (fraction)         Fraction of land in lava lakes, 0.02 by default.");
+        System.err.println("  --claimed (fraction)      Fraction of land in claimed areas, 0.05 by default.");
+        System.err.println("  --claim-size (blocks)     Width of a claimed area, 64 by default.");
+        System.err.println("  --loaded-chunks (amount)  Chunks kept loaded between attempts, 256 by default.");
+        System.err.println("  --heightmap               Skip the air above every column, as when reading region files.");
+        System.err.println("  --threads (amount)        Generation threads, \"generation threads\" by default.");
+        System.err.println("  --max-jobs (amount)       Generation jobs waiting or running at once, \"max generation jobs\" by default.");
+        System.err.println("  --permits (amount)        Locations submitted every \"time between generating locations\", more than 1 as when");
+        System.err.println("                            the governor bursts, 1 by default.");
+    }
+}
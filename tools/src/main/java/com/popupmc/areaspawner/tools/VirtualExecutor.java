@@ -0,0 +1,96 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.tools;
+
+import com.popupmc.areaspawner.spawn.refill.JobExecutor;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Simulates the plugin's generation executor on a {@link VirtualTime}: a fixed amount of threads ("generation
+ * threads") and a limit on the jobs waiting or running at once ("max generation jobs").
+ *
+ * @author lelesape
+ */
+final class VirtualExecutor implements JobExecutor {
+
+    /**
+     * The simulated clock jobs run on.
+     */
+    final private VirtualTime time;
+    /**
+     * The amount of jobs that can run at the same time.
+     */
+    final private int threads;
+    /**
+     * The amount of jobs that can be waiting or running at once.
+     */
+    final private int maxJobs;
+    /**
+     * Jobs waiting for a free thread.
+     */
+    final private Queue<Runnable> waiting = new ArrayDeque<>();
+    /**
+     * The amount of jobs running.
+     */
+    private int running;
+
+
+    /**
+     * Creates a new simulated executor.
+     * @param time The simulated clock jobs run on.
+     * @param threads The amount of jobs that can run at the same time.
+     * @param maxJobs The amount of jobs that can be waiting or running at once.
+     */
+    VirtualExecutor(VirtualTime time, int threads, int maxJobs){
+        this.time = time;
+        this.threads = Math.max(1, threads);
+        this.maxJobs = Math.max(1, maxJobs);
+    }
+
+    @Override
+    public boolean submit(Runnable job){
+        if(running + waiting.size() >= maxJobs) return false;
+
+        if(running < threads) {
+            running++;
+            time.schedule(time.now(), () -> run(job));
+        }else {
+            waiting.add(job);
+        }
+        return true;
+    }
+
+    /**
+     * Runs a job and then the next waiting one, if any.
+     * @param job The job to run.
+     */
+    private void run(Runnable job){
+        time.start(() -> {
+            try {
+                job.run();
+            } finally {
+                Runnable next = waiting.poll();
+                if(next != null) {
+                    time.schedule(time.now(), () -> run(next));
+                }else {
+                    running--;
+                }
+            }
+        });
+    }
+}
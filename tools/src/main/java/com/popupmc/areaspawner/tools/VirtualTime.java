@@ -0,0 +1,164 @@
+/*
+Copyright 2020 Leandro Alfonso
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.popupmc.areaspawner.tools;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A simulated clock for running the plugin's generation code offline. Jobs run on real threads, but only one thread
+ * runs at a time and waiting with {@link #sleep(long)} takes simulated time instead, so hours of generation are
+ * simulated in seconds, the same way every time.
+ *
+ * @author lelesape
+ */
+final class VirtualTime {
+
+    /**
+     * Everything scheduled to happen, earliest first.
+     */
+    final private PriorityQueue<Event> events = new PriorityQueue<>();
+    /**
+     * Released by a job's thread when it stops running, either waiting or finished, to hand control back.
+     */
+    final private Semaphore control = new Semaphore(0);
+    /**
+     * The current time, in milliseconds since the simulation started.
+     */
+    private long now;
+    /**
+     * The amount of events scheduled so far, so events at the same time happen in the order they were scheduled.
+     */
+    private long scheduled;
+
+
+    /**
+     * Schedules something to happen, on the thread running the simulation.
+     * @param time The time it happens at, now if it is in the past.
+     * @param action What happens.
+     */
+    void schedule(long time, Runnable action){
+        events.add(new Event(Math.max(time, now), scheduled++, action));
+    }
+
+    /**
+     * Runs everything scheduled up to the given time, including what gets scheduled meanwhile, and moves the
+     * clock to that time.
+     * @param time The time to run the simulation to.
+     */
+    void runUntil(long time){
+        while(!events.isEmpty() && events.peek().time <= time) {
+            Event event = events.poll();
+            now = event.time;
+            event.action.run();
+        }
+        now = Math.max(now, time);
+    }
+
+    /**
+     * Runs everything scheduled, including what gets scheduled meanwhile, until nothing is left.
+     */
+    void runAll(){
+        while(!events.isEmpty()) {
+            Event event = events.poll();
+            now = event.time;
+            event.action.run();
+        }
+    }
+
+    /**
+     * Starts running a job on its own thread, returning once it waits or finishes. Only called by the thread
+     * running the simulation.
+     * @param job The job to run.
+     */
+    void start(Runnable job){
+        Thread thread = new Thread(() -> {
+            try {
+                job.run();
+            } finally {
+                control.release();
+            }
+        }, "AreaSpawner-Simulated-Job");
+        thread.setDaemon(true);
+        thread.start();
+        control.acquireUninterruptibly();
+    }
+
+    /**
+     * Waits for an amount of simulated time. Only called by jobs started with {@link #start(Runnable)}.
+     * @param millis The milliseconds to wait for.
+     */
+    void sleep(long millis){
+        Semaphore wake = new Semaphore(0);
+        schedule(now + millis, () -> {
+            wake.release();
+            control.acquireUninterruptibly();
+        });
+        control.release();
+        wake.acquireUninterruptibly();
+    }
+
+    long now(){
+        return now;
+    }
+
+    /**
+     * Formats an amount of milliseconds as hours, minutes and seconds.
+     * @param millis The amount of milliseconds.
+     * @return The formatted duration, i.e: 2h 5m 30s.
+     */
+    static String formatDuration(long millis){
+        long seconds = millis / 1000;
+        return (seconds >= 3600 ? seconds / 3600 + "h " : "") + (seconds >= 60 ? seconds / 60 % 60 + "m " : "") + seconds % 60 + "s";
+    }
+
+
+    /**
+     * Something scheduled to happen.
+     */
+    private static final class Event implements Comparable<Event> {
+
+        /**
+         * The time it happens at.
+         */
+        final private long time;
+        /**
+         * The order it was scheduled in.
+         */
+        final private long order;
+        /**
+         * What happens.
+         */
+        final private Runnable action;
+
+        /**
+         * Creates a new event.
+         * @param time The time it happens at.
+         * @param order The order it was scheduled in.
+         * @param action What happens.
+         */
+        private Event(long time, long order, Runnable action){
+            this.time = time;
+            this.order = order;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(Event other){
+            return time != other.time ? Long.compare(time, other.time) : Long.compare(order, other.order);
+        }
+    }
+}